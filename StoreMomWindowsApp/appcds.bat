@@ -0,0 +1,9 @@
+@echo off
+rem สร้าง AppCDS archive (storemom.jsa) ให้ JVM โหลด class ของหน้าจอจาก archive แทนการ parse ทุกครั้งที่เปิดโปรแกรม
+rem ต้อง build ผ่าน IntelliJ ก่อน (out\production\storeManagement) และต้องรันใหม่ทุกครั้งที่ build ใหม่หรือเปลี่ยน JDK
+setlocal
+cd /d "%~dp0"
+rem CDS เก็บเฉพาะ class ที่มาจากไฟล์ jar จึงรวม class ของโปรแกรมเป็น jar ก่อน
+jar --create --file storemom.jar -C out\production\storeManagement . || exit /b 1
+java -XX:ArchiveClassesAtExit=storemom.jsa -Dstoremom.startup.exitAfterPaint=true -cp "storemom.jar;lib\*" Home || exit /b 1
+echo Run with: java -XX:SharedArchiveFile=storemom.jsa -cp "storemom.jar;lib\*" Home
@@ -0,0 +1,7 @@
+#!/bin/sh
+# สร้าง AppCDS archive (storemom.jsa) ดู appcds.bat
+set -e
+cd "$(dirname "$0")"
+jar --create --file storemom.jar -C out/production/storeManagement .
+java -XX:ArchiveClassesAtExit=storemom.jsa -Dstoremom.startup.exitAfterPaint=true -cp "storemom.jar:lib/*" Home
+echo 'Run with: java -XX:SharedArchiveFile=storemom.jsa -cp "storemom.jar:lib/*" Home'
@@ -0,0 +1,132 @@
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the operations behind Home's screens ({@link StoreWorkload}) headless at growing data volumes:
+ * {@code java -Djava.awt.headless=true -Dstoremom.db.url=... -cp benchmarks/target/benchmarks.jar ScaleTest 10000 100000 1000000}.
+ * For each scale, given as a number of orders and run smallest first, {@link StoreDataGenerator} tops the tables up.
+ * Every operation then gets a short warm-up and runs for up to {@code storemom.scale.seconds} seconds, at most
+ * {@code storemom.scale.iterations} times. The report gives latency percentiles, bytes allocated per call, and the heap
+ * still held by one result after a full GC (a loaded combo, the streamed grid). Loading the whole customer grid is
+ * skipped once it would exceed {@code storemom.scale.streamRows} rows. Without {@code storemom.db.url} the test uses
+ * an in-memory H2 database, which only makes sense for a smoke run.
+ */
+public class ScaleTest {
+    private static final int WARMUP = Integer.getInteger("storemom.scale.warmup", 3);
+    private static final int ITERATIONS = Integer.getInteger("storemom.scale.iterations", 1_000);
+    private static final int SECONDS = Integer.getInteger("storemom.scale.seconds", 5);
+    private static final long STREAM_ROWS = Long.getLong("storemom.scale.streamRows", 2_000_000L);
+    //โหลดทุกแถวของตารางลูกค้า ใช้ memory ตามจำนวนรายการสินค้าที่ขาย
+    private static final Set<String> STREAMED = Set.of("customerGridStream", "gridSort", "gridFilter");
+
+    public static void main(String[] args) throws Exception {
+        StoreDataGenerator.useEmbeddedByDefault();
+        int[] scales = args.length > 0 ? Arrays.stream(args).mapToInt(Integer::parseInt).sorted().toArray()
+                : new int[]{10_000, 100_000};
+        String csvPath = System.getProperty("storemom.scale.csv");
+        if (StoreDataGenerator.isEmbedded()) {
+            StoreDataGenerator.createEmbeddedSchema();
+        }
+        System.out.printf("%s, max heap %d MB%n", System.getProperty("storemom.db.url"),
+                Runtime.getRuntime().maxMemory() >> 20);
+        try (PrintWriter csv = csvPath == null ? null : new PrintWriter(new FileWriter(csvPath))) {
+            if (csv != null) {
+                csv.println("orders,operation,count,p50_ms,p99_ms,max_ms,allocated_kb_per_call,retained_kb");
+            }
+            for (int orders : scales) {
+                run(StoreDataGenerator.Scale.ofOrders(orders), csv);
+            }
+        } finally {
+            storeConnection.pool().close();
+        }
+    }
+
+    private static void run(StoreDataGenerator.Scale scale, PrintWriter csv) throws Exception {
+        StoreDataGenerator.Report data = new StoreDataGenerator().fill(scale);
+        System.out.printf("%n%d orders: %d customers, %d products, %d lines (generated in %.1fs)%n", data.orders(),
+                data.customers(), data.products(), data.lines(), data.elapsedMillis() / 1e3);
+        System.out.printf("%-18s %7s %9s %9s %9s %12s %12s%n", "operation", "count", "p50 ms", "p99 ms", "max ms",
+                "alloc KB/op", "retained KB");
+
+        //เปิดโปรแกรม: index ลูกค้าและ catalog สินค้าที่ workload เก็บไว้
+        long heap = usedHeapAfterGc();
+        long started = System.nanoTime();
+        long allocated = allocatedBytes();
+        StoreWorkload workload = new StoreWorkload(scale);
+        LatencyHistogram startup = new LatencyHistogram();
+        startup.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started));
+        report(csv, data.orders(), "startup", startup, allocatedBytes() - allocated, usedHeapAfterGc() - heap);
+
+        for (String operation : workload.operationNames()) {
+            if (STREAMED.contains(operation) && data.lines() + data.customers() > STREAM_ROWS) {
+                System.out.printf("%-18s skipped, grid has more than %d rows%n", operation, STREAM_ROWS);
+                continue;
+            }
+            measure(csv, data.orders(), operation, workload.apply(operation));
+        }
+        Reference.reachabilityFence(workload);
+    }
+
+    private static void measure(PrintWriter csv, int orders, String operation, Callable<Object> call) throws Exception {
+        //การดำเนินการที่ช้ามาก (เช่นโหลดทั้งตาราง) warm-up ไม่เกินเวลาที่ให้วัด
+        long warmupDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+        for (int i = 0; i < WARMUP && System.nanoTime() < warmupDeadline; i++) {
+            call.call();
+        }
+        long heap = usedHeapAfterGc();
+        Object result = call.call();
+        long retained = usedHeapAfterGc() - heap;
+        Reference.reachabilityFence(result);
+
+        LatencyHistogram latency = new LatencyHistogram();
+        long allocated = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+        while (latency.count() < ITERATIONS && System.nanoTime() < deadline) {
+            long before = allocatedBytes();
+            long started = System.nanoTime();
+            call.call();
+            latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started));
+            allocated += allocatedBytes() - before;
+        }
+        report(csv, orders, operation, latency, allocated / Math.max(1, latency.count()), retained);
+    }
+
+    private static void report(PrintWriter csv, int orders, String operation, LatencyHistogram latency,
+                               long allocatedPerCall, long retained) {
+        System.out.printf("%-18s %7d %9.2f %9.2f %9.2f %12d %12d%n", operation, latency.count(),
+                latency.percentile(50) / 1e3, latency.percentile(99) / 1e3, latency.max() / 1e3,
+                allocatedPerCall >> 10, Math.max(0, retained) >> 10);
+        if (csv != null) {
+            csv.printf("%d,%s,%d,%.3f,%.3f,%.3f,%d,%d%n", orders, operation, latency.count(),
+                    latency.percentile(50) / 1e3, latency.percentile(99) / 1e3, latency.max() / 1e3,
+                    allocatedPerCall >> 10, Math.max(0, retained) >> 10);
+            csv.flush();
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    //GC หลายรอบจน heap ที่ใช้ไม่ลดลงอีก ค่าที่ได้ใกล้ขนาดของ object ที่ยังถูกอ้างถึง
+    private static long usedHeapAfterGc() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(20);
+            long now = runtime.totalMemory() - runtime.freeMemory();
+            if (now >= used) {
+                return now;
+            }
+            used = now;
+        }
+        return used;
+    }
+}
@@ -0,0 +1,424 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fills customer, product, orders and orderdetail with store-like data at a chosen scale:
+ * a few customers place most orders and a few products sell most units (Zipf), baskets are mostly one to three lines
+ * and quantities mostly one or two (geometric), cost prices are log-normal around 35 baht, and order volume grows over
+ * {@code storemom.gen.days} days and peaks in the evening. Line and order amounts come from {@link OrderPricing},
+ * exactly as checkout writes them.
+ * Tables are topped up to the scale, so running again with a larger scale only adds the difference. Rows go in as
+ * JDBC batches, one transaction per chunk of {@code storemom.gen.batchSize} rows, with chunks spread over
+ * {@code storemom.gen.threads} threads; every chunk draws from its own seeded random, so the data does not depend on
+ * the number of threads.
+ * <pre>java -Dstoremom.db.url=jdbc:mysql://localhost:3306/storemom_scale?rewriteBatchedStatements=true
+ *     -cp benchmarks/target/benchmarks.jar StoreDataGenerator orders [customers products]</pre>
+ */
+public class StoreDataGenerator {
+    private static final String EMBEDDED_URL = "jdbc:h2:mem:storemom;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1";
+
+    static final String[] FIRST_NAMES = {"Somchai", "Somsak", "Suda", "Malee", "Niran", "Pranee", "Anong", "Kittisak",
+            "Wichai", "Supaporn", "Chaiwat", "Ratana", "Boonmee", "Siriporn", "Thanom", "Kanya", "Prasert", "Waraporn",
+            "สมชาย", "สมศักดิ์", "สุดา", "มาลี", "นิรันดร์", "ประณีต", "อนงค์", "กิตติศักดิ์", "วิชัย", "สุภาพร", "ชัยวัฒน์",
+            "รัตนา", "บุญมี", "ศิริพร"};
+    static final String[] LAST_NAMES = {"Saetang", "Srisuk", "Wongsawat", "Chaiyaporn", "Thongdee", "Rattanakul",
+            "Boonyarat", "Kaewmanee", "แซ่ตั้ง", "ศรีสุข", "วงศ์สวัสดิ์", "ชัยพร", "ทองดี", "รัตนกุล", "บุญยรัตน์", "แก้วมณี"};
+    static final String[] GOODS = {"Rice", "Fish sauce", "Sugar", "Soap", "Shampoo", "Coffee", "Milk", "Noodles",
+            "Eggs", "Cooking oil", "Detergent", "Toothpaste", "Tissue", "ข้าวสาร", "น้ำปลา", "น้ำตาลทราย", "สบู่เหลว",
+            "แชมพู", "กาแฟสำเร็จรูป", "นมสด", "บะหมี่กึ่งสำเร็จรูป", "ไข่ไก่", "น้ำมันพืช", "ผงซักฟอก", "ยาสีฟัน"};
+    private static final String[] BRANDS = {"Mama", "Nestle", "Lux", "Dutchie", "Oishi", "Tipco", "Lipton", "Sunsilk",
+            "ตราช้าง", "ตรากุ้ง", "ตราแม่ครัว", "ตราฉัตร", "ตราหงส์", "ตรามงกุฎ"};
+    private static final String[] SIZES = {"100 g", "250 g", "500 g", "1 kg", "5 kg", "200 มล.", "700 มล.", "1 ลิตร",
+            "แพ็ค 3", "แพ็ค 6", "โหล"};
+    //น้ำหนักของแต่ละชั่วโมง (00-23) ลูกค้ามากช่วงเย็น
+    private static final int[] HOUR_WEIGHTS = {0, 0, 0, 0, 0, 1, 3, 5, 6, 6, 7, 8, 9, 7, 6, 6, 8, 11, 12, 10, 7, 4, 2, 1};
+    private static final int HOUR_WEIGHT_TOTAL = Arrays.stream(HOUR_WEIGHTS).sum();
+    static final String[][] EMBEDDED_SCHEMA = {
+            {"customer", "CREATE TABLE IF NOT EXISTS customer (id INT NOT NULL AUTO_INCREMENT, fname VARCHAR(45) NOT NULL,"
+                    + " lname VARCHAR(45) NOT NULL, PRIMARY KEY (id))"},
+            {"product", "CREATE TABLE IF NOT EXISTS product (productId INT NOT NULL AUTO_INCREMENT,"
+                    + " productName VARCHAR(100) NOT NULL, quantityInStock INT NULL, price DECIMAL(10,2) NOT NULL, volume VARCHAR(45) NULL,"
+                    + " description TEXT NULL,"
+                    + " updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP, PRIMARY KEY (productId))"},
+            {"orders", "CREATE TABLE IF NOT EXISTS orders (orderId INT NOT NULL AUTO_INCREMENT, totalAmount DECIMAL(10,2) NULL,"
+                    + " customer_id INT NOT NULL, orderDate DATETIME NULL, profit DECIMAL(10,2) NULL, PRIMARY KEY (orderId))"},
+            {"orderdetail", "CREATE TABLE IF NOT EXISTS orderdetail (orderDetailId INT NOT NULL AUTO_INCREMENT,"
+                    + " quantityOrdered INT NULL, priceEach DECIMAL(10,2) NULL, productId INT NOT NULL, orderId INT NOT NULL,"
+                    + " unitCost DECIMAL(10,2) NULL, lineTotal DECIMAL(10,2) NULL, lineProfit DECIMAL(10,2) NULL,"
+                    + " PRIMARY KEY (orderDetailId))"},
+            {"idx_customer", "CREATE INDEX IF NOT EXISTS idx_customer ON orders(customer_id)"},
+            {"idx_order", "CREATE INDEX IF NOT EXISTS idx_order ON orderdetail(orderId)"},
+            {"idx_product_name", "CREATE INDEX IF NOT EXISTS idx_product_name ON product(productName)"},
+    };
+    private static final String INSERT_CUSTOMER = "INSERT INTO customer (fname, lname) VALUES(?,?)";
+    private static final String INSERT_PRODUCT = "INSERT INTO product (productName, quantityInStock, price, volume) VALUES(?,?,?,?)";
+    //กำหนด orderId เองเพื่อให้หลาย thread insert รายการของ order ได้โดยไม่ต้องรอ id ที่ generate
+    private static final String INSERT_ORDER = "INSERT INTO orders (orderId, totalAmount, customer_id, orderDate, profit) VALUES(?,?,?,?,?)";
+    private static final String INSERT_LINE = "INSERT INTO orderdetail (quantityOrdered, priceEach, productId, orderId, unitCost, lineTotal, lineProfit)\n" +
+            "VALUES(?,?,?,?,?,?,?)";
+
+    /** Target row counts; {@code linesPerOrder} is the mean basket size. */
+    public record Scale(int customers, int products, int orders, double linesPerOrder) {
+        /** Customers and products growing with the number of orders, roughly like a growing shop. */
+        public static Scale ofOrders(int orders) {
+            return new Scale(Math.max(1_000, orders / 50), (int) Math.max(500, 6 * Math.sqrt(orders)), orders, 2.5);
+        }
+    }
+
+    public record Report(int customers, int products, int orders, long lines, long elapsedMillis) {
+    }
+
+    @FunctionalInterface
+    private interface Chunk {
+        long insert(SplittableRandom random, int from, int to) throws Exception;
+    }
+
+    private final long seed;
+    private final int threads;
+    private final int chunkSize;
+    private final int days;
+
+    public StoreDataGenerator() {
+        //H2 ในหน่วยความจำแจก AUTO_INCREMENT ซ้ำกันเมื่อหลาย transaction insert พร้อมกัน
+        this(Long.getLong("storemom.gen.seed", 42L), Integer.getInteger("storemom.gen.threads",
+                        isEmbedded() ? 1 : Integer.getInteger("storemom.pool.maxSize", 4)),
+                Integer.getInteger("storemom.gen.batchSize", 1_000), Integer.getInteger("storemom.gen.days", 730));
+    }
+
+    public StoreDataGenerator(long seed, int threads, int chunkSize, int days) {
+        this.seed = seed;
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+        this.days = days;
+    }
+
+    /** Points {@code storemom.db.url} at an in-memory H2 database unless one was given; call before any query. */
+    public static void useEmbeddedByDefault() {
+        if (System.getProperty("storemom.db.url") == null) {
+            System.setProperty("storemom.db.url", EMBEDDED_URL);
+        }
+    }
+
+    public static boolean isEmbedded() {
+        return System.getProperty("storemom.db.url", "").startsWith("jdbc:h2:");
+    }
+
+    /** The four tables for H2; MariaDB/MySQL use db/init with db/migrate.sql instead. */
+    public static void createEmbeddedSchema() throws SQLException {
+        try (Connection connection = storeConnection.connect();
+             Statement statement = connection.createStatement()) {
+            for (String[] ddl : EMBEDDED_SCHEMA) {
+                statement.execute(ddl[1]);
+            }
+        }
+    }
+
+    public Report fill(Scale scale) throws SQLException {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "storemom-gen");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            int customers = count("customer");
+            inParallel(executor, "customer", 1, customers, scale.customers(), (random, from, to) ->
+                    insert(INSERT_CUSTOMER, from, to, (statement, i) -> {
+                        statement.setString(1, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]);
+                        statement.setString(2, LAST_NAMES[random.nextInt(LAST_NAMES.length)] + " " + (i + 1));
+                    }));
+            int products = count("product");
+            inParallel(executor, "product", 2, products, scale.products(), (random, from, to) ->
+                    insert(INSERT_PRODUCT, from, to, (statement, i) -> {
+                        statement.setString(1, GOODS[random.nextInt(GOODS.length)] + " "
+                                + BRANDS[random.nextInt(BRANDS.length)] + " " + SIZES[random.nextInt(SIZES.length)]
+                                + " #" + (i + 1));
+                        //สินค้าส่วนน้อยหมดสต็อก
+                        statement.setInt(2, random.nextInt(20) == 0 ? 0 : geometric(random, 80, 5_000));
+                        statement.setInt(3, (int) Math.min(5_000, Math.max(5, Math.round(Math.exp(3.5 + 0.9 * gaussian(random))))));
+                        statement.setString(4, SIZES[random.nextInt(SIZES.length)]);
+                    }));
+            int orders = count("orders");
+            long lines = queryInt("SELECT COUNT(*) FROM orderdetail");
+            int newOrders = scale.orders() - orders;
+            if (newOrders > 0) {
+                int[] customerIds = ids("SELECT id FROM customer ORDER BY id");
+                List<Product> catalog = products();
+                if (customerIds.length == 0 || catalog.isEmpty()) {
+                    throw new SQLException("Orders need at least one customer and one product");
+                }
+                Basket basket = new Basket(customerIds, catalog, scale.linesPerOrder(), new SplittableRandom(seed));
+                int firstOrder = queryInt("SELECT coalesce(max(orderId), 0) FROM orders") + 1;
+                lines += inParallel(executor, "orders", 3, 0, newOrders, (random, from, to) ->
+                        insertOrders(basket, random, firstOrder, from, to, newOrders));
+            }
+            return new Report(count("customer"), count("product"), count("orders"), lines,
+                    (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    //แบ่งแถวที่ขาดเป็นก้อน แต่ละก้อนมี random ของตัวเองจาก seed, ตาราง และลำดับก้อน
+    private long inParallel(ExecutorService executor, String table, int salt, int existing, int target, Chunk chunk)
+            throws SQLException {
+        int rows = target - existing;
+        if (rows <= 0) {
+            return 0;
+        }
+        AtomicInteger done = new AtomicInteger();
+        AtomicInteger reported = new AtomicInteger();
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int from = existing; from < target; from += chunkSize) {
+            int chunkFrom = from;
+            int chunkTo = Math.min(target, from + chunkSize);
+            SplittableRandom random = new SplittableRandom(seed * 1_000_003L + salt * 7_919L + from / chunkSize);
+            futures.add(executor.submit(() -> {
+                long inserted = chunk.insert(random, chunkFrom, chunkTo);
+                int percent = (int) (done.addAndGet(chunkTo - chunkFrom) * 10L / rows) * 10;
+                if (reported.getAndAccumulate(percent, Math::max) < percent) {
+                    System.out.printf("%s %d%% (%d rows)%n", table, percent, done.get());
+                }
+                return inserted;
+            }));
+        }
+        long inserted = 0;
+        try {
+            for (Future<Long> future : futures) {
+                inserted += future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while generating " + table, ex);
+        } catch (ExecutionException ex) {
+            futures.forEach(future -> future.cancel(true));
+            if (ex.getCause() instanceof SQLException) {
+                throw (SQLException) ex.getCause();
+            }
+            throw new SQLException("Generating " + table + " failed", ex.getCause());
+        }
+        return inserted;
+    }
+
+    @FunctionalInterface
+    private interface RowBinder {
+        void bind(PreparedStatement statement, int index) throws SQLException;
+    }
+
+    private static long insert(String sql, int from, int to, RowBinder binder) throws SQLException {
+        return UnitOfWork.run(unitOfWork -> {
+            try (PreparedStatement statement = unitOfWork.connection().prepareStatement(sql)) {
+                for (int i = from; i < to; i++) {
+                    binder.bind(statement, i);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            return (long) (to - from);
+        });
+    }
+
+    private long insertOrders(Basket basket, SplittableRandom random, int firstOrder, int from, int to, int total)
+            throws SQLException {
+        return UnitOfWork.run(unitOfWork -> {
+            long lines = 0;
+            try (PreparedStatement orders = unitOfWork.connection().prepareStatement(INSERT_ORDER);
+                 PreparedStatement details = unitOfWork.connection().prepareStatement(INSERT_LINE)) {
+                for (int i = from; i < to; i++) {
+                    int orderId = firstOrder + i;
+                    OrderPricing pricing = OrderPricing.of(basket.lines(random));
+                    orders.setInt(1, orderId);
+                    orders.setBigDecimal(2, Money.toDecimal(pricing.total()));
+                    orders.setInt(3, basket.customer(random));
+                    orders.setTimestamp(4, Timestamp.valueOf(orderDate(random, i, total)));
+                    orders.setBigDecimal(5, Money.toDecimal(pricing.profit()));
+                    orders.addBatch();
+                    for (OrderPricing.LineAmounts amounts : pricing.lines()) {
+                        CartLine line = amounts.line();
+                        details.setInt(1, line.quantity());
+                        details.setBigDecimal(2, Money.toDecimal(line.priceEach()));
+                        details.setInt(3, line.productId());
+                        details.setInt(4, orderId);
+                        details.setBigDecimal(5, Money.toDecimal(line.unitCost()));
+                        details.setBigDecimal(6, Money.toDecimal(amounts.total()));
+                        details.setBigDecimal(7, Money.toDecimal(amounts.profit()));
+                        details.addBatch();
+                        lines++;
+                    }
+                }
+                orders.executeBatch();
+                details.executeBatch();
+            }
+            return lines;
+        });
+    }
+
+    //order ช่วงหลังของระยะเวลาหนาแน่นกว่าช่วงแรก (ร้านโตขึ้น) และ orderId เรียงตามวันที่คร่าว ๆ
+    private LocalDateTime orderDate(SplittableRandom random, int index, int total) {
+        double position = Math.pow((index + random.nextDouble()) / total, 0.7);
+        LocalDate day = LocalDate.now().minusDays(days).plusDays((long) (position * days));
+        int hourWeight = random.nextInt(HOUR_WEIGHT_TOTAL);
+        int hour = 0;
+        while (hourWeight >= HOUR_WEIGHTS[hour]) {
+            hourWeight -= HOUR_WEIGHTS[hour];
+            hour++;
+        }
+        return day.atTime(hour, random.nextInt(60), random.nextInt(60));
+    }
+
+    /** 1 + a geometric count with the given mean above 1, at most {@code max}. */
+    private static int geometric(SplittableRandom random, double mean, int max) {
+        if (mean <= 1) {
+            return 1;
+        }
+        double p = 1 / mean;
+        int value = 1 + (int) (Math.log(1 - random.nextDouble()) / Math.log(1 - p));
+        return Math.min(max, value);
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        //Box-Muller
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    /** Who buys and what goes in a basket: ranks drawn from Zipf distributions, sell prices fixed per product. */
+    private static final class Basket {
+        private final int[] customerIds;
+        private final Product[] products;
+        private final long[] sellPrices;
+        private final double[] customerRanks;
+        private final double[] productRanks;
+        private final double linesPerOrder;
+
+        Basket(int[] customerIds, List<Product> catalog, double linesPerOrder, SplittableRandom random) {
+            this.customerIds = customerIds;
+            this.linesPerOrder = linesPerOrder;
+            //สินค้าขายดีกระจายไปทั่ว id ไม่ใช่แค่สินค้าแรก ๆ
+            products = catalog.toArray(new Product[0]);
+            for (int i = products.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                Product swap = products[i];
+                products[i] = products[j];
+                products[j] = swap;
+            }
+            //ราคาขายเป็นสตางค์ ปัดเป็น 25 สตางค์เหมือนป้ายราคาในร้าน
+            sellPrices = new long[products.length];
+            for (int i = 0; i < products.length; i++) {
+                long cost = products[i].price();
+                long markup = Math.round(cost * (0.08 + 0.5 * random.nextDouble()) / 25) * 25;
+                sellPrices[i] = cost + Math.max(25, markup);
+            }
+            customerRanks = zipf(customerIds.length, Double.parseDouble(System.getProperty("storemom.gen.customerSkew", "1.0")));
+            productRanks = zipf(products.length, Double.parseDouble(System.getProperty("storemom.gen.productSkew", "1.1")));
+        }
+
+        int customer(SplittableRandom random) {
+            return customerIds[rank(customerRanks, random)];
+        }
+
+        List<CartLine> lines(SplittableRandom random) {
+            int count = Math.min(products.length, geometric(random, linesPerOrder, 30));
+            List<CartLine> lines = new ArrayList<>(count);
+            Set<Integer> chosen = new HashSet<>();
+            //ตะกร้าเดียวกันไม่มีสินค้าซ้ำ ลองสุ่มใหม่ไม่กี่ครั้งแล้วยอมให้ตะกร้าเล็กลง
+            for (int attempt = 0; lines.size() < count && attempt < count * 4; attempt++) {
+                int index = rank(productRanks, random);
+                if (chosen.add(index)) {
+                    Product product = products[index];
+                    lines.add(new CartLine(product.productId(), product.productName(), geometric(random, 1.6, 50),
+                            sellPrices[index], product.price()));
+                }
+            }
+            return lines;
+        }
+
+        private static double[] zipf(int size, double exponent) {
+            double[] cumulative = new double[size];
+            double sum = 0;
+            for (int i = 0; i < size; i++) {
+                sum += 1 / Math.pow(i + 1, exponent);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < size; i++) {
+                cumulative[i] /= sum;
+            }
+            return cumulative;
+        }
+
+        private static int rank(double[] cumulative, SplittableRandom random) {
+            int found = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(cumulative.length - 1, found < 0 ? -found - 1 : found);
+        }
+    }
+
+    private static List<Product> products() throws SQLException {
+        List<Product> products = new ArrayList<>();
+        try (Connection connection = storeConnection.connect();
+             Statement statement = connection.createStatement();
+             ResultSet results = statement.executeQuery("SELECT productId, productName, price FROM product ORDER BY productId")) {
+            while (results.next()) {
+                products.add(new Product(results.getInt(1), results.getString(2), 0, Money.fromDecimal(results.getBigDecimal(3)), null, null));
+            }
+        }
+        return products;
+    }
+
+    private static int[] ids(String sql) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection connection = storeConnection.connect();
+             Statement statement = connection.createStatement();
+             ResultSet results = statement.executeQuery(sql)) {
+            while (results.next()) {
+                ids.add(results.getInt(1));
+            }
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    static int count(String table) throws SQLException {
+        return queryInt("SELECT COUNT(*) FROM " + table);
+    }
+
+    private static int queryInt(String sql) throws SQLException {
+        try (Connection connection = storeConnection.connect();
+             Statement statement = connection.createStatement();
+             ResultSet results = statement.executeQuery(sql)) {
+            results.next();
+            return results.getInt(1);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || System.getProperty("storemom.db.url") == null) {
+            System.err.println("usage: java -Dstoremom.db.url=jdbc:mysql://localhost:3306/<database>?rewriteBatchedStatements=true"
+                    + " StoreDataGenerator orders [customers products]");
+            System.exit(2);
+        }
+        Scale scale = Scale.ofOrders(Integer.parseInt(args[0]));
+        if (args.length > 2) {
+            scale = new Scale(Integer.parseInt(args[1]), Integer.parseInt(args[2]), scale.orders(), scale.linesPerOrder());
+        }
+        Report report = new StoreDataGenerator().fill(scale);
+        System.out.printf("%d customers, %d products, %d orders, %d lines in %d ms%n", report.customers(),
+                report.products(), report.orders(), report.lines(), report.elapsedMillis());
+        System.out.println("run SalesSummary backfill to rebuild the monthly sales rollups");
+        storeConnection.pool().close();
+    }
+}
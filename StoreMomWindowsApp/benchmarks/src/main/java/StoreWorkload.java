@@ -0,0 +1,203 @@
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * The operations measured by {@code storemom.bench.StoreBenchmark}, written against the app classes.
+ * Those live in the default package, which JMH benchmark classes cannot use, so the benchmark looks this class up by
+ * name and calls the operations through {@link Callable}.
+ * Connects to {@code storemom.db.url}: an in-memory H2 database in MySQL mode unless a local MariaDB/MySQL is given.
+ * The schema is created when missing and the tables are topped up to the configured scale by
+ * {@link StoreDataGenerator}; {@code ScaleTest} runs the same operations at several scales.
+ */
+public class StoreWorkload implements Function<String, Callable<Object>>, AutoCloseable {
+    static {
+        //ต้องตั้งก่อน storeConnection ถูกโหลด เพราะอ่าน URL ตอน class init
+        StoreDataGenerator.useEmbeddedByDefault();
+    }
+
+    private static final int CUSTOMERS = Integer.getInteger("storemom.bench.customers", 10_000);
+    private static final int PRODUCTS = Integer.getInteger("storemom.bench.products", 1_000);
+    private static final int ORDERS = Integer.getInteger("storemom.bench.orders", 20_000);
+    private static final double LINES_PER_ORDER = Double.parseDouble(System.getProperty("storemom.bench.linesPerOrder", "3"));
+    private static final int PAGE_SIZE = 200;
+    private static final int SEARCH_LIMIT = 500;
+    private static final int COMBO_LIMIT = 100;
+
+    private final CustomerRepository customerRepository = new CustomerRepository();
+    private final ProductRepository productRepository = new ProductRepository();
+    private final OrderRepository orderRepository = new OrderRepository();
+    private final LocalStoreService store = new LocalStoreService();
+    private final CustomerIndex customerIndex = new CustomerIndex();
+    private final ProductCatalog productCatalog = new ProductCatalog(store, Long.MAX_VALUE, 0);
+    private final FilteringComboBoxModel customerNames = new FilteringComboBoxModel(COMBO_LIMIT);
+    private final FilteringComboBoxModel productNames = new FilteringComboBoxModel(COMBO_LIMIT);
+    private final Map<String, Callable<Object>> operations = new LinkedHashMap<>();
+    private final String[] customerPrefixes;
+    private final String[] productTexts;
+    private final String[] productTypos;
+    private final int[] productIds;
+    private ColumnStore customerRows;
+    private int nextSearch;
+    private int nextSort;
+    private int nextProduct;
+
+    public StoreWorkload() throws SQLException {
+        this(new StoreDataGenerator.Scale(CUSTOMERS, PRODUCTS, ORDERS, LINES_PER_ORDER));
+    }
+
+    public StoreWorkload(StoreDataGenerator.Scale scale) throws SQLException {
+        //MariaDB/MySQL ใช้ schema จาก db/init, H2 ต้องสร้างเอง
+        if (StoreDataGenerator.isEmbedded()) {
+            StoreDataGenerator.createEmbeddedSchema();
+        }
+        new StoreDataGenerator().fill(scale);
+        customerIndex.build(customerRepository.findAll());
+        productCatalog.sync();
+        productIds = productCatalog.all().stream().mapToInt(Product::productId).toArray();
+        String[] firstNames = StoreDataGenerator.FIRST_NAMES;
+        customerPrefixes = new String[firstNames.length];
+        for (int i = 0; i < firstNames.length; i++) {
+            customerPrefixes[i] = firstNames[i].substring(0, 3);
+        }
+        String[] goods = StoreDataGenerator.GOODS;
+        productTexts = new String[goods.length];
+        for (int i = 0; i < goods.length; i++) {
+            productTexts[i] = goods[i].substring(0, 3).toLowerCase();
+        }
+        //ชื่อสินค้าที่สลับตัวอักษรคู่หนึ่ง เหมือนพิมพ์ผิด
+        productTypos = new String[goods.length];
+        for (int i = 0; i < goods.length; i++) {
+            char[] chars = goods[i].toLowerCase().toCharArray();
+            char swapped = chars[1];
+            chars[1] = chars[2];
+            chars[2] = swapped;
+            productTypos[i] = new String(chars);
+        }
+        //ค้นหาลูกค้า (LoadAllCustomersByName): หา id จาก index ใน memory แล้วโหลดหน้าแรกของตาราง
+        operations.put("customerSearch", () -> {
+            List<Integer> ids = new ArrayList<>();
+            for (Customer customer : customerIndex.search(nextCustomerPrefix(), SEARCH_LIMIT)) {
+                ids.add(customer.id());
+            }
+            return orderRepository.customerOrdersByIds(ids).fetch(null, PAGE_SIZE);
+        });
+        //ค้นหาสินค้า (LoadAllProductByName) จาก catalog ใน memory และแบบ query ตอน catalog ยังไม่โหลด
+        operations.put("productSearch", () -> new CatalogPageSource(productCatalog.findByName(nextProductText())).fetch(null, PAGE_SIZE));
+        operations.put("productSearchTypo", () -> productCatalog.search(productTypos[nextProduct++ % productTypos.length], PAGE_SIZE));
+        operations.put("productSearchSql", () -> {
+            PageSource source = productRepository.grid(nextProductText());
+            source.count();
+            return source.fetch(null, PAGE_SIZE);
+        });
+        //cNew / pNew: นับแถวแล้วโหลดหน้าแรกเหมือนที่ PagedTableModel ทำ
+        operations.put("customerGrid", () -> {
+            PageSource source = orderRepository.customerOrders(null);
+            source.count();
+            return source.fetch(null, PAGE_SIZE);
+        });
+        operations.put("productGrid", () -> {
+            PageSource source = productRepository.grid(null);
+            source.count();
+            return source.fetch(null, PAGE_SIZE);
+        });
+        //cNew ในโหมด stream: โหลดทุกแถวของตารางลูกค้าเข้า ColumnStore
+        operations.put("customerGridStream", StoreWorkload::loadCustomerRows);
+        //คลิกหัวตาราง / ค้นหาในแถวที่โหลดครบแล้ว สลับคอลัมน์ชื่อสินค้ากับยอดรวม
+        operations.put("gridSort", () -> customerRows().sort(nextSort % 2 == 0 ? 3 : 5, nextSort++ % 4 < 2));
+        operations.put("gridFilter", () -> {
+            String text = nextProductText();
+            return customerRows().filter(null, 3, name -> name != null && ((String) name).toLowerCase().contains(text));
+        });
+        //เติม combo box ตอนเปิดโปรแกรม
+        operations.put("customerCombo", () -> {
+            List<Customer> customers = customerRepository.findAll();
+            CustomerIndex index = new CustomerIndex();
+            index.build(customers);
+            List<String> names = new ArrayList<>(customers.size());
+            for (Customer customer : customers) {
+                names.add(customer.fullName());
+            }
+            customerNames.setItems(names);
+            return index;
+        });
+        operations.put("productCombo", () -> {
+            ProductCatalog catalog = new ProductCatalog(store, Long.MAX_VALUE, 0);
+            catalog.sync();
+            List<String> names = new ArrayList<>(catalog.size());
+            for (Product product : catalog.all()) {
+                names.add(product.productName());
+            }
+            productNames.setItems(names);
+            return catalog;
+        });
+        operations.put("comboFilter", () -> {
+            customerNames.setFilter(nextCustomerPrefix());
+            return customerNames.getSize();
+        });
+        //เพิ่ม แก้ไข ลบ ทีละแถว
+        operations.put("customerCrud", () -> {
+            Customer customer = customerRepository.insert("Bench", "Customer");
+            customerRepository.update(new Customer(customer.id(), "Bench", "Updated"));
+            return customerRepository.delete(customer.id());
+        });
+        operations.put("productCrud", () -> {
+            Product product = productRepository.insert(new Product(0, "Bench product", 10, Money.ofMajor(25), "1 pc", null));
+            productRepository.update(product, product.withQuantityInStock(9));
+            return productRepository.delete(product.productId());
+        });
+        operations.put("productFindById", () -> productRepository.findById(productIds[nextProduct++ % productIds.length]));
+    }
+
+    /** Operation names in a fixed order. */
+    public Set<String> operationNames() {
+        return operations.keySet();
+    }
+
+    @Override
+    public Callable<Object> apply(String name) {
+        Callable<Object> operation = operations.get(name);
+        if (operation == null) {
+            throw new IllegalArgumentException("Unknown operation " + name + ", expected one of " + operations.keySet());
+        }
+        return operation;
+    }
+
+    @Override
+    public void close() {
+        storeConnection.pool().close();
+    }
+
+    private String nextCustomerPrefix() {
+        return customerPrefixes[nextSearch++ % customerPrefixes.length];
+    }
+
+    private String nextProductText() {
+        return productTexts[nextProduct++ % productTexts.length];
+    }
+
+    //ตารางทั้งหมดใหญ่ตาม orderdetail จึงโหลดตอนใช้ครั้งแรก ไม่ใช่ตอนสร้าง workload
+    private ColumnStore customerRows() throws SQLException {
+        if (customerRows == null) {
+            customerRows = loadCustomerRows();
+        }
+        return customerRows;
+    }
+
+    private static ColumnStore loadCustomerRows() throws SQLException {
+        PageSource customerGrid = new OrderRepository().customerOrders(null);
+        ColumnStore rows = new ColumnStore(customerGrid.columnNames().length);
+        //อ่านแบบเดียวกับตารางโหมด stream ในโปรแกรม ใช้ค่า fetchSize/maxRows ชุดเดียวกัน
+        customerGrid.stream(Integer.getInteger("storemom.stream.fetchSize", 1000),
+                Integer.getInteger("storemom.stream.maxRows", 100_000), row -> {
+                    rows.add(row.values());
+                    return true;
+                });
+        return rows;
+    }
+}
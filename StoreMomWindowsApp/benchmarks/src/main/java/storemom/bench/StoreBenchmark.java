@@ -0,0 +1,59 @@
+package storemom.bench;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput and latency percentiles of the desktop app's data-access and table-population paths.
+ * Each benchmark runs one operation of {@code StoreWorkload}; the database and its scale come from the
+ * {@code storemom.db.*} and {@code storemom.bench.*} system properties, passed with {@code -jvmArgsAppend}.
+ * <pre>java -jar benchmarks/target/benchmarks.jar -rf json -rff jmh-result.json</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StoreBenchmark {
+    @Param({"customerSearch", "productSearch", "productSearchTypo", "productSearchSql", "customerGrid", "productGrid",
+            "customerGridStream", "customerCombo", "productCombo", "comboFilter", "gridSort", "gridFilter", "customerCrud",
+            "productCrud", "productFindById"})
+    public String operation;
+
+    private AutoCloseable workload;
+    private Callable<Object> call;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        //คลาสของแอปอยู่ใน default package ซึ่ง import จาก package อื่นไม่ได้
+        workload = (AutoCloseable) Class.forName("StoreWorkload").getConstructor().newInstance();
+        call = ((Function<String, Callable<Object>>) workload).apply(operation);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        workload.close();
+    }
+
+    @Benchmark
+    public Object run() throws Exception {
+        return call.call();
+    }
+}
@@ -0,0 +1,252 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CSV import and export for customer, product, orders and orderdetail.
+ * Import parses the file on a reader thread and hands chunks of {@code batchSize} rows through a bounded queue to
+ * the writer, which inserts each chunk as one JDBC batch in its own transaction (a multi-row INSERT with
+ * {@code rewriteBatchedStatements=true}). A failing chunk is rolled back and reported with its line range; the
+ * import carries on. A read error ends the import as a reported error; anything else the reader thread throws is
+ * rethrown by the import. Export streams the result set row by row into the file. Both keep memory constant.
+ * <pre>java -cp "out;lib/*" BulkTransfer import|export customer|product|orders|orderdetail file.csv [batchSize]</pre>
+ */
+public class BulkTransfer {
+    public enum Table {
+        CUSTOMER("customer", "id", "fname", "lname", "phone", "email", "address"),
+        PRODUCT("product", "productId", "productName", "quantityInStock", "price", "volume", "description"),
+        ORDERS("orders", "orderId", "totalAmount", "customer_id", "orderDate", "profit", "status"),
+        ORDERDETAIL("orderdetail", "orderDetailId", "quantityOrdered", "priceEach", "productId", "orderId",
+                "unitCost", "lineTotal", "lineProfit");
+
+        private final String tableName;
+        private final List<String> columns;
+
+        Table(String tableName, String... columns) {
+            this.tableName = tableName;
+            this.columns = List.of(columns);
+        }
+
+        public static Table of(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    public record BatchError(long firstLine, long lastLine, String message) {
+    }
+
+    public record ImportReport(Table table, long rowsRead, long rowsInserted, int batches, List<BatchError> errors,
+                               long elapsedMillis) {
+        public double rowsPerSecond() {
+            return elapsedMillis == 0 ? rowsInserted : rowsInserted * 1000.0 / elapsedMillis;
+        }
+    }
+
+    public record ExportReport(Table table, long rows, long elapsedMillis) {
+        public double rowsPerSecond() {
+            return elapsedMillis == 0 ? rows : rows * 1000.0 / elapsedMillis;
+        }
+    }
+
+    private static final int QUEUED_CHUNKS = Integer.getInteger("storemom.bulk.queuedChunks", 4);
+
+    private record Chunk(long firstLine, long lastLine, List<String[]> rows, Throwable failure) {
+        static final Chunk END = new Chunk(0, 0, List.of(), null);
+    }
+
+    /** Imports a CSV whose header names the columns to fill; omitted columns get their defaults. */
+    public ImportReport importCsv(Table table, Path file, int batchSize) throws IOException, SQLException {
+        long start = System.nanoTime();
+        BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        Csv.RecordReader records = new Csv.RecordReader(reader);
+        String[] header = records.next();
+        if (header == null) {
+            reader.close();
+            return new ImportReport(table, 0, 0, 0, List.of(), 0);
+        }
+        for (String column : header) {
+            if (!table.columns.contains(column)) {
+                reader.close();
+                throw new IOException("Unknown column " + column + " for " + table.tableName);
+            }
+        }
+        String sql = "INSERT INTO " + table.tableName + " (" + String.join(",", header) + ") VALUES("
+                + String.join(",", Collections.nCopies(header.length, "?")) + ")";
+
+        BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(Math.max(1, QUEUED_CHUNKS));
+        AtomicLong rowsRead = new AtomicLong();
+        Thread producer = new Thread(() -> {
+            try (reader) {
+                List<String[]> rows = new ArrayList<>(batchSize);
+                long firstLine = 0;
+                String[] record;
+                while ((record = records.next()) != null) {
+                    if (record.length == 1 && record[0] == null) {
+                        continue;
+                    }
+                    if (rows.isEmpty()) {
+                        firstLine = records.recordLine();
+                    }
+                    rows.add(record);
+                    rowsRead.incrementAndGet();
+                    if (rows.size() == batchSize) {
+                        queue.put(new Chunk(firstLine, records.recordLine(), rows, null));
+                        rows = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!rows.isEmpty()) {
+                    queue.put(new Chunk(firstLine, records.recordLine(), rows, null));
+                }
+                queue.put(Chunk.END);
+            } catch (IOException ex) {
+                putQuietly(queue, new Chunk(records.recordLine(), records.recordLine(), List.of(), ex));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable ex) {
+                //ต้องส่งต่อให้ writer เสมอ ไม่อย่างนั้น writer จะรอ queue.take() ไปตลอด
+                putQuietly(queue, new Chunk(records.recordLine(), records.recordLine(), List.of(), ex));
+            }
+        }, "storemom-bulk-reader");
+        producer.setDaemon(true);
+        producer.start();
+
+        long inserted = 0;
+        int batches = 0;
+        List<BatchError> errors = new ArrayList<>();
+        try {
+            while (true) {
+                Chunk chunk = queue.take();
+                if (chunk == Chunk.END) {
+                    break;
+                }
+                if (chunk.failure() instanceof RuntimeException) {
+                    throw (RuntimeException) chunk.failure();
+                }
+                if (chunk.failure() instanceof Error) {
+                    throw (Error) chunk.failure();
+                }
+                if (chunk.failure() != null) {
+                    errors.add(new BatchError(chunk.firstLine(), chunk.lastLine(), chunk.failure().getMessage()));
+                    break;
+                }
+                batches++;
+                try {
+                    inserted += insertChunk(sql, header.length, chunk);
+                } catch (SQLException ex) {
+                    if (OfflineJournal.isConnectionFailure(ex)) {
+                        throw ex;
+                    }
+                    errors.add(new BatchError(chunk.firstLine(), chunk.lastLine(), ex.getMessage()));
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Import interrupted", ex);
+        } finally {
+            producer.interrupt();
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new ImportReport(table, rowsRead.get(), inserted, batches, errors, elapsed);
+    }
+
+    /** Writes every row of {@code table} to {@code file}, header first, ordered by primary key. */
+    public ExportReport exportCsv(Table table, Path file) throws IOException, SQLException {
+        long start = System.nanoTime();
+        long rows = 0;
+        String sql = "SELECT " + String.join(",", table.columns) + " FROM " + table.tableName + " ORDER BY " + table.columns.get(0);
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+             Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            //Connector/J ส่งแถวมาทีละแถวแทนการโหลดทั้งตารางเข้าหน่วยความจำ
+            preparedStatement.setFetchSize(Integer.MIN_VALUE);
+            Csv.writeRecord(out, table.columns.toArray());
+            try (ResultSet results = preparedStatement.executeQuery()) {
+                Object[] values = new Object[table.columns.size()];
+                while (results.next()) {
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = results.getString(i + 1);
+                    }
+                    Csv.writeRecord(out, values);
+                    rows++;
+                }
+            }
+        }
+        return new ExportReport(table, rows, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static int insertChunk(String sql, int columns, Chunk chunk) throws SQLException {
+        return UnitOfWork.run(unitOfWork -> {
+            try (PreparedStatement preparedStatement = unitOfWork.connection().prepareStatement(sql)) {
+                long line = chunk.firstLine();
+                for (String[] row : chunk.rows()) {
+                    if (row.length != columns) {
+                        throw new SQLException("Line " + line + " has " + row.length + " fields, expected " + columns);
+                    }
+                    for (int i = 0; i < columns; i++) {
+                        if (row[i] == null) {
+                            preparedStatement.setNull(i + 1, Types.VARCHAR);
+                        } else {
+                            preparedStatement.setString(i + 1, row[i]);
+                        }
+                    }
+                    preparedStatement.addBatch();
+                    line++;
+                }
+                preparedStatement.executeBatch();
+            }
+            return chunk.rows().size();
+        });
+    }
+
+    private static void putQuietly(BlockingQueue<Chunk> queue, Chunk chunk) {
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("usage: BulkTransfer import|export <" + Arrays.toString(Table.values()).toLowerCase(Locale.ROOT)
+                    + "> <file.csv> [batchSize]");
+            System.exit(2);
+        }
+        Table table = Table.of(args[1]);
+        Path file = Paths.get(args[2]);
+        BulkTransfer transfer = new BulkTransfer();
+        if (args[0].equals("export")) {
+            ExportReport report = transfer.exportCsv(table, file);
+            System.out.printf("exported %d rows from %s in %d ms (%.0f rows/s)%n",
+                    report.rows(), table.tableName, report.elapsedMillis(), report.rowsPerSecond());
+            return;
+        }
+        int batchSize = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        ImportReport report = transfer.importCsv(table, file, batchSize);
+        System.out.printf("imported %d of %d rows into %s in %d batches, %d ms (%.0f rows/s)%n",
+                report.rowsInserted(), report.rowsRead(), table.tableName, report.batches(),
+                report.elapsedMillis(), report.rowsPerSecond());
+        for (BatchError error : report.errors()) {
+            System.out.printf("  lines %d-%d failed: %s%n", error.firstLine(), error.lastLine(), error.message());
+        }
+        System.exit(report.errors().isEmpty() ? 0 : 1);
+    }
+}
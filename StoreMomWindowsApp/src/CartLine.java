@@ -0,0 +1,14 @@
+/** A line of an order being sold; prices and amounts in satang ({@link Money}). */
+public record CartLine(int productId, String productName, int quantity, long priceEach, long unitCost) {
+    public long lineTotal() {
+        return Math.multiplyExact(priceEach, quantity);
+    }
+
+    public long lineCost() {
+        return Math.multiplyExact(unitCost, quantity);
+    }
+
+    public long lineProfit() {
+        return Math.subtractExact(lineTotal(), lineCost());
+    }
+}
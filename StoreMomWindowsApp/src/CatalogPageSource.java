@@ -0,0 +1,85 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link PageSource} over an in-memory list of products ordered by productId, e.g. from {@link ProductCatalog}.
+ * The list can be changed with {@link #put}/{@link #remove} while a grid reads it, so pages read later see the change.
+ */
+public class CatalogPageSource implements PageSource {
+    private static final String[] COLUMNS = {"productId", "productName", "quantityInStock", "price", "volume"};
+
+    private final List<Product> products;
+
+    public CatalogPageSource(List<Product> products) {
+        this.products = new ArrayList<>(products);
+    }
+
+    /** The grid row of a product, keyed by productId. */
+    public static Row row(Product product) {
+        return new Row(new Object[]{product.productId()}, new Object[]{product.productId(), product.productName(),
+                product.quantityInStock(), Money.toDecimal(product.price()), product.volume()});
+    }
+
+    @Override
+    public String[] columnNames() {
+        return COLUMNS.clone();
+    }
+
+    @Override
+    public synchronized int count() {
+        return products.size();
+    }
+
+    @Override
+    public synchronized List<Row> fetch(Object[] afterKey, int limit) {
+        int from = afterKey == null ? 0 : indexAfter((Integer) afterKey[0]);
+        int to = Math.min(products.size(), from + limit);
+        List<Row> rows = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            rows.add(row(products.get(i)));
+        }
+        return rows;
+    }
+
+    @Override
+    public synchronized Object[] skip(Object[] afterKey, int count) {
+        int index = (afterKey == null ? 0 : indexAfter((Integer) afterKey[0])) + count - 1;
+        return index < products.size() ? new Object[]{products.get(index).productId()} : null;
+    }
+
+    public synchronized boolean contains(int productId) {
+        int index = indexAfter(productId) - 1;
+        return index >= 0 && products.get(index).productId() == productId;
+    }
+
+    /** Adds the product, or replaces the one with the same productId. */
+    public synchronized void put(Product product) {
+        int index = indexAfter(product.productId());
+        if (index > 0 && products.get(index - 1).productId() == product.productId()) {
+            products.set(index - 1, product);
+        } else {
+            products.add(index, product);
+        }
+    }
+
+    public synchronized void remove(int productId) {
+        int index = indexAfter(productId) - 1;
+        if (index >= 0 && products.get(index).productId() == productId) {
+            products.remove(index);
+        }
+    }
+
+    private int indexAfter(int productId) {
+        int low = 0;
+        int high = products.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (products.get(mid).productId() <= productId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,434 @@
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pushes {@link ChangeEvent}s between terminals over TCP. One process hosts a small hub, a single NIO selector
+ * thread that forwards every frame it reads to all other connections; every terminal keeps one connection to it.
+ * The first terminal that finds no hub on {@code storemom.bus.host:port} hosts it itself (a {@link StoreServer} does
+ * so on start), and when the hub goes away the others reconnect, one of them taking over. Events published while
+ * disconnected are dropped, so on reconnect {@link Listener#reconnected()} tells listeners to reload. A frame is a
+ * 4-byte length and {@code {"origin":..., "events":[...]}} as UTF-8 JSON; frames from this process's own origin are
+ * ignored, since the writer has already applied them. {@code storemom.bus.port=0} turns the bus off.
+ */
+public class ChangeBus {
+    private static final Logger LOGGER = Logger.getLogger(ChangeBus.class.getName());
+    private static final int MAX_FRAME = 16 * 1024 * 1024;
+    private static final long RETRY_MS = Long.getLong("storemom.bus.retryMs", 2_000L);
+    private static ChangeBus instance;
+
+    public interface Listener {
+        /** Called on the bus thread with the events of one commit on another terminal. */
+        void changed(List<ChangeEvent> events);
+
+        /** Called on the bus thread after a lost connection came back; events may have been missed meanwhile. */
+        default void reconnected() {
+        }
+    }
+
+    private final InetSocketAddress address;
+    private final long origin = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Object writeLock = new Object();
+    private volatile SocketChannel channel;
+    private volatile boolean stopped;
+    private Hub hub;
+    private Thread reader;
+
+    public ChangeBus(InetSocketAddress address) {
+        this.address = address;
+    }
+
+    /** The bus of this process on {@code storemom.bus.host}/{@code storemom.bus.port}, connecting on first use. */
+    public static synchronized ChangeBus get() {
+        if (instance == null) {
+            instance = new ChangeBus(defaultAddress());
+            instance.start();
+        }
+        return instance;
+    }
+
+    /** Runs a hub on its own: {@code java ChangeBus} with {@code -Dstoremom.bus.host=0.0.0.0} for a shop network. */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Hub hub = Hub.open(defaultAddress());
+        LOGGER.info("Change bus hub listening on " + defaultAddress());
+        hub.thread.join();
+    }
+
+    /** Identifies this process in the events it publishes. */
+    public long origin() {
+        return origin;
+    }
+
+    public boolean isConnected() {
+        return channel != null;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized void start() {
+        if (reader != null || address.getPort() <= 0) {
+            return;
+        }
+        reader = new Thread(this::run, "storemom-change-bus");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    public synchronized void stop() {
+        stopped = true;
+        close(channel);
+        if (reader != null) {
+            reader.interrupt();
+        }
+        if (hub != null) {
+            hub.close();
+        }
+    }
+
+    /** Sends events committed by {@code origin} to every other terminal; dropped if the bus is not connected. */
+    public void publish(long origin, List<ChangeEvent> events) {
+        SocketChannel current = channel;
+        if (events.isEmpty() || current == null) {
+            return;
+        }
+        List<Object> encoded = new ArrayList<>(events.size());
+        for (ChangeEvent event : events) {
+            encoded.add(event.toJson());
+        }
+        Map<String, Object> frame = new LinkedHashMap<>();
+        frame.put("origin", origin);
+        frame.put("events", encoded);
+        byte[] body = Json.write(frame).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + body.length).putInt(body.length).put(body).flip();
+        synchronized (writeLock) {
+            try {
+                while (buffer.hasRemaining()) {
+                    current.write(buffer);
+                }
+            } catch (IOException ex) {
+                //อ่านไม่ได้แล้วเหมือนกัน thread อ่านจะต่อใหม่เอง
+                LOGGER.log(Level.FINE, "Change bus publish failed", ex);
+                close(current);
+            }
+        }
+    }
+
+    private void run() {
+        boolean connectedBefore = false;
+        while (!stopped) {
+            try (SocketChannel connected = connect()) {
+                channel = connected;
+                if (connectedBefore) {
+                    for (Listener listener : listeners) {
+                        listener.reconnected();
+                    }
+                }
+                connectedBefore = true;
+                read(connected);
+            } catch (ConnectException ex) {
+                if (host()) {
+                    continue;
+                }
+            } catch (IOException | RuntimeException ex) {
+                if (!stopped) {
+                    LOGGER.log(Level.FINE, "Change bus connection lost", ex);
+                }
+            } finally {
+                channel = null;
+            }
+            try {
+                Thread.sleep(RETRY_MS);
+            } catch (InterruptedException ex) {
+                return;
+            }
+        }
+    }
+
+    private SocketChannel connect() throws IOException {
+        InetSocketAddress target = address.getAddress() != null && address.getAddress().isAnyLocalAddress()
+                ? new InetSocketAddress(InetAddress.getLoopbackAddress(), address.getPort())
+                : address;
+        SocketChannel connected = SocketChannel.open();
+        try {
+            connected.socket().setTcpNoDelay(true);
+            connected.socket().connect(target, (int) Math.max(1_000, RETRY_MS));
+            return connected;
+        } catch (IOException ex) {
+            connected.close();
+            throw ex;
+        }
+    }
+
+    //ไม่มีใครเปิด hub ไว้ เปิดเองในเครื่องนี้ (ถ้า address ไม่ใช่ของเครื่องนี้จะ bind ไม่ได้ ก็รอต่อใหม่)
+    private synchronized boolean host() {
+        if (stopped || (hub != null && hub.isOpen())) {
+            return false;
+        }
+        try {
+            hub = Hub.open(address);
+            LOGGER.info("Hosting change bus hub on " + address);
+            return true;
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, "Cannot host change bus hub on " + address, ex);
+            return false;
+        }
+    }
+
+    private void read(SocketChannel connected) throws IOException {
+        DataInputStream in = new DataInputStream(Channels.newInputStream(connected));
+        while (!stopped) {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException ex) {
+                return;
+            }
+            if (length < 0 || length > MAX_FRAME) {
+                throw new IOException("Bad change bus frame length " + length);
+            }
+            byte[] body = new byte[length];
+            in.readFully(body);
+            Map<?, ?> frame = (Map<?, ?>) Json.parse(new String(body, StandardCharsets.UTF_8));
+            if (StoreCodec.longValue(frame.get("origin")) == origin) {
+                continue;
+            }
+            List<ChangeEvent> events = new ArrayList<>();
+            for (Object event : (List<?>) frame.get("events")) {
+                events.add(ChangeEvent.fromJson(event));
+            }
+            for (Listener listener : listeners) {
+                try {
+                    listener.changed(events);
+                } catch (RuntimeException ex) {
+                    LOGGER.log(Level.WARNING, "Change bus listener failed", ex);
+                }
+            }
+        }
+    }
+
+    private static void close(SocketChannel current) {
+        if (current == null) {
+            return;
+        }
+        try {
+            current.close();
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, null, ex);
+        }
+    }
+
+    /** {@code storemom.bus.host}, else the host of {@code storemom.server.url} or {@code storemom.server.host}. */
+    static InetSocketAddress defaultAddress() {
+        String host = System.getProperty("storemom.bus.host");
+        if (host == null) {
+            String url = System.getProperty("storemom.server.url");
+            host = url == null || url.isBlank() ? System.getProperty("storemom.server.host", "127.0.0.1") : URI.create(url).getHost();
+        }
+        return new InetSocketAddress(host, Integer.getInteger("storemom.bus.port", 8471));
+    }
+
+    /**
+     * The forwarding side: frames are copied to the other connections without being parsed. A connection that falls
+     * more than {@code storemom.bus.maxQueuedKb} behind is dropped; its terminal reconnects and reloads.
+     */
+    private static final class Hub implements Runnable {
+        private static final long MAX_QUEUED = Long.getLong("storemom.bus.maxQueuedKb", 4_096L) * 1024;
+
+        private final Selector selector;
+        private final ServerSocketChannel server;
+        private final Thread thread;
+
+        private Hub(Selector selector, ServerSocketChannel server) {
+            this.selector = selector;
+            this.server = server;
+            this.thread = new Thread(this, "storemom-change-hub");
+            thread.setDaemon(true);
+        }
+
+        static Hub open(InetSocketAddress address) throws IOException {
+            ServerSocketChannel server = ServerSocketChannel.open();
+            Selector selector = null;
+            try {
+                server.bind(address);
+                server.configureBlocking(false);
+                selector = Selector.open();
+                server.register(selector, SelectionKey.OP_ACCEPT);
+            } catch (IOException ex) {
+                server.close();
+                if (selector != null) {
+                    selector.close();
+                }
+                throw ex;
+            }
+            Hub hub = new Hub(selector, server);
+            hub.thread.start();
+            return hub;
+        }
+
+        boolean isOpen() {
+            return server.isOpen();
+        }
+
+        //ปิดจาก thread ไหนก็ได้ thread ของ hub จะปิดทุก connection เอง ให้เครื่องอื่นรู้ตัวแล้วต่อใหม่
+        void close() {
+            try {
+                server.close();
+            } catch (IOException ex) {
+                LOGGER.log(Level.FINE, null, ex);
+            }
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (server.isOpen()) {
+                    selector.select();
+                    Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                    while (selected.hasNext()) {
+                        SelectionKey key = selected.next();
+                        selected.remove();
+                        try {
+                            if (!key.isValid()) {
+                                continue;
+                            }
+                            if (key.isAcceptable()) {
+                                accept();
+                            }
+                            if (key.isValid() && key.isReadable()) {
+                                ((Peer) key.attachment()).read(key);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                ((Peer) key.attachment()).flush(key);
+                            }
+                        } catch (IOException ex) {
+                            drop(key);
+                        }
+                    }
+                }
+            } catch (IOException | RuntimeException ex) {
+                if (server.isOpen()) {
+                    LOGGER.log(Level.SEVERE, "Change bus hub stopped", ex);
+                }
+            } finally {
+                close();
+                for (SelectionKey key : selector.keys()) {
+                    drop(key);
+                }
+                try {
+                    selector.close();
+                } catch (IOException ex) {
+                    LOGGER.log(Level.FINE, null, ex);
+                }
+            }
+        }
+
+        private void accept() throws IOException {
+            SocketChannel client = server.accept();
+            if (client == null) {
+                return;
+            }
+            client.configureBlocking(false);
+            client.socket().setTcpNoDelay(true);
+            client.register(selector, SelectionKey.OP_READ, new Peer());
+        }
+
+        private void broadcast(SelectionKey from, ByteBuffer frame) {
+            for (SelectionKey key : selector.keys()) {
+                if (key == from || !key.isValid() || !(key.attachment() instanceof Peer)) {
+                    continue;
+                }
+                Peer peer = (Peer) key.attachment();
+                if (peer.queued + frame.remaining() > MAX_QUEUED) {
+                    LOGGER.warning("Dropping slow change bus client " + key.channel());
+                    drop(key);
+                    continue;
+                }
+                peer.out.add(frame.duplicate());
+                peer.queued += frame.remaining();
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            }
+        }
+
+        private static void drop(SelectionKey key) {
+            key.cancel();
+            try {
+                key.channel().close();
+            } catch (IOException ex) {
+                LOGGER.log(Level.FINE, null, ex);
+            }
+        }
+
+        private final class Peer {
+            private ByteBuffer in = ByteBuffer.allocate(8 * 1024);
+            private final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+            private long queued;
+
+            void read(SelectionKey key) throws IOException {
+                if (((SocketChannel) key.channel()).read(in) < 0) {
+                    drop(key);
+                    return;
+                }
+                in.flip();
+                while (in.remaining() >= 4) {
+                    int length = in.getInt(in.position());
+                    if (length < 0 || length > MAX_FRAME) {
+                        throw new IOException("Bad change bus frame length " + length);
+                    }
+                    if (in.remaining() < 4 + length) {
+                        break;
+                    }
+                    ByteBuffer frame = ByteBuffer.allocate(4 + length);
+                    int limit = in.limit();
+                    in.limit(in.position() + 4 + length);
+                    frame.put(in).flip();
+                    in.limit(limit);
+                    broadcast(key, frame.asReadOnlyBuffer());
+                }
+                in.compact();
+                //frame ใหญ่กว่า buffer ขยาย buffer ให้พอ
+                if (!in.hasRemaining()) {
+                    in = ByteBuffer.allocate(in.capacity() * 2).put(in.flip());
+                }
+            }
+
+            void flush(SelectionKey key) throws IOException {
+                SocketChannel client = (SocketChannel) key.channel();
+                while (!out.isEmpty()) {
+                    ByteBuffer next = out.peek();
+                    int written = client.write(next);
+                    queued -= written;
+                    if (next.hasRemaining()) {
+                        return;
+                    }
+                    out.poll();
+                }
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+    }
+}
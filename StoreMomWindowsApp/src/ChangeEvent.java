@@ -0,0 +1,132 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A customer or product row, or a sale, as it was committed; what {@link ChangeBus} sends to the other terminals so
+ * they can update single rows instead of reloading whole tables.
+ */
+public interface ChangeEvent {
+    Map<String, Object> toJson();
+
+    record CustomerSaved(Customer customer) implements ChangeEvent {
+        public Map<String, Object> toJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("event", "customerSaved");
+            json.put("customer", StoreCodec.customer(customer));
+            return json;
+        }
+    }
+
+    record CustomerDeleted(int id) implements ChangeEvent {
+        public Map<String, Object> toJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("event", "customerDeleted");
+            json.put("id", id);
+            return json;
+        }
+    }
+
+    record ProductSaved(Product product) implements ChangeEvent {
+        public Map<String, Object> toJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("event", "productSaved");
+            json.put("product", StoreCodec.product(product));
+            return json;
+        }
+    }
+
+    record ProductDeleted(int productId) implements ChangeEvent {
+        public Map<String, Object> toJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("event", "productDeleted");
+            json.put("productId", productId);
+            return json;
+        }
+    }
+
+    /**
+     * A sale; stock of each line went down by its quantity, leaving the committed {@code stockAfter}
+     * ({@link Order#stockAfter()}, empty for a sale still waiting in the offline journal). {@code orderId} is 0 for
+     * such a sale. Prices travel in satang.
+     */
+    record OrderPlaced(int orderId, int customerId, LocalDateTime orderDate, List<CartLine> lines,
+                       Map<Integer, Integer> stockAfter) implements ChangeEvent {
+        public Map<String, Object> toJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("event", "orderPlaced");
+            json.put("orderId", orderId);
+            json.put("customerId", customerId);
+            json.put("orderDate", orderDate.toString());
+            List<Object> encoded = new ArrayList<>(lines.size());
+            for (CartLine line : lines) {
+                encoded.add(List.of(line.productId(), line.productName(), line.quantity(), line.priceEach(), line.unitCost()));
+            }
+            json.put("lines", encoded);
+            json.put("stockAfter", StoreCodec.stock(stockAfter));
+            return json;
+        }
+    }
+
+    /** What a committed write changed, given what it returned; null when it changed nothing (it returned false). */
+    static ChangeEvent of(Mutation<?> mutation, Object result) {
+        if (Boolean.FALSE.equals(result)) {
+            return null;
+        }
+        if (mutation instanceof Mutation.CustomerInsert) {
+            return new CustomerSaved((Customer) result);
+        }
+        if (mutation instanceof Mutation.CustomerUpdate) {
+            return new CustomerSaved(((Mutation.CustomerUpdate) mutation).customer());
+        }
+        if (mutation instanceof Mutation.CustomerDelete) {
+            return new CustomerDeleted(((Mutation.CustomerDelete) mutation).id());
+        }
+        if (mutation instanceof Mutation.ProductInsert) {
+            return new ProductSaved((Product) result);
+        }
+        if (mutation instanceof Mutation.ProductUpdate) {
+            return new ProductSaved(((Mutation.ProductUpdate) mutation).product());
+        }
+        if (mutation instanceof Mutation.ProductDelete) {
+            return new ProductDeleted(((Mutation.ProductDelete) mutation).productId());
+        }
+        if (mutation instanceof Mutation.PlaceOrder) {
+            Mutation.PlaceOrder order = (Mutation.PlaceOrder) mutation;
+            Order placed = (Order) result;
+            return new OrderPlaced(placed.orderId(), order.customerId(), order.orderDate(), order.lines(), placed.stockAfter());
+        }
+        throw new IllegalArgumentException("Unsupported mutation " + mutation);
+    }
+
+    static ChangeEvent fromJson(Object json) {
+        Map<?, ?> map = (Map<?, ?>) json;
+        String event = (String) map.get("event");
+        switch (event) {
+            case "customerSaved":
+                return new CustomerSaved(StoreCodec.customer(map.get("customer")));
+            case "customerDeleted":
+                return new CustomerDeleted(StoreCodec.integer(map.get("id")));
+            case "productSaved":
+                return new ProductSaved(StoreCodec.product(map.get("product")));
+            case "productDeleted":
+                return new ProductDeleted(StoreCodec.integer(map.get("productId")));
+            case "orderPlaced":
+                List<CartLine> lines = new ArrayList<>();
+                for (Object line : (List<?>) map.get("lines")) {
+                    List<?> fields = (List<?>) line;
+                    lines.add(new CartLine(StoreCodec.integer(fields.get(0)), (String) fields.get(1),
+                            StoreCodec.integer(fields.get(2)), StoreCodec.longValue(fields.get(3)),
+                            StoreCodec.longValue(fields.get(4))));
+                }
+                Object orderId = map.get("orderId");
+                return new OrderPlaced(orderId == null ? 0 : StoreCodec.integer(orderId),
+                        StoreCodec.integer(map.get("customerId")), LocalDateTime.parse((String) map.get("orderDate")),
+                        lines, StoreCodec.stock(map.get("stockAfter")));
+            default:
+                throw new IllegalArgumentException("Unknown change event " + event);
+        }
+    }
+}
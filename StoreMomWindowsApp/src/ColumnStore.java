@@ -0,0 +1,422 @@
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Grid rows stored column by column: whole numbers in {@code int[]}/{@code long[]}, text dictionary-encoded (an
+ * {@code int} code per row, each distinct string kept once), money as satang in {@code long[]} (see {@link Money}) and
+ * anything else as plain objects. A column takes the
+ * type of its first non-null value; ints widen to longs and a value that fits neither turns the column into an object
+ * column. Sorting packs a per-row rank and the row number into one {@code long} and sorts those with
+ * {@link Arrays#parallelSort(long[])}; filters test each distinct string once and run over the rows as a parallel stream.
+ * Rows are appended or overwritten by one thread at a time; sorting and filtering must not overlap with writes.
+ */
+public class ColumnStore {
+    private final Column[] columns;
+    private int size;
+
+    public ColumnStore(int columnCount) {
+        this.columns = new Column[columnCount];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int columnCount() {
+        return columns.length;
+    }
+
+    public void add(Object[] values) {
+        put(size, values);
+        size++;
+    }
+
+    /** Overwrites the values of an existing row. */
+    public void set(int row, Object[] values) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException(row);
+        }
+        put(row, values);
+    }
+
+    private void put(int row, Object[] values) {
+        for (int c = 0; c < columns.length; c++) {
+            Object value = values[c];
+            Column column = columns[c];
+            if (value == null) {
+                if (column != null) {
+                    column.setNull(row);
+                }
+                continue;
+            }
+            if (column == null) {
+                column = Column.of(value);
+                column.nulls.set(0, size);
+            } else if (!column.accepts(value)) {
+                column = column.widen(value, size);
+            }
+            column.nulls.clear(row);
+            column.set(row, value);
+            columns[c] = column;
+        }
+    }
+
+    public Object get(int row, int column) {
+        Column values = columns[column];
+        return values == null || values.nulls.get(row) ? null : values.get(row);
+    }
+
+    public Object[] row(int row) {
+        Object[] values = new Object[columns.length];
+        for (int c = 0; c < values.length; c++) {
+            values[c] = get(row, c);
+        }
+        return values;
+    }
+
+    /** Integer, Long, BigDecimal or String for typed columns, Object until a column has a value. */
+    public Class<?> columnClass(int column) {
+        return columns[column] == null ? Object.class : columns[column].type();
+    }
+
+    public void clear() {
+        Arrays.fill(columns, null);
+        size = 0;
+    }
+
+    /** All row numbers ordered by {@code column}, nulls first when ascending; equal values keep their row order. */
+    public int[] sort(int column, boolean ascending) {
+        int[] ranks = columns[column] == null ? new int[size] : columns[column].ranks(size);
+        long[] keys = new long[size];
+        Arrays.parallelSetAll(keys, row -> ((long) (ascending ? ranks[row] : ~ranks[row]) << 32) | row);
+        Arrays.parallelSort(keys);
+        int[] order = new int[size];
+        Arrays.parallelSetAll(order, i -> (int) keys[i]);
+        return order;
+    }
+
+    /** The rows of {@code view} (all rows in order when null) whose {@code column} value passes {@code test}. */
+    public int[] filter(int[] view, int column, Predicate<Object> test) {
+        IntPredicate matches = matcher(column, test);
+        IntStream rows = view == null ? IntStream.range(0, size) : IntStream.of(view);
+        return rows.parallel().filter(matches).toArray();
+    }
+
+    //ข้อความทดสอบครั้งเดียวต่อคำใน dictionary ไม่ใช่ทุกแถว
+    private IntPredicate matcher(int column, Predicate<Object> test) {
+        Column values = columns[column];
+        boolean matchesNull = test.test(null);
+        if (values == null) {
+            return row -> matchesNull;
+        }
+        if (values instanceof TextColumn) {
+            TextColumn text = (TextColumn) values;
+            boolean[] matches = new boolean[text.dictionary.size()];
+            for (int code = 0; code < matches.length; code++) {
+                matches[code] = test.test(text.dictionary.get(code));
+            }
+            return row -> text.nulls.get(row) ? matchesNull : matches[text.codes[row]];
+        }
+        return row -> values.nulls.get(row) ? matchesNull : test.test(values.get(row));
+    }
+
+    private abstract static class Column {
+        final BitSet nulls = new BitSet();
+
+        static Column of(Object value) {
+            if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                return new IntColumn();
+            }
+            if (value instanceof Long) {
+                return new LongColumn();
+            }
+            if (value instanceof String) {
+                return new TextColumn();
+            }
+            if (MoneyColumn.fits(value)) {
+                return new MoneyColumn();
+            }
+            return new ObjectColumn();
+        }
+
+        abstract Class<?> type();
+
+        abstract boolean accepts(Object value);
+
+        abstract void set(int row, Object value);
+
+        abstract Object get(int row);
+
+        void setNull(int row) {
+            nulls.set(row);
+        }
+
+        /** Per-row rank: a smaller rank sorts first, nulls get {@link Integer#MIN_VALUE}. */
+        abstract int[] ranks(int size);
+
+        /** A column holding the first {@code size} rows of this one that also accepts {@code value}. */
+        Column widen(Object value, int size) {
+            Column wider = this instanceof IntColumn && value instanceof Long ? new LongColumn() : new ObjectColumn();
+            for (int row = 0; row < size; row++) {
+                if (nulls.get(row)) {
+                    wider.setNull(row);
+                } else {
+                    wider.set(row, get(row));
+                }
+            }
+            return wider;
+        }
+
+        static int grown(int length, int row) {
+            return Math.max(16, Math.max(row + 1, length + (length >> 1)));
+        }
+    }
+
+    private static final class IntColumn extends Column {
+        private int[] values = new int[0];
+
+        @Override
+        Class<?> type() {
+            return Integer.class;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Integer || value instanceof Short || value instanceof Byte;
+        }
+
+        @Override
+        void set(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grown(values.length, row));
+            }
+            values[row] = ((Number) value).intValue();
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void setNull(int row) {
+            super.setNull(row);
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grown(values.length, row));
+            }
+        }
+
+        @Override
+        int[] ranks(int size) {
+            int[] ranks = new int[size];
+            Arrays.parallelSetAll(ranks, row -> nulls.get(row) ? Integer.MIN_VALUE : values[row]);
+            return ranks;
+        }
+    }
+
+    private static class LongColumn extends Column {
+        private long[] values = new long[0];
+
+        @Override
+        Class<?> type() {
+            return Long.class;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+        }
+
+        @Override
+        void set(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grown(values.length, row));
+            }
+            values[row] = ((Number) value).longValue();
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void setNull(int row) {
+            super.setNull(row);
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grown(values.length, row));
+            }
+        }
+
+        //อันดับของค่าในรายการค่าที่ไม่ซ้ำ เพื่อให้ใส่ลงใน 32 bit ได้
+        @Override
+        int[] ranks(int size) {
+            long[] distinct = Arrays.copyOf(values, size);
+            Arrays.parallelSort(distinct);
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if (count == 0 || distinct[i] != distinct[count - 1]) {
+                    distinct[count++] = distinct[i];
+                }
+            }
+            long[] sorted = Arrays.copyOf(distinct, count);
+            int[] ranks = new int[size];
+            Arrays.parallelSetAll(ranks, row -> nulls.get(row) ? Integer.MIN_VALUE : Arrays.binarySearch(sorted, values[row]));
+            return ranks;
+        }
+    }
+
+    //ราคาและยอดเงินจาก DECIMAL(..,2) เก็บเป็นสตางค์ แปลงกลับเป็น BigDecimal เฉพาะตอนอ่าน
+    private static final class MoneyColumn extends LongColumn {
+        static boolean fits(Object value) {
+            if (!(value instanceof BigDecimal)) {
+                return false;
+            }
+            BigDecimal amount = (BigDecimal) value;
+            return (amount.scale() <= 2 || amount.stripTrailingZeros().scale() <= 2)
+                    && amount.precision() - amount.scale() <= 16;
+        }
+
+        @Override
+        Class<?> type() {
+            return BigDecimal.class;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return fits(value);
+        }
+
+        @Override
+        void set(int row, Object value) {
+            super.set(row, Money.fromDecimal((BigDecimal) value));
+        }
+
+        @Override
+        Object get(int row) {
+            return Money.toDecimal((Long) super.get(row));
+        }
+    }
+
+    private static final class TextColumn extends Column {
+        private int[] codes = new int[0];
+        private final List<String> dictionary = new ArrayList<>();
+        private final Map<String, Integer> index = new HashMap<>();
+
+        @Override
+        Class<?> type() {
+            return String.class;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return value instanceof String;
+        }
+
+        @Override
+        void set(int row, Object value) {
+            if (row >= codes.length) {
+                codes = Arrays.copyOf(codes, grown(codes.length, row));
+            }
+            codes[row] = index.computeIfAbsent((String) value, text -> {
+                dictionary.add(text);
+                return dictionary.size() - 1;
+            });
+        }
+
+        @Override
+        Object get(int row) {
+            return dictionary.get(codes[row]);
+        }
+
+        @Override
+        void setNull(int row) {
+            super.setNull(row);
+            if (row >= codes.length) {
+                codes = Arrays.copyOf(codes, grown(codes.length, row));
+            }
+        }
+
+        //เรียงเฉพาะคำใน dictionary แล้วใช้อันดับของคำเป็นอันดับของแถว
+        @Override
+        int[] ranks(int size) {
+            Integer[] byText = new Integer[dictionary.size()];
+            for (int code = 0; code < byText.length; code++) {
+                byText[code] = code;
+            }
+            Comparator<String> byCase = String.CASE_INSENSITIVE_ORDER;
+            Arrays.sort(byText, Comparator.comparing(dictionary::get, byCase.thenComparing(Comparator.naturalOrder())));
+            int[] rankOfCode = new int[byText.length];
+            for (int rank = 0; rank < byText.length; rank++) {
+                rankOfCode[byText[rank]] = rank;
+            }
+            int[] ranks = new int[size];
+            Arrays.parallelSetAll(ranks, row -> nulls.get(row) ? Integer.MIN_VALUE : rankOfCode[codes[row]]);
+            return ranks;
+        }
+    }
+
+    private static final class ObjectColumn extends Column {
+        private Object[] values = new Object[0];
+
+        @Override
+        Class<?> type() {
+            return Object.class;
+        }
+
+        @Override
+        boolean accepts(Object value) {
+            return true;
+        }
+
+        @Override
+        void set(int row, Object value) {
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grown(values.length, row));
+            }
+            values[row] = value;
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void setNull(int row) {
+            super.setNull(row);
+            if (row >= values.length) {
+                values = Arrays.copyOf(values, grown(values.length, row));
+            }
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        int[] ranks(int size) {
+            Comparator<Object> byValue = (a, b) -> a instanceof Comparable && a.getClass() == b.getClass()
+                    ? ((Comparable) a).compareTo(b)
+                    : String.valueOf(a).compareTo(String.valueOf(b));
+            Integer[] order = IntStream.range(0, size).filter(row -> !nulls.get(row)).boxed().toArray(Integer[]::new);
+            Arrays.sort(order, (a, b) -> byValue.compare(values[a], values[b]));
+            int[] ranks = new int[size];
+            Arrays.fill(ranks, Integer.MIN_VALUE);
+            int rank = Integer.MIN_VALUE;
+            for (int i = 0; i < order.length; i++) {
+                if (i == 0 || byValue.compare(values[order[i - 1]], values[order[i]]) != 0) {
+                    rank++;
+                }
+                ranks[order[i]] = rank;
+            }
+            return ranks;
+        }
+    }
+}
@@ -0,0 +1,372 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bounded JDBC connection pool.
+ * Connections handed out are proxies: close() returns the physical connection to the pool
+ * and closes any statement the borrower left open. A connection the borrower aborted is discarded instead.
+ * The housekeeper closes connections idle past idleTimeoutMs and opens new ones while fewer than minIdle are idle.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+    //stack trace ตอนยืมแพงเกินจะเก็บทุกครั้ง เปิดเฉพาะตอนตามหา connection ที่ไม่คืน
+    private static final boolean TRACE_BORROWS = Boolean.getBoolean("storemom.pool.leakTrace");
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxSize;
+    private final int minIdle;
+    private final long borrowTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long validationIntervalMs;
+    private final long leakThresholdMs;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong borrowWaitNanos = new AtomicLong();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+
+    public ConnectionPool(String url, String username, String password, int maxSize, int minIdle,
+                          long borrowTimeoutMs, long idleTimeoutMs, long validationIntervalMs, long leakThresholdMs,
+                          int statementCacheSize) {
+        if (maxSize < 1 || minIdle < 0 || minIdle > maxSize) {
+            throw new IllegalArgumentException("invalid pool size max=" + maxSize + " minIdle=" + minIdle);
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.minIdle = minIdle;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.validationIntervalMs = validationIntervalMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "storemom-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMs, leakThresholdMs) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    public Connection borrow() throws SQLException {
+        DbMetrics.Sample sample = DbMetrics.get().start("pool", "borrow");
+        try {
+            Connection connection = acquire();
+            sample.end(-1, null);
+            return connection;
+        } catch (SQLException | RuntimeException ex) {
+            sample.end(-1, ex);
+            throw ex;
+        }
+    }
+
+    private Connection acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("Timed out after " + borrowTimeoutMs + "ms waiting for a connection ("
+                        + borrowed.size() + "/" + maxSize + " in use)");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", ex);
+        }
+        long waited = System.nanoTime() - start;
+        borrowWaitNanos.addAndGet(waited);
+        maxBorrowWaitNanos.accumulateAndGet(waited, Math::max);
+        borrows.incrementAndGet();
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idle.pollFirst()) != null) {
+                if (validate(pooled)) {
+                    break;
+                }
+                validationFailures.incrementAndGet();
+                destroy(pooled);
+            }
+            if (pooled == null) {
+                pooled = create();
+            }
+            pooled.borrowedAt = System.currentTimeMillis();
+            pooled.borrowSite = TRACE_BORROWS && leakThresholdMs > 0 ? new Throwable("Connection borrowed here") : null;
+            pooled.leakReported = false;
+            borrowed.add(pooled);
+            return pooled.handle();
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    public PoolStats stats() {
+        long count = borrows.get();
+        return new PoolStats(maxSize, borrowed.size(), idle.size(), created.get(), destroyed.get(), count,
+                count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(borrowWaitNanos.get() / count),
+                TimeUnit.NANOSECONDS.toMicros(maxBorrowWaitNanos.get()),
+                timeouts.get(), validationFailures.get(), leaks.get(),
+                statementCacheHits.get(), statementCacheMisses.get());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    private PooledConnection create() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, username, password);
+        created.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    private boolean validate(PooledConnection pooled) {
+        if (System.currentTimeMillis() - pooled.lastUsed < validationIntervalMs) {
+            return true;
+        }
+        try {
+            return pooled.physical.isValid(2);
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        if (!borrowed.remove(pooled)) {
+            return;
+        }
+        boolean reusable = pooled.reset();
+        pooled.lastUsed = System.currentTimeMillis();
+        pooled.borrowSite = null;
+        if (reusable && !closed) {
+            idle.offerFirst(pooled);
+        } else {
+            destroy(pooled);
+        }
+        permits.release();
+    }
+
+    private void destroy(PooledConnection pooled) {
+        destroyed.incrementAndGet();
+        try {
+            pooled.physical.close();
+        } catch (SQLException ex) {
+            LOGGER.log(Level.FINE, "Error closing pooled connection", ex);
+        }
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        List<PooledConnection> snapshot = new ArrayList<>(idle);
+        int keep = idle.size();
+        for (PooledConnection pooled : snapshot) {
+            if (keep <= minIdle) {
+                break;
+            }
+            if (now - pooled.lastUsed > idleTimeoutMs && idle.remove(pooled)) {
+                keep--;
+                destroy(pooled);
+            }
+        }
+        replenish();
+        if (leakThresholdMs <= 0) {
+            return;
+        }
+        for (PooledConnection pooled : borrowed) {
+            if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMs) {
+                pooled.leakReported = true;
+                leaks.incrementAndGet();
+                LOGGER.log(Level.WARNING, "Connection held for " + (now - pooled.borrowedAt)
+                        + "ms without being returned to the pool"
+                        + (pooled.borrowSite == null ? " (run with -Dstoremom.pool.leakTrace=true to log where)" : ""),
+                        pooled.borrowSite);
+            }
+        }
+    }
+
+    //เปิด connection ใหม่ไว้ล่วงหน้าจนมีว่างครบ minIdle ผู้ยืมคนถัดไปจะได้ไม่ต้องรอเปิด connection เอง
+    private void replenish() {
+        while (!closed && idle.size() < minIdle && idle.size() + borrowed.size() < maxSize) {
+            PooledConnection pooled;
+            try {
+                pooled = create();
+            } catch (SQLException ex) {
+                LOGGER.log(Level.FINE, "Cannot open an idle connection", ex);
+                return;
+            }
+            idle.offerLast(pooled);
+            if (closed && idle.remove(pooled)) {
+                destroy(pooled);
+            }
+        }
+    }
+
+    public record PoolStats(int maxSize, int active, int idle, long created, long destroyed, long borrows,
+                            long avgWaitMicros, long maxWaitMicros, long timeouts, long validationFailures,
+                            long leaks, long statementCacheHits, long statementCacheMisses) {
+    }
+
+    private final class PooledConnection implements InvocationHandler {
+        private final Connection physical;
+        private final List<Statement> openStatements = new ArrayList<>();
+        private final StatementCache statements =
+                new StatementCache(statementCacheSize, statementCacheHits, statementCacheMisses);
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile long borrowedAt;
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+        private Connection handle;
+        private boolean handleClosed;
+        //ผู้ยืมเรียก abort() แล้ว ตอนคืนให้ทิ้ง connection นี้ไม่ต้องปิด statement ที่ค้าง
+        private volatile boolean aborted;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        private synchronized Connection handle() {
+            handleClosed = false;
+            handle = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, this);
+            return handle;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            synchronized (this) {
+                if (proxy != handle || handleClosed) {
+                    switch (name) {
+                        case "close": return null;
+                        case "isClosed": return true;
+                        case "equals": return proxy == args[0];
+                        case "hashCode": return System.identityHashCode(proxy);
+                        case "toString": return "ClosedPooledConnection";
+                        default: throw new SQLException("Connection has been returned to the pool");
+                    }
+                }
+                if (name.equals("close")) {
+                    handleClosed = true;
+                }
+            }
+            switch (name) {
+                case "close":
+                    release(this);
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "abort":
+                    aborted = true;
+                    break;
+                case "unwrap":
+                    //ไม่ส่ง connection จริงออกไป ไม่งั้นผู้ยืมปิดหรือใช้ต่อหลังคืน pool ได้
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    throw new SQLException("A pooled connection cannot be unwrapped to " + args[0]);
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                default:
+                    break;
+            }
+            try {
+                Object result;
+                if (isCacheablePrepare(method, args)) {
+                    result = statements.prepare(physical, (String) args[0],
+                            args.length == 1 ? Statement.NO_GENERATED_KEYS : (Integer) args[1]);
+                } else {
+                    result = method.invoke(physical, args);
+                }
+                if (result instanceof Statement) {
+                    synchronized (this) {
+                        openStatements.add((Statement) result);
+                    }
+                }
+                return result;
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+
+        private boolean isCacheablePrepare(Method method, Object[] args) {
+            return method.getName().equals("prepareStatement")
+                    && (args.length == 1 || (args.length == 2 && method.getParameterTypes()[1] == int.class));
+        }
+
+        /** Puts the physical connection back into a clean state; false if it should be discarded. */
+        private boolean reset() {
+            synchronized (this) {
+                if (aborted) {
+                    openStatements.clear();
+                    return false;
+                }
+                for (Statement statement : openStatements) {
+                    try {
+                        statement.close();
+                    } catch (SQLException ex) {
+                        LOGGER.log(Level.FINE, "Error closing leaked statement", ex);
+                    }
+                }
+                openStatements.clear();
+            }
+            try {
+                if (physical.isClosed()) {
+                    return false;
+                }
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                return true;
+            } catch (SQLException ex) {
+                return false;
+            }
+        }
+    }
+}
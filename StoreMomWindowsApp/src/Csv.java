@@ -0,0 +1,123 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Minimal RFC 4180 CSV: quoted fields may contain commas, quotes ("") and line breaks. */
+public final class Csv {
+    private Csv() {
+    }
+
+    /** Reads one record at a time from a stream, so files of any size use constant memory. */
+    public static final class RecordReader {
+        private final Reader in;
+        private final StringBuilder field = new StringBuilder();
+        private int pushedBack = -2;
+        private long line = 1;
+        private long recordLine;
+
+        public RecordReader(Reader in) {
+            this.in = in;
+        }
+
+        /** Line on which the record last returned by {@link #next()} started. */
+        public long recordLine() {
+            return recordLine;
+        }
+
+        /** The next record, or null at end of input. */
+        public String[] next() throws IOException {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            recordLine = line;
+            List<String> fields = new ArrayList<>();
+            field.setLength(0);
+            boolean quoted = false;
+            boolean wasQuoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                    }
+                    if (c == '"') {
+                        int next = read();
+                        if (next == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = next;
+                            continue;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                    wasQuoted = true;
+                } else if (c == ',') {
+                    fields.add(value(wasQuoted));
+                    wasQuoted = false;
+                } else if (c == '\r' || c == '\n' || c == -1) {
+                    if (c == '\r') {
+                        int next = read();
+                        if (next != '\n') {
+                            pushedBack = next;
+                        }
+                    }
+                    if (c != -1) {
+                        line++;
+                    }
+                    fields.add(value(wasQuoted));
+                    return fields.toArray(new String[0]);
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        //ช่องว่างที่ไม่มีเครื่องหมายคำพูดคือ NULL ส่วน "" คือข้อความว่าง
+        private String value(boolean wasQuoted) {
+            String value = field.length() == 0 && !wasQuoted ? null : field.toString();
+            field.setLength(0);
+            return value;
+        }
+
+        private int read() throws IOException {
+            if (pushedBack != -2) {
+                int c = pushedBack;
+                pushedBack = -2;
+                return c;
+            }
+            return in.read();
+        }
+    }
+
+    public static void writeRecord(Writer out, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            String text = value.toString();
+            if (text.isEmpty() || text.indexOf(',') >= 0 || text.indexOf('"') >= 0
+                    || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                out.write('"');
+                out.write(text.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(text);
+            }
+        }
+        out.write("\r\n");
+    }
+}
@@ -0,0 +1,5 @@
+public record Customer(int id, String fname, String lname) {
+    public String fullName() {
+        return fname + " " + lname;
+    }
+}
@@ -0,0 +1,176 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory customer lookup for type-ahead search and name to id resolution.
+ * First name, last name and full name are kept in a sorted map, so a prefix search is a range scan.
+ * Built once from the database and then kept current with {@link #put} and {@link #remove}.
+ */
+public class CustomerIndex {
+    //lname เป็น NOT NULL ลูกค้าที่ไม่รู้นามสกุลจึงถูกกรอกเป็น "-" ไม่ใส่ใน index ไม่งั้นค้นหา "-" จะได้ลูกค้าพวกนี้ทั้งหมด
+    private static final String NO_LAST_NAME = "-";
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Customer> byId = new HashMap<>();
+    private final NavigableMap<String, Set<Integer>> byPrefixKey = new TreeMap<>();
+    private final Map<String, TreeSet<Integer>> idsByFullName = new HashMap<>();
+    private volatile boolean loaded;
+
+    public void build(Collection<Customer> customers) {
+        lock.writeLock().lock();
+        try {
+            byId.clear();
+            byPrefixKey.clear();
+            idsByFullName.clear();
+            for (Customer customer : customers) {
+                add(customer);
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /** Adds a new customer or replaces the indexed names of an existing one. */
+    public void put(Customer customer) {
+        lock.writeLock().lock();
+        try {
+            Customer previous = byId.get(customer.id());
+            if (previous != null) {
+                unindex(previous);
+            }
+            add(customer);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<Customer> remove(int id) {
+        lock.writeLock().lock();
+        try {
+            Customer previous = byId.remove(id);
+            if (previous != null) {
+                unindex(previous);
+            }
+            return Optional.ofNullable(previous);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<Customer> get(int id) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(byId.get(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Id of the customer displayed as {@code fullName} ("fname lname"); the lowest id wins on duplicates. */
+    public Optional<Integer> resolveId(String fullName) {
+        if (fullName == null) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            TreeSet<Integer> ids = idsByFullName.get(fullName);
+            return ids == null || ids.isEmpty() ? Optional.empty() : Optional.of(ids.first());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Customers whose first name, last name or full name starts with {@code prefix} (case-insensitive),
+     * at most {@code limit}, in name order.
+     */
+    public List<Customer> search(String prefix, int limit) {
+        String key = normalize(prefix);
+        List<Customer> result = new ArrayList<>();
+        if (key.isEmpty() || limit <= 0) {
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            Set<Integer> seen = new LinkedHashSet<>();
+            for (Set<Integer> ids : byPrefixKey.subMap(key, true, key + Character.MAX_VALUE, false).values()) {
+                for (Integer id : ids) {
+                    if (seen.add(id)) {
+                        result.add(byId.get(id));
+                        if (result.size() >= limit) {
+                            return result;
+                        }
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Customer customer) {
+        byId.put(customer.id(), customer);
+        for (String key : keys(customer)) {
+            byPrefixKey.computeIfAbsent(key, k -> new TreeSet<>()).add(customer.id());
+        }
+        idsByFullName.computeIfAbsent(customer.fullName(), k -> new TreeSet<>()).add(customer.id());
+    }
+
+    private void unindex(Customer customer) {
+        for (String key : keys(customer)) {
+            Set<Integer> ids = byPrefixKey.get(key);
+            if (ids != null && ids.remove(customer.id()) && ids.isEmpty()) {
+                byPrefixKey.remove(key);
+            }
+        }
+        TreeSet<Integer> ids = idsByFullName.get(customer.fullName());
+        if (ids != null && ids.remove(customer.id()) && ids.isEmpty()) {
+            idsByFullName.remove(customer.fullName());
+        }
+    }
+
+    private static List<String> keys(Customer customer) {
+        List<String> keys = new ArrayList<>(3);
+        keys.add(normalize(customer.fullName()));
+        String first = normalize(customer.fname());
+        String last = normalize(customer.lname());
+        if (!first.isEmpty()) {
+            keys.add(first);
+        }
+        if (!last.isEmpty() && !last.equals(NO_LAST_NAME)) {
+            keys.add(last);
+        }
+        return keys;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.strip().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,76 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class CustomerRepository {
+    private static final String SELECT_ALL = "SELECT id, fname, lname FROM customer ORDER BY id";
+    private static final String SELECT_BY_ID = "SELECT id, fname, lname FROM customer WHERE id = ?";
+    private static final String INSERT = "INSERT INTO customer (fname,lname) VALUES(?,?)";
+    private static final String UPDATE = "UPDATE customer SET fname=?, lname=? WHERE id=?";
+    private static final String DELETE = "DELETE FROM customer WHERE id=?";
+
+    public List<Customer> findAll() throws SQLException {
+        List<Customer> customers = new ArrayList<>();
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(SELECT_ALL);
+             ResultSet results = preparedStatement.executeQuery()) {
+            while (results.next()) {
+                customers.add(map(results));
+            }
+        }
+        return customers;
+    }
+
+    public Optional<Customer> findById(int id) throws SQLException {
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(SELECT_BY_ID)) {
+            preparedStatement.setInt(1, id);
+            try (ResultSet results = preparedStatement.executeQuery()) {
+                return results.next() ? Optional.of(map(results)) : Optional.empty();
+            }
+        }
+    }
+
+    /** Inserts the customer and returns it with its generated id. */
+    public Customer insert(String fname, String lname) throws SQLException {
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            preparedStatement.setString(1, fname);
+            preparedStatement.setString(2, lname);
+            preparedStatement.executeUpdate();
+            try (ResultSet keys = preparedStatement.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("No id generated for new customer");
+                }
+                return new Customer(keys.getInt(1), fname, lname);
+            }
+        }
+    }
+
+    public boolean update(Customer customer) throws SQLException {
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(UPDATE)) {
+            preparedStatement.setString(1, customer.fname());
+            preparedStatement.setString(2, customer.lname());
+            preparedStatement.setInt(3, customer.id());
+            return preparedStatement.executeUpdate() == 1;
+        }
+    }
+
+    public boolean delete(int id) throws SQLException {
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(DELETE)) {
+            preparedStatement.setInt(1, id);
+            return preparedStatement.executeUpdate() == 1;
+        }
+    }
+
+    private static Customer map(ResultSet results) throws SQLException {
+        return new Customer(results.getInt("id"), results.getString("fname"), results.getString("lname"));
+    }
+}
@@ -0,0 +1,167 @@
+import javax.swing.SwingUtilities;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs JDBC work off the Event Dispatch Thread and hands results back to it.
+ * Each {@link Kind} has its own concurrency cap; keyed tasks replace any older task with the same key.
+ * Tasks are named so {@link DbMetrics} can time them, together with the wait for their kind's slot.
+ */
+public class DbExecutor {
+    private static final Logger LOGGER = Logger.getLogger(DbExecutor.class.getName());
+
+    public enum Kind {
+        READ(Integer.getInteger("storemom.async.maxReads", 3)),
+        WRITE(Integer.getInteger("storemom.async.maxWrites", 1)),
+        SEARCH(Integer.getInteger("storemom.async.maxSearches", 2));
+
+        private final int maxConcurrent;
+
+        Kind(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+    }
+
+    @FunctionalInterface
+    public interface DbCall<T> {
+        T call() throws Exception;
+    }
+
+    private static final DbExecutor INSTANCE = new DbExecutor();
+
+    private final ExecutorService executor = newExecutor("storemom-db-");
+    private final Map<Kind, Semaphore> limits = new ConcurrentHashMap<>();
+    private final Map<String, Keyed> latest = new ConcurrentHashMap<>();
+    private final AtomicLong generations = new AtomicLong();
+
+    public static DbExecutor get() {
+        return INSTANCE;
+    }
+
+    private DbExecutor() {
+        for (Kind kind : Kind.values()) {
+            limits.put(kind, new Semaphore(Math.max(1, kind.maxConcurrent), true));
+        }
+    }
+
+    public <T> Future<?> submit(Kind kind, String operation, DbCall<T> call, Consumer<? super T> onSuccess) {
+        return submit(kind, operation, call, onSuccess, DbExecutor::logFailure);
+    }
+
+    public <T> Future<?> submit(Kind kind, String operation, DbCall<T> call, Consumer<? super T> onSuccess,
+                                Consumer<? super Throwable> onError) {
+        return executor.submit(() -> run(kind, operation, call, onSuccess, onError, () -> true));
+    }
+
+    /**
+     * Submits a task that supersedes any in-flight task with the same key: the older one is interrupted
+     * and, if it still finishes, its result is dropped instead of being published. The key also names the task
+     * in {@link DbMetrics}.
+     */
+    public <T> Future<?> submitLatest(String key, Kind kind, DbCall<T> call, Consumer<? super T> onSuccess) {
+        long generation = generations.incrementAndGet();
+        Keyed keyed = new Keyed(generation);
+        Keyed previous = latest.put(key, keyed);
+        if (previous != null) {
+            previous.cancel();
+        }
+        Future<?> future = executor.submit(
+                () -> run(kind, key, call, onSuccess, DbExecutor::logFailure, () -> isCurrent(key, generation)));
+        keyed.future = future;
+        if (!isCurrent(key, generation)) {
+            future.cancel(true);
+        }
+        return future;
+    }
+
+    private boolean isCurrent(String key, long generation) {
+        Keyed keyed = latest.get(key);
+        return keyed != null && keyed.generation == generation;
+    }
+
+    private <T> void run(Kind kind, String operation, DbCall<T> call, Consumer<? super T> onSuccess,
+                         Consumer<? super Throwable> onError, BooleanSupplier stillWanted) {
+        Semaphore limit = limits.get(kind);
+        DbMetrics metrics = DbMetrics.get();
+        DbMetrics.Sample queued = metrics.start("queue", kind.name());
+        try {
+            limit.acquire();
+            queued.end(-1, null);
+        } catch (InterruptedException ex) {
+            queued.end(-1, ex);
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            if (!stillWanted.getAsBoolean()) {
+                return;
+            }
+            DbMetrics.Sample task = metrics.start("task", operation);
+            T result;
+            try {
+                result = call.call();
+            } catch (Throwable ex) {
+                task.end(-1, ex);
+                throw ex;
+            }
+            task.end(DbMetrics.rowsOf(result), null);
+            if (stillWanted.getAsBoolean()) {
+                SwingUtilities.invokeLater(() -> {
+                    if (stillWanted.getAsBoolean()) {
+                        onSuccess.accept(result);
+                    }
+                });
+            }
+        } catch (Throwable ex) {
+            if (stillWanted.getAsBoolean() && !Thread.currentThread().isInterrupted()) {
+                SwingUtilities.invokeLater(() -> onError.accept(ex));
+            }
+        } finally {
+            limit.release();
+        }
+    }
+
+    private static void logFailure(Throwable ex) {
+        LOGGER.log(Level.SEVERE, null, ex);
+    }
+
+    //ใช้ virtual thread ถ้า JDK รองรับ (21+) ไม่งั้นใช้ thread pool ปกติ
+    static ExecutorService newExecutor(String threadPrefix) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, threadPrefix + counter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    private static final class Keyed {
+        private final long generation;
+        private volatile Future<?> future;
+
+        private Keyed(long generation) {
+            this.generation = generation;
+        }
+
+        private void cancel() {
+            Future<?> current = future;
+            if (current != null) {
+                current.cancel(true);
+            }
+        }
+    }
+}
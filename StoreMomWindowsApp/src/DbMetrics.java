@@ -0,0 +1,224 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Latency of every database operation, by name: SQL statements run through the pool's statement cache
+ * ({@code sql}), connection borrows ({@code pool}), waits for a {@link DbExecutor} slot ({@code queue}) and whole
+ * {@link DbExecutor} tasks ({@code task}). Each name keeps a {@link LatencyHistogram} plus call, row and error
+ * counts. Operations slower than {@code storemom.metrics.slowMs} are logged as warnings, every operation is also a
+ * {@link DbOperationEvent} for JFR, and the report is available over JMX as {@code storemom:type=DbMetrics}.
+ */
+public final class DbMetrics implements DbMetricsMBean {
+    private static final Logger LOGGER = Logger.getLogger(DbMetrics.class.getName());
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\?(\\s*,\\s*\\?)+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int MAX_NAME_LENGTH = 120;
+
+    private static final DbMetrics INSTANCE = new DbMetrics(Long.getLong("storemom.metrics.slowMs", 500L));
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName("storemom:type=DbMetrics"));
+        } catch (JMException | RuntimeException ex) {
+            LOGGER.log(Level.FINE, "DbMetrics not registered with JMX", ex);
+        }
+        if (Boolean.getBoolean("storemom.metrics.dumpOnExit")) {
+            Runtime.getRuntime().addShutdownHook(new Thread(INSTANCE::dump, "storemom-metrics-dump"));
+        }
+    }
+
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+    private final Map<String, String> sqlNames = new ConcurrentHashMap<>();
+    private volatile long slowThresholdNanos;
+    private volatile ConnectionPool pool;
+
+    public static DbMetrics get() {
+        return INSTANCE;
+    }
+
+    private DbMetrics(long slowThresholdMs) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+    }
+
+    /** Starts timing one operation; end it exactly once with {@link Sample#end}. */
+    public Sample start(String kind, String name) {
+        return new Sample(kind, name);
+    }
+
+    /** Starts timing a SQL statement, named by its text with whitespace and placeholder lists collapsed. */
+    public Sample startSql(String sql) {
+        return new Sample("sql", sqlNames.computeIfAbsent(sql, DbMetrics::sqlName));
+    }
+
+    /** Adds the pool's counters to the report. */
+    public void watch(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    public List<Snapshot> snapshot() {
+        List<Snapshot> rows = new ArrayList<>(operations.size());
+        for (Operation operation : operations.values()) {
+            rows.add(operation.snapshot());
+        }
+        rows.sort(Comparator.comparingDouble((Snapshot s) -> s.meanMs() * s.calls()).reversed());
+        return rows;
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-6s %8s %6s %10s %9s %9s %9s %9s %9s  %s%n",
+                "kind", "calls", "errors", "rows", "mean ms", "p50 ms", "p90 ms", "p99 ms", "max ms", "operation"));
+        for (Snapshot s : snapshot()) {
+            report.append(String.format("%-6s %8d %6d %10d %9.2f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                    s.kind(), s.calls(), s.errors(), s.rows(), s.meanMs(), s.p50Ms(), s.p90Ms(), s.p99Ms(), s.maxMs(),
+                    s.name()));
+        }
+        ConnectionPool current = pool;
+        if (current != null) {
+            report.append(current.stats()).append(System.lineSeparator());
+        }
+        return report.toString();
+    }
+
+    @Override
+    public int getOperationCount() {
+        return operations.size();
+    }
+
+    @Override
+    public long getSlowThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowThresholdNanos);
+    }
+
+    @Override
+    public void setSlowThresholdMillis(long millis) {
+        slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Override
+    public String dump() {
+        String report = getReport();
+        LOGGER.info("Database operations:" + System.lineSeparator() + report);
+        return report;
+    }
+
+    @Override
+    public void reset() {
+        operations.clear();
+    }
+
+    /** Row count of a statement or task result: update counts, collection sizes, -1 when unknown. */
+    public static long rowsOf(Object result) {
+        if (result instanceof Integer || result instanceof Long) {
+            return ((Number) result).longValue();
+        }
+        if (result instanceof int[]) {
+            long rows = 0;
+            for (int count : (int[]) result) {
+                rows += Math.max(0, count);
+            }
+            return rows;
+        }
+        if (result instanceof long[]) {
+            long rows = 0;
+            for (long count : (long[]) result) {
+                rows += Math.max(0, count);
+            }
+            return rows;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        return -1;
+    }
+
+    //IN (?,?,?...) ที่ยาวไม่เท่ากันนับเป็น query เดียวกัน
+    static String sqlName(String sql) {
+        String name = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        name = PLACEHOLDER_LIST.matcher(name).replaceAll("?...");
+        return name.length() > MAX_NAME_LENGTH ? name.substring(0, MAX_NAME_LENGTH - 3) + "..." : name;
+    }
+
+    private void record(String kind, String name, long nanos, long rows, Throwable failure) {
+        Operation operation = operations.computeIfAbsent(kind + ":" + name, key -> new Operation(kind, name));
+        operation.latency.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+        operation.calls.increment();
+        if (rows > 0) {
+            operation.rows.add(rows);
+        }
+        if (failure != null) {
+            operation.errors.increment();
+        }
+        if (nanos >= slowThresholdNanos) {
+            LOGGER.log(Level.WARNING, String.format("Slow %s %s: %.1f ms%s%s", kind, name, nanos / 1e6,
+                    rows >= 0 ? ", " + rows + " rows" : "", failure != null ? ", failed: " + failure : ""));
+        }
+    }
+
+    public record Snapshot(String kind, String name, long calls, long errors, long rows,
+                           double meanMs, double p50Ms, double p90Ms, double p99Ms, double maxMs) {
+    }
+
+    /** One timed operation in progress. */
+    public final class Sample {
+        private final String kind;
+        private final String name;
+        private final long start = System.nanoTime();
+        private final DbOperationEvent event = new DbOperationEvent();
+
+        private Sample(String kind, String name) {
+            this.kind = kind;
+            this.name = name;
+            event.begin();
+        }
+
+        /** Records the operation with its row count (-1 if unknown) and the failure, null if it succeeded. */
+        public void end(long rows, Throwable failure) {
+            record(kind, name, System.nanoTime() - start, rows, failure);
+            event.end();
+            if (event.shouldCommit()) {
+                event.kind = kind;
+                event.operation = name;
+                event.rows = rows;
+                event.failed = failure != null;
+                event.commit();
+            }
+        }
+    }
+
+    private static final class Operation {
+        private final String kind;
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+
+        private Operation(String kind, String name) {
+            this.kind = kind;
+            this.name = name;
+        }
+
+        private Snapshot snapshot() {
+            return new Snapshot(kind, name, calls.sum(), errors.sum(), rows.sum(), latency.mean() / 1000.0,
+                    latency.percentile(50) / 1000.0, latency.percentile(90) / 1000.0,
+                    latency.percentile(99) / 1000.0, latency.max() / 1000.0);
+        }
+    }
+}
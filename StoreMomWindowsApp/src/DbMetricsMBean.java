@@ -0,0 +1,16 @@
+/** JMX view of {@link DbMetrics}, registered as {@code storemom:type=DbMetrics}. */
+public interface DbMetricsMBean {
+    /** Per-operation latency report, slowest total time first. */
+    String getReport();
+
+    int getOperationCount();
+
+    long getSlowThresholdMillis();
+
+    void setSlowThresholdMillis(long millis);
+
+    /** Writes the report to the log and returns it. */
+    String dump();
+
+    void reset();
+}
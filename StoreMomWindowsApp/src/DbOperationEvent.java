@@ -0,0 +1,26 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** JFR event for one timed database operation, recorded by {@link DbMetrics}. */
+@Name("storemom.DbOperation")
+@Label("Database Operation")
+@Category({"StoreMom", "Database"})
+@Description("A SQL statement, a database task, a wait for a pooled connection or for a DbExecutor slot")
+@StackTrace(false)
+class DbOperationEvent extends Event {
+    @Label("Kind")
+    String kind;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("Failed")
+    boolean failed;
+}
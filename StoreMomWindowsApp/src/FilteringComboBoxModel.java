@@ -0,0 +1,216 @@
+import javax.swing.AbstractListModel;
+import javax.swing.JComboBox;
+import javax.swing.MutableComboBoxModel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.JTextComponent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Combo box model over a sorted array of names that only exposes the items matching the text typed so far.
+ * Prefix matches come first (binary search over the sorted array), then names containing the text elsewhere,
+ * capped at {@code maxVisible}. Every change to the visible list is published as one contents-changed event.
+ * Must be used from the Event Dispatch Thread.
+ */
+public class FilteringComboBoxModel extends AbstractListModel<String> implements MutableComboBoxModel<String> {
+    private static final long serialVersionUID = 1L;
+    private static final Comparator<String> ORDER = Comparator.comparing((String name) -> name.toLowerCase(Locale.ROOT))
+            .thenComparing(Comparator.naturalOrder());
+
+    private final int maxVisible;
+    private String[] items = new String[0];
+    private String[] foldedItems = new String[0];
+    private List<String> visible = List.of();
+    private String filter = "";
+    private Object selectedItem;
+
+    public FilteringComboBoxModel(int maxVisible) {
+        this.maxVisible = maxVisible;
+    }
+
+    /** Editable combo box whose popup is narrowed down as the user types into it. */
+    public static void install(JComboBox<String> comboBox, FilteringComboBoxModel model) {
+        comboBox.setModel(model);
+        comboBox.setEditable(true);
+        JTextComponent editor = (JTextComponent) comboBox.getEditor().getEditorComponent();
+        editor.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                changed();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                changed();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+
+            private void changed() {
+                //ห้ามแก้ model ระหว่างที่ document กำลังแจ้ง event
+                SwingUtilities.invokeLater(() -> {
+                    String text = editor.getText();
+                    if (text.equals(model.getSelectedItem())) {
+                        return;
+                    }
+                    model.setFilter(text);
+                    if (editor.isFocusOwner() && comboBox.isShowing() && model.getSize() > 0) {
+                        comboBox.showPopup();
+                    }
+                });
+            }
+        });
+    }
+
+    /** Replaces all items with one event. */
+    public void setItems(Collection<String> names) {
+        String[] sorted = names.toArray(new String[0]);
+        Arrays.sort(sorted, ORDER);
+        items = sorted;
+        foldedItems = fold(sorted);
+        refilter();
+    }
+
+    public void setFilter(String text) {
+        String folded = text == null ? "" : text.strip().toLowerCase(Locale.ROOT);
+        if (folded.equals(filter)) {
+            return;
+        }
+        filter = folded;
+        refilter();
+    }
+
+    public int getItemCount() {
+        return items.length;
+    }
+
+    @Override
+    public void addElement(String item) {
+        int index = Arrays.binarySearch(items, item, ORDER);
+        int at = index < 0 ? -index - 1 : index;
+        String[] grown = new String[items.length + 1];
+        System.arraycopy(items, 0, grown, 0, at);
+        grown[at] = item;
+        System.arraycopy(items, at, grown, at + 1, items.length - at);
+        String[] grownFolded = new String[grown.length];
+        System.arraycopy(foldedItems, 0, grownFolded, 0, at);
+        grownFolded[at] = item.toLowerCase(Locale.ROOT);
+        System.arraycopy(foldedItems, at, grownFolded, at + 1, foldedItems.length - at);
+        items = grown;
+        foldedItems = grownFolded;
+        refilter();
+    }
+
+    @Override
+    public void removeElement(Object obj) {
+        if (!(obj instanceof String)) {
+            return;
+        }
+        int at = Arrays.binarySearch(items, (String) obj, ORDER);
+        if (at < 0) {
+            return;
+        }
+        String[] shrunk = new String[items.length - 1];
+        System.arraycopy(items, 0, shrunk, 0, at);
+        System.arraycopy(items, at + 1, shrunk, at, items.length - at - 1);
+        String[] shrunkFolded = new String[shrunk.length];
+        System.arraycopy(foldedItems, 0, shrunkFolded, 0, at);
+        System.arraycopy(foldedItems, at + 1, shrunkFolded, at, foldedItems.length - at - 1);
+        items = shrunk;
+        foldedItems = shrunkFolded;
+        if (obj.equals(selectedItem)) {
+            selectedItem = null;
+        }
+        refilter();
+    }
+
+    /** Items are kept sorted, so the position is ignored. */
+    @Override
+    public void insertElementAt(String item, int index) {
+        addElement(item);
+    }
+
+    @Override
+    public void removeElementAt(int index) {
+        removeElement(getElementAt(index));
+    }
+
+    @Override
+    public void setSelectedItem(Object anItem) {
+        if ((selectedItem != null && !selectedItem.equals(anItem)) || (selectedItem == null && anItem != null)) {
+            selectedItem = anItem;
+            fireContentsChanged(this, -1, -1);
+        }
+    }
+
+    @Override
+    public Object getSelectedItem() {
+        return selectedItem;
+    }
+
+    @Override
+    public int getSize() {
+        return visible.size();
+    }
+
+    @Override
+    public String getElementAt(int index) {
+        return index >= 0 && index < visible.size() ? visible.get(index) : null;
+    }
+
+    private void refilter() {
+        List<String> matches = new ArrayList<>(Math.min(maxVisible, items.length));
+        if (filter.isEmpty()) {
+            for (int i = 0; i < items.length && matches.size() < maxVisible; i++) {
+                matches.add(items[i]);
+            }
+        } else {
+            int from = lowerBound(filter);
+            int to = from;
+            while (to < items.length && foldedItems[to].startsWith(filter)) {
+                if (matches.size() < maxVisible) {
+                    matches.add(items[to]);
+                }
+                to++;
+            }
+            for (int i = 0; i < items.length && matches.size() < maxVisible; i++) {
+                if ((i < from || i >= to) && foldedItems[i].contains(filter)) {
+                    matches.add(items[i]);
+                }
+            }
+        }
+        visible = matches;
+        fireContentsChanged(this, 0, Math.max(0, matches.size() - 1));
+    }
+
+    //ตำแหน่งแรกใน foldedItems ที่ >= prefix ชื่อที่ขึ้นต้นด้วย prefix จะอยู่ติดกันตั้งแต่ตรงนี้
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = foldedItems.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (foldedItems[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String[] fold(String[] names) {
+        String[] folded = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            folded[i] = names[i].toLowerCase(Locale.ROOT);
+        }
+        return folded;
+    }
+}
@@ -0,0 +1,70 @@
+import javax.swing.table.TableModel;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/** Table model behind cusDb/proDb that reads its rows from a {@link PageSource}. Used from the Event Dispatch Thread. */
+public interface GridModel extends TableModel {
+    void setSource(PageSource source);
+
+    void refresh();
+
+    /** Called on the EDT when a refresh has settled (row count known, or all rows delivered). */
+    void setOnRefreshed(Runnable onRefreshed);
+
+    /** Values of a row if it is in memory, otherwise {@code null}. */
+    Object[] getRow(int rowIndex);
+
+    boolean isLoaded(int rowIndex);
+
+    /** Orders the rows by {@code column}; false if the rows are not all in memory, so the model cannot sort them. */
+    default boolean sort(int column, boolean ascending) {
+        return false;
+    }
+
+    /**
+     * Shows only rows whose {@code column} value passes {@code test} until the next {@link #setSource}/{@link #refresh};
+     * false if the rows are not all in memory, in which case nothing changes.
+     */
+    default boolean filter(int column, Predicate<Object> test) {
+        return false;
+    }
+
+    /**
+     * Replaces the values of every in-memory row whose {@code column} equals {@code value} with {@code change} applied
+     * to a copy of them; returns how many rows changed. Rows not in memory are read fresh when they are shown.
+     */
+    default int updateRows(int column, Object value, UnaryOperator<Object[]> change) {
+        return 0;
+    }
+
+    /**
+     * Adds a row that sorts after every row of the source; false if the model cannot tell where it goes (the last rows
+     * are not in memory), in which case nothing changes and the caller should {@link #refresh()}.
+     */
+    default boolean appendRow(PageSource.Row row) {
+        return false;
+    }
+
+    /** Drops every row whose {@code column} equals {@code value}; false if the model needs a {@link #refresh()} instead. */
+    default boolean removeRows(int column, Object value) {
+        return false;
+    }
+
+    /** Cell equality for {@link #updateRows}/{@link #removeRows}: whole numbers match whatever type the driver gave. */
+    static boolean sameValue(Object cell, Object value) {
+        if (cell instanceof Number && value instanceof Number) {
+            return ((Number) cell).longValue() == ((Number) value).longValue();
+        }
+        return cell == null ? value == null : cell.equals(value);
+    }
+
+    /** {@code storemom.grid.mode}: {@code paged} (default) keeps a few pages in memory, {@code stream} streams every row in. */
+    static GridModel create(int pageSize, int maxCachedPages) {
+        if ("stream".equals(System.getProperty("storemom.grid.mode"))) {
+            return new StreamingTableModel(Integer.getInteger("storemom.stream.fetchSize", 1000),
+                    Integer.getInteger("storemom.stream.chunkSize", 200),
+                    Integer.getInteger("storemom.stream.maxRows", 100_000));
+        }
+        return new PagedTableModel(pageSize, maxCachedPages);
+    }
+}
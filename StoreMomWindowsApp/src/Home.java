@@ -1,625 +1,964 @@
-import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
-import java.awt.event.*;
-import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
-public class Home extends JFrame{
-    private JTabbedPane tabbedPane1;
-    private JLabel Jfirstname;
-    private JLabel form3;
-    private JPanel JpanalMain;
-    private JPanel page1;
-    private JPanel page3;
-    private JPanel page6;
-    private JLabel Jlastname;
-    private JTextField fname;
-    private JTextField lname;
-    private JButton cAdd;
-    private JTable cusDb;
-    private JButton cSearch;
-    private JButton cUpdate;
-    private JButton cDelete;
-    private JButton cNew;
-    private JTextField pPrice;
-    private JLabel cusFullname;
-    private JButton pAdd;
-    private JButton pUpdate;
-    private JButton pDelete;
-    private JButton pNew;
-    private JTable proDb;
-    private JButton pSearch;
-    private JTextField pName;
-    private JTextField pStock;
-    private JLabel customerName;
-    private JLabel Date;
-    private JTextField textField5;
-    private JLabel totalAmout;
-    private JTextField textField6;
-    private JButton oUpdate;
-    private JTextField cusFullnameField;
-    private JTextField pVolume;
-    private JTextField textField7;
-    private JTextField textField8;
-    private JTextField textField9;
-    private JComboBox proNameBox;
-    private JComboBox cusNameBox;
-    private JButton oAdd;
-    private JButton oDelete;
-    private Integer k=0,id,productId;
-    private String firstname, lastname,productName,quantityInStock,price,volume;
-
-    PreparedStatement preparedStatement;
-    Connection connection = storeConnection.connect();
-    Statement statement;
-    public Home() {
-
-        cAdd.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    if (!fname.getText().isBlank()&&!lname.getText().isBlank()){
-                        statement = connection.createStatement();
-                        String sql = "INSERT INTO customer (fname,lname) VALUES(?,?)";
-                        preparedStatement = connection.prepareStatement(sql);
-                        preparedStatement.setString(1, fname.getText());
-                        preparedStatement.setString(2, lname.getText());
-
-                        k = preparedStatement.executeUpdate();
-                    }else {k=0;}
-                    if (k==1){
-                        JOptionPane.showMessageDialog(cAdd, "Customer Added Successfully");
-                        preparedStatement=connection.prepareStatement("commit ");
-                        preparedStatement.executeUpdate();
-                        fname.setText("");
-                        lname.setText("");
-                    }else {
-                        JOptionPane.showMessageDialog(cAdd, "An error occur to add customer");
-                        preparedStatement=connection.prepareStatement("rollback ");
-                        preparedStatement.executeUpdate();
-                    }
-
-                }catch (SQLException ex) {
-                    Logger.getLogger(Home.class.getName()).log(Level.SEVERE, null, ex);
-                }
-                k=0;
-            }
-        });
-        cUpdate.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    statement = connection.createStatement();
-//                    String sqlSelect = "SELECT id , fname as firstname , lname as lastname  FROM customer where  concat(fname,\" \",lname)  like \"%"+cusFullnameField.getText()+ "%\"";
-//
-//                    preparedStatement = connection.prepareStatement(sqlSelect);
-//
-//                    ResultSet resultSet = preparedStatement.executeQuery();
-//                     String id = "";
-//                    while (resultSet.next()){
-//                      id = resultSet.getString(1);
-//                        System.out.println(id);
-//                    }
-                    if (!fname.getText().isBlank()&&!lname.getText().isBlank()){
-                        String sql = "UPDATE customer SET  fname=? , lname=? where  id= ?";
-                        preparedStatement = connection.prepareStatement(sql);
-                        preparedStatement.setString(1,  fname.getText());
-                        preparedStatement.setString(2, lname.getText());
-                        preparedStatement.setInt(3, id);
-
-                        System.out.println("SQL Query: " + sql);
-                        System.out.println("fname: " + fname.getText());
-                        System.out.println("lname: " + lname.getText());
-                        System.out.println("id: " + id);
-
-                      k= preparedStatement.executeUpdate();
-                     }else {k=0;}
-                    if (k==1){
-                        JOptionPane.showMessageDialog(cUpdate, "Customer Update Successfully");
-                        preparedStatement=connection.prepareStatement("commit ");
-                        preparedStatement.executeUpdate();
-                        fname.setText("");
-                        lname.setText("");
-                    }else {
-                        JOptionPane.showMessageDialog(cUpdate, "An error occur to update customer");
-                        preparedStatement=connection.prepareStatement("rollback ");
-                        preparedStatement.executeUpdate();
-                    }
-
-                }catch (SQLException ex) {
-                    Logger.getLogger(Home.class.getName()).log(Level.SEVERE, null, ex);
-                }
-                k=0;
-            }
-        });
-
-        cSearch.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-               if (!cusFullnameField.getText().isBlank()){
-                   LoadAllCustomersByName();
-               }
-               // cusFullnameField.setText("");
-            }
-        });
-        cDelete.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    statement = connection.createStatement();
-//
-//                    String sqlSelect = "SELECT id , fname as firstname , lname as lastname  FROM customer where  concat(fname,\" \",lname)  like \"%"+cusFullnameField.getText()+ "%\"";
-//
-//                    preparedStatement = connection.prepareStatement(sqlSelect);
-//
-//                    ResultSet resultSet = preparedStatement.executeQuery();
-//                    String id = "";
-//                    while (resultSet.next()){
-//                        id = resultSet.getString(1);
-//                    }
-                    System.out.println(id);
-                    if (!fname.getText().isBlank()&&!lname.getText().isBlank()){
-                        String sql = "DELETE FROM customer WHERE id=?";
-                        preparedStatement = connection.prepareStatement(sql);
-                        preparedStatement.setInt(1, id);
-
-                      k = preparedStatement.executeUpdate();
-                    }else {k=0;}
-
-                    if (k==1){
-                        JOptionPane.showMessageDialog(cAdd, "Customer Delete Successfully");
-                        preparedStatement=connection.prepareStatement("commit ");
-                        preparedStatement.executeUpdate();
-                        fname.setText("");
-                        lname.setText("");
-                    }else {
-                        JOptionPane.showMessageDialog(cAdd, "An error occur to delete customer");
-                        preparedStatement=connection.prepareStatement("rollback ");
-                        preparedStatement.executeUpdate();
-                    }
-
-                }catch (SQLException ex) {
-                    Logger.getLogger(Home.class.getName()).log(Level.SEVERE, null, ex);
-                }
-                k=0;
-            }
-        });
-        cNew.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                DefaultTableModel model = (DefaultTableModel) cusDb.getModel();
-                //clear row in table
-                model.setRowCount(0);
-//        JOptionPane.showMessageDialog(cAdd, cusFullname.getIn+!!);
-                PreparedStatement preparedStatement;
-                Connection connection = storeConnection.connect();
-                Statement statement;
-                try {
-                    statement = connection.createStatement();
-                    String sql = "SELECT id , fname as firstname , lname as lastname  ,p.productName,p.price,o.totalAmount,o.profit ,od.quantityOrdered,od.priceEach \n" +
-                            "FROM product p  join  orderdetail od on p.productId = od.productId\n" +
-                            "right join orders o on od.orderId = o.orderId\n" +
-                            "right join customer c on c.id = o.customer_id ";
-                    ResultSet results = statement.executeQuery(sql);
-                    ResultSetMetaData rsmd = results.getMetaData();
-                    int cols = rsmd.getColumnCount();
-                    String[] columnNames = new String[cols];
-                    for (int i = 0; i < cols; i++) {
-                        columnNames[i] = rsmd.getColumnName(i + 1);
-                        if ( columnNames[i] .equalsIgnoreCase("fname" )) {
-                            columnNames[i]  ="firstname" ;
-                        }  else if (columnNames[i] .equalsIgnoreCase("lname" )) {
-                            columnNames[i]  ="lastname";
-                        }
-                    }
-                    //ชื่อ column
-                    model.setColumnIdentifiers(columnNames);
-
-
-                    while (results.next()){
-                        //สร้างตัวแปลเพื่อมาเก็บ field
-
-                        id =  results.getInt(1);
-                        firstname = results.getString(2);
-                        lastname = results.getString(3);
-                        productName = results.getString(4);
-                        quantityInStock  = results.getString(5);
-                        price = results.getString(6);
-                        volume =  results.getString(7);
-
-                        String[] row = {String.valueOf(id),  firstname, lastname,productName,quantityInStock,price,volume};
-                        model.addRow(row);
-                    }
-         //           System.out.println( model.getRowCount());
-                    if ( model.getRowCount()==1) {
-                        fname.setText(firstname);
-                        lname.setText(lastname);
-                    }
-                }  catch (SQLException ex) {
-                    Logger.getLogger(Home.class.getName()).log(Level.SEVERE, null, ex);
-                }
-            }
-        });
-
-        pSearch.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                if (!pName.getText().isBlank()){
-                LoadAllProductByName();
-                }
-            }
-        });
-
-        pAdd.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                    try {
-                        if (!pName.getText().isBlank()&&!pStock.getText().isBlank()&&!pPrice.getText().isBlank()){
-                            statement = connection.createStatement();
-                            String sql = "INSERT INTO product (productName,quantityInStock,price,volume) VALUES(?,?,?,?)";
-                            preparedStatement = connection.prepareStatement(sql);
-                            preparedStatement.setString(1, pName.getText());
-                            preparedStatement.setInt(2, Integer.parseInt(pStock.getText()));
-                            preparedStatement.setInt(3, Integer.parseInt(pPrice.getText()));
-                            preparedStatement.setString(4, pVolume.getText());
-
-                             k = preparedStatement.executeUpdate();
-                        } else {k=0;}
-                        if (k==1){
-                            JOptionPane.showMessageDialog(cAdd, "Product Added Successfully");
-                            preparedStatement=connection.prepareStatement("commit ");
-                            preparedStatement.executeUpdate();
-                            pName.setText("");
-                            pStock.setText("");
-                            pPrice.setText("");
-                            pVolume.setText("");
-                        }else {
-                            JOptionPane.showMessageDialog(cAdd, "An error occur to add Product");
-                            preparedStatement=connection.prepareStatement("rollback ");
-                            preparedStatement.executeUpdate();
-                        }
-
-                    }catch (SQLException ex) {
-                        Logger.getLogger(Home.class.getName()).log(Level.SEVERE, null, ex);
-                    }
-                k=0;
-                }
-        });
-        pUpdate.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    if (!pName.getText().isBlank()&&!pStock.getText().isBlank()&&!pPrice.getText().isBlank()){
-                        statement = connection.createStatement();
-//                        String sqlSelect = "SELECT productId   FROM product where  productName  like \"%"+pName.getText()+ "%\"";
-//                        preparedStatement = connection.prepareStatement(sqlSelect);
-//                        ResultSet resultSet = preparedStatement.executeQuery();
-//                        String id = "";
-//                        while (resultSet.next()){
-//                            id = resultSet.getString(1);
-//                            System.out.println(id);
-//                        }
-                        String sql = "UPDATE product SET  productName=? , quantityInStock=? ,price=? , volume=?  where  productId= ?";
-                        preparedStatement = connection.prepareStatement(sql);
-                        preparedStatement.setString(1, pName.getText());
-                        preparedStatement.setInt(2, Integer.parseInt(pStock.getText()));
-                        preparedStatement.setInt(3, Integer.parseInt(pPrice.getText()));
-                        preparedStatement.setString(4, pVolume.getText());
-                        preparedStatement.setInt(5, productId);
-
-
-                         k = preparedStatement.executeUpdate();
-                     }else {k=0;}
-
-                      if (k==1){
-                        JOptionPane.showMessageDialog(cUpdate, "Product Update Successfully");
-                        pName.setText("");
-                        pStock.setText("");
-                        pPrice.setText("");
-                        pVolume.setText("");
-                          preparedStatement=connection.prepareStatement("commit ");
-                          preparedStatement.executeUpdate();
-                    }else {
-                        JOptionPane.showMessageDialog(cUpdate, "An error occur to update Product");
-                        preparedStatement=connection.prepareStatement("rollback ");
-                          preparedStatement.executeUpdate();
-                    }
-
-                }catch (SQLException ex) {
-                    Logger.getLogger(Home.class.getName()).log(Level.SEVERE, null, ex);
-                }
-                k=0;
-            }
-
-        });
-
-        pDelete.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                try {
-                    if (!pName.getText().isBlank()&&!pStock.getText().isBlank()&&!pPrice.getText().isBlank()){
-                        System.out.println(id);
-                        statement = connection.createStatement();
-                        String sql = "DELETE FROM product WHERE productId=?";
-                        preparedStatement = connection.prepareStatement(sql);
-                        preparedStatement.setInt(1, productId);
-
-                         k = preparedStatement.executeUpdate();
-                    }else {k=0;}
-                    if (k==1){
-                        JOptionPane.showMessageDialog(cAdd, "Product Delete Successfully");
-                        pName.setText("");
-                        pStock.setText("");
-                        pPrice.setText("");
-                        pVolume.setText("");
-                        preparedStatement=connection.prepareStatement("commit ");
-                        preparedStatement.executeUpdate();
-                    }else {
-                        JOptionPane.showMessageDialog(cAdd, "An error occur to delete Product");
-                        preparedStatement=connection.prepareStatement("rollback ");
-                        preparedStatement.executeUpdate();
-                    }
-
-                }catch (SQLException ex) {
-                    Logger.getLogger(Home.class.getName()).log(Level.SEVERE, null, ex);
-                }
-                k=0;
-            }
-        });
-        pNew.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                DefaultTableModel model = (DefaultTableModel) proDb.getModel();
-                //clear row in table
-                model.setRowCount(0);
-                PreparedStatement preparedStatement;
-                Connection connection = storeConnection.connect();
-                Statement statement;
-                try {
-                    statement = connection.createStatement();
-                    String sql = "SELECT productId , productName  , quantityInStock  ,price,volume FROM product";
-                    ResultSet results = statement.executeQuery(sql);
-                    ResultSetMetaData rsmd = results.getMetaData();
-                    int cols = rsmd.getColumnCount();
-                    String[] columnNames = new String[cols];
-                    for (int i = 0; i < cols; i++) {
-                        columnNames[i] = rsmd.getColumnName(i + 1);
-                    }
-                    //ชื่อ column
-                    model.setColumnIdentifiers(columnNames);
-
-
-                    while (results.next()){
-                        //สร้างตัวแปลเพื่อมาเก็บ field
-                        productId =  results.getInt(1);
-                        productName = results.getString(2);
-                        quantityInStock  = results.getString(3);
-                        price = results.getString(4);
-                        volume =  results.getString(5);
-                        String[] row = {String.valueOf(productId), productName, quantityInStock, price, volume};
-                        model.addRow(row);
-                    }
-                  //  System.out.println( model.getRowCount());
-                    if ( model.getRowCount()==1) {
-                        pName.setText(productName);
-                        pStock.setText(quantityInStock);
-                        pPrice.setText(String.valueOf(pPrice));
-                        pVolume.setText(String.valueOf(volume));
-                    }
-                }  catch (SQLException ex) {
-                    Logger.getLogger(Home.class.getName()).log(Level.SEVERE, null, ex);
-                }
-            }
-        });
-        oAdd.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-
-                //get value from combobox
-                String customerName = (String) cusNameBox.getSelectedItem();
-                String productName = (String) proNameBox.getSelectedItem();
-                System.out.println(customerName);
-                System.out.println(productName);
-
-            }
-        });
-        oUpdate.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-
-            }
-        });
-        oDelete.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-
-            }
-        });
-        cusNameBox.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-//            JOptionPane.showMessageDialog(cusNameBox,"Test");
-  //                  JComboBox<String> combo = (JComboBox<String>) e.getSource();
-//                String selectedBook = (String) combo.getSelectedItem();
-//
-//                if (selectedBook.equals("ker")) {
-//                    System.out.println("Good choice!");
-//                } else if (selectedBook.equals("w")) {
-//                    System.out.println("Nice pick, too!");
-//                }
-                String name = (String) cusNameBox.getSelectedItem();
-                System.out.println(name);
-                try{
-                    statement = connection.createStatement();
-                    String sqlCustomer  = "SELECT id FROM customer WHERE CONCAT(fname, ' ', lname) = ?";
-                    preparedStatement = connection.prepareStatement(sqlCustomer);
-                    preparedStatement.setString(1, name);
-
-                    ResultSet resultCustomerName = statement.executeQuery(sqlCustomer);
-                    System.out.println(resultCustomerName);
-                    while (resultCustomerName.next()){
-                        //สร้างตัวแปลเพื่อมาเก็บ field
-                        id =  resultCustomerName.getInt(1);
-                    }
-
-                }catch (Exception ex){
-                    System.out.println(ex.getMessage()+"!!!!!");
-                }
-                System.out.println(id + "!!!");
-            }
-        });
-
-        proNameBox.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-
-            }
-        });
-    }
-
-    public  void LoadAllCustomerToComboBox(){
-        try{
-            statement = connection.createStatement();
-            String sqlCustomer  = "SELECT concat(fname,\" \",lname)  FROM customer";
-            ResultSet resultCustomerName = statement.executeQuery(sqlCustomer);
-
-            while (resultCustomerName.next()){
-                cusNameBox.addItem(resultCustomerName.getString(1).toString())  ;
-                System.out.println(resultCustomerName.getString(1).toString());
-            }
-        }catch (Exception ex){
-            System.out.println(ex.getMessage()+"!!!!!");
-        }
-        cusNameBox.setEditable(true);
-    }
-
-    public  void LoadAllProductToComboBox(){
-        try{
-            statement = connection.createStatement();
-            String sqlProduct = "SELECT productName FROM product";
-            ResultSet resultProductName = statement.executeQuery(sqlProduct);
-
-            while (resultProductName.next()){
-                proNameBox.addItem(resultProductName.getString(1).toString())  ;
-                System.out.println(resultProductName.getString(1).toString());
-            }
-
-        }catch (Exception ex){
-            System.out.println(ex.getMessage()+"!!!!!");
-        }
-        proNameBox.setEditable(true);
-
-    }
-    public  void LoadAllCustomersByName(){
-        DefaultTableModel model = (DefaultTableModel) cusDb.getModel();
-        //clear row in table
-        model.setRowCount(0);
-        PreparedStatement preparedStatement;
-        Connection connection = storeConnection.connect();
-        Statement statement;
-        try {
-            statement = connection.createStatement();
-            String sql = "SELECT id , fname as firstname , lname as lastname  ,p.productName,p.price,o.totalAmount,o.profit ,od.quantityOrdered,od.priceEach \n" +
-                    "FROM product p  join  orderdetail od on p.productId = od.productId\n" +
-                    "right join orders o on od.orderId = o.orderId\n" +
-                    "right join customer c on c.id = o.customer_id where  concat(fname,\" \",lname)  like \"%"+cusFullnameField.getText()+ "%\"";
-            ResultSet results = statement.executeQuery(sql);
-            ResultSetMetaData rsmd = results.getMetaData();
-            int cols = rsmd.getColumnCount();
-            String[] columnNames = new String[cols];
-            for (int i = 0; i < cols; i++) {
-                columnNames[i] = rsmd.getColumnName(i + 1);
-                if ( columnNames[i] .equalsIgnoreCase("fname" )) {
-                    columnNames[i]  ="firstname" ;
-                }  else if (columnNames[i] .equalsIgnoreCase("lname" )) {
-                    columnNames[i]  ="lastname";
-                }
-            }
-            //ชื่อ column
-            model.setColumnIdentifiers(columnNames);
-
-
-            while (results.next()){
-                //สร้างตัวแปลเพื่อมาเก็บ field
-
-                id =  results.getInt(1);
-                firstname = results.getString(2);
-                lastname = results.getString(3);
-                productName = results.getString(4);
-                quantityInStock  = results.getString(5);
-                price = results.getString(6);
-                volume =  results.getString(7);
-                String[] row = {String.valueOf(id),  firstname, lastname, productName, quantityInStock, price, volume};
-                model.addRow(row);
-            }
-          //  System.out.println( model.getRowCount());
-            if ( model.getRowCount()==1) {
-                fname.setText(firstname);
-                lname.setText(lastname);
-            }
-        }  catch (SQLException ex) {
-        Logger.getLogger(Home.class.getName()).log(Level.SEVERE, null, ex);
-    }
-        }
-
-    public  void LoadAllProductByName(){
-        DefaultTableModel model = (DefaultTableModel) proDb.getModel();
-        //clear row in table
-        model.setRowCount(0);
-        PreparedStatement preparedStatement;
-        Connection connection = storeConnection.connect();
-        Statement statement;
-        try {
-            statement = connection.createStatement();
-            String sql = "SELECT productId , productName  , quantityInStock  ,price,volume \n" +
-                    "FROM product \n" +
-                    "where  productName like \"%"+pName.getText()+ "%\"";
-            ResultSet results = statement.executeQuery(sql);
-            ResultSetMetaData rsmd = results.getMetaData();
-            int cols = rsmd.getColumnCount();
-            String[] columnNames = new String[cols];
-            for (int i = 0; i < cols; i++) {
-                columnNames[i] = rsmd.getColumnName(i + 1);
-            }
-            //ชื่อ column
-            model.setColumnIdentifiers(columnNames);
-
-
-            while (results.next()){
-                //สร้างตัวแปลเพื่อมาเก็บ field
-                productId =  results.getInt(1);
-                productName = results.getString(2);
-                quantityInStock  = results.getString(3);
-                price = results.getString(4);
-                volume =  results.getString(5);
-                String[] row = {String.valueOf(productId), productName, quantityInStock, price, volume};
-                model.addRow(row);
-            }
-            System.out.println( model.getRowCount());
-            if ( model.getRowCount()==1) {
-                pName.setText(productName);
-                pStock.setText(quantityInStock);
-                pPrice.setText(String.valueOf(price));
-                pVolume.setText(String.valueOf(volume));
-            }
-        }  catch (SQLException ex) {
-            Logger.getLogger(Home.class.getName()).log(Level.SEVERE, null, ex);
-        }
-    }
-    public static void main(String[] args) {
-
-
-        Home home = new Home();
-        home.LoadAllCustomerToComboBox();
-        home.LoadAllProductToComboBox();
-        home.setContentPane(home.JpanalMain);
-        home.setTitle("Store Management");
-        home.setSize(600, 600);
-        home.setVisible(true);
-        home.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-
-    }
-}
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.event.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class Home extends JFrame{
+    private JTabbedPane tabbedPane1;
+    private JLabel Jfirstname;
+    private JLabel form3;
+    private JPanel JpanalMain;
+    private JPanel page1;
+    private JPanel page3;
+    private JPanel page6;
+    private JLabel Jlastname;
+    private JTextField fname;
+    private JTextField lname;
+    private JButton cAdd;
+    private JTable cusDb;
+    private JButton cSearch;
+    private JButton cUpdate;
+    private JButton cDelete;
+    private JButton cNew;
+    private JTextField pPrice;
+    private JLabel cusFullname;
+    private JButton pAdd;
+    private JButton pUpdate;
+    private JButton pDelete;
+    private JButton pNew;
+    private JTable proDb;
+    private JButton pSearch;
+    private JTextField pName;
+    private JTextField pStock;
+    private JLabel customerName;
+    private JLabel Date;
+    private JTextField textField5;
+    private JLabel totalAmout;
+    private JTextField textField6;
+    private JButton oUpdate;
+    private JTextField cusFullnameField;
+    private JTextField pVolume;
+    private JTextField textField7;
+    private JTextField textField8;
+    private JTextField textField9;
+    private JComboBox<String> proNameBox;
+    private JComboBox<String> cusNameBox;
+    private JButton oAdd;
+    private JButton oDelete;
+    private JButton oCheckout;
+    private JTable cartDb;
+    private JPanel page8;
+    private JComboBox<TopNTracker.Window> dWindow;
+    private JLabel topProductsLabel;
+    private JLabel topCustomersLabel;
+    private JTable topProductsDb;
+    private JTable topCustomersDb;
+    private JLabel lowStockLabel;
+    private JTable lowStockDb;
+    //ข้อมูลที่เลือกอยู่ในแต่ละแท็บ
+    private Customer selectedCustomer;
+    private Product selectedProduct;
+    private Integer orderCustomerId;
+    //ตารางแสดงทุกแถวอยู่ (ไม่ได้ค้นหาจากฐานข้อมูล) ค้นหาในแถวที่โหลดไว้แล้วได้เลย
+    private boolean customerGridShowsAll;
+    private boolean productGridShowsAll;
+
+    private static final int GRID_PAGE_SIZE = 200;
+    private static final int GRID_CACHED_PAGES = 8;
+    private static final int CUSTOMER_SEARCH_LIMIT = 500;
+    private static final int COMBO_VISIBLE_LIMIT = 100;
+    private static final int TOP_SELLERS_SIZE = Integer.getInteger("storemom.dashboard.topN", 5);
+    private static final String DASHBOARD_TITLE = "Dashboard";
+    private static final String OFFLINE_MESSAGE = "Database is offline, saved on this computer and will be sent when it is back";
+
+    //งาน JDBC ทั้งหมดรันนอก EDT ผ่าน DbExecutor แล้วค่อยอัปเดต UI ใน callback
+    private final DbExecutor dbExecutor = DbExecutor.get();
+    //อ่าน/เขียนผ่าน service ตรงกับฐานข้อมูล หรือผ่าน StoreServer เมื่อตั้ง storemom.server.url
+    private final StoreService store = StoreService.create();
+    //สำเนาตาราง product ใน memory ดึงเฉพาะแถวที่เปลี่ยนตาม updated_at
+    private final ProductCatalog productCatalog = new ProductCatalog(store,
+            Long.getLong("storemom.catalog.reconcileMs", 300_000L), Long.getLong("storemom.catalog.syncLagMs", 60_000L));
+    //บันทึกการแก้ไขลงไฟล์ในเครื่องเมื่อต่อฐานข้อมูลไม่ได้ แล้วส่งตามไปทีหลัง
+    private final OfflineJournal offlineJournal = openOfflineJournal();
+    //แก้ไขสินค้าติดๆ กันหลายรายการจะ commit รวมกันครั้งเดียว
+    private final WriteBatcher productWrites = new WriteBatcher(dbExecutor, offlineJournal,
+            Long.getLong("storemom.uow.coalesceMs", 200L), Integer.getInteger("storemom.uow.maxBatch", 50));
+    //รายชื่อลูกค้าใน memory ใช้ค้นหาและแปลงชื่อเป็น id โดยไม่ต้อง query
+    private final CustomerIndex customerIndex = new CustomerIndex();
+    //ตารางโหลดข้อมูลทีละหน้าตามที่ scroll ถึง ไม่โหลดทั้งตารางเข้า memory
+    private final GridModel customerGrid = GridModel.create(GRID_PAGE_SIZE, GRID_CACHED_PAGES);
+    private final GridModel productGrid = GridModel.create(GRID_PAGE_SIZE, GRID_CACHED_PAGES);
+    private final FilteringComboBoxModel customerNames = new FilteringComboBoxModel(COMBO_VISIBLE_LIMIT);
+    private final FilteringComboBoxModel productNames = new FilteringComboBoxModel(COMBO_VISIBLE_LIMIT);
+    private final OrderCart orderCart = new OrderCart();
+    private final StockLedger stockLedger = new StockLedger();
+    //สินค้าขายดี/ลูกค้ายอดซื้อสูงสุด นับจาก order ของเครื่องนี้และที่ส่งมาทาง bus และโหลดยอดรวมจากฐานข้อมูลเป็นระยะ
+    private final TopNTracker topSellers = new TopNTracker(TOP_SELLERS_SIZE);
+    //order ที่ id ไม่เกินค่านี้นับอยู่ในยอดที่โหลดมาแล้ว ส่วน order ที่มาระหว่างโหลดเก็บไว้นับซ้ำหลัง reset
+    private int salesLoadedUpTo;
+    private int salesReloads;
+    private final List<ChangeEvent.OrderPlaced> ordersDuringReload = new ArrayList<>();
+    private final DefaultTableModel topProducts = new DefaultTableModel(new Object[]{"Product", "Quantity"}, 0);
+    private final DefaultTableModel topCustomers = new DefaultTableModel(new Object[]{"Customer", "Amount"}, 0);
+    //แจ้งเตือนสินค้าใกล้หมด ประเมินใหม่เฉพาะสินค้าที่ catalog sync เจอว่าเปลี่ยน
+    private final LowStockMonitor lowStockMonitor = new LowStockMonitor(productCatalog, store,
+            Integer.getInteger("storemom.lowstock.defaultThreshold", 10),
+            Long.getLong("storemom.catalog.syncLagMs", 60_000L));
+    private final DefaultTableModel lowStock = new DefaultTableModel(new Object[]{"Product", "In stock", "Alert below", "Days left"}, 0);
+    //การแก้ไขจากเครื่องอื่นส่งมาทาง bus อัปเดตเฉพาะแถวที่เปลี่ยน ไม่ต้องโหลดทั้งตารางใหม่
+    private final ChangeBus changeBus = ChangeBus.get();
+    //order จากเครื่องอื่นเพิ่มแถวกลางตารางลูกค้า รวมหลาย order เป็น refresh เดียว
+    private final Timer customerGridRefresh = new Timer(Integer.getInteger("storemom.bus.gridRefreshMs", 2_000),
+            e -> customerGrid.refresh());
+    private CatalogPageSource productGridSource;
+    private List<LowStockMonitor.Alert> lowStockAlerts = List.of();
+    //แต่ละแท็บโหลดข้อมูลครั้งแรกตอนถูกเปิด
+    private final Map<Component, Runnable> tabLoaders = new HashMap<>();
+    private static long mainStartedNanos;
+    private boolean painted;
+
+    public Home() {
+        cusDb.setModel(customerGrid);
+        proDb.setModel(productGrid);
+        installSorting(cusDb, customerGrid);
+        installSorting(proDb, productGrid);
+        FilteringComboBoxModel.install(cusNameBox, customerNames);
+        FilteringComboBoxModel.install(proNameBox, productNames);
+        cartDb.setModel(orderCart);
+        cartDb.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        topProductsDb.setModel(topProducts);
+        topCustomersDb.setModel(topCustomers);
+        topProductsDb.setDefaultEditor(Object.class, null);
+        topCustomersDb.setDefaultEditor(Object.class, null);
+        lowStockDb.setModel(lowStock);
+        lowStockDb.setDefaultEditor(Object.class, null);
+        lowStockDb.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        productCatalog.addListener(lowStockMonitor);
+        lowStockMonitor.setAlertListener(this::showLowStock);
+        lowStockDb.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = lowStockDb.rowAtPoint(e.getPoint());
+                if (e.getClickCount() == 2 && row >= 0) {
+                    editStockThreshold(lowStockAlerts.get(lowStockDb.convertRowIndexToModel(row)));
+                }
+            }
+        });
+        dWindow.setModel(new DefaultComboBoxModel<>(TopNTracker.Window.values()));
+        dWindow.addActionListener(e -> showTopSellers());
+        tabLoaders.put(page1, this::LoadAllCustomers);
+        tabLoaders.put(page3, this::LoadProductGrid);
+        tabLoaders.put(page8, () -> {
+            LoadTopSellers();
+            new Timer(Integer.getInteger("storemom.dashboard.reseedMs", 300_000), e -> LoadTopSellers()).start();
+        });
+        tabbedPane1.addChangeListener(e -> loadSelectedTab());
+        customerGridRefresh.setRepeats(false);
+        changeBus.addListener(new ChangeBus.Listener() {
+            @Override
+            public void changed(List<ChangeEvent> events) {
+                SwingUtilities.invokeLater(() -> {
+                    for (ChangeEvent event : events) {
+                        applyChange(event);
+                        if (event instanceof ChangeEvent.OrderPlaced && !customerGridRefresh.isRunning()) {
+                            customerGridRefresh.start();
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public void reconnected() {
+                SwingUtilities.invokeLater(() -> reloadAfterMissedChanges());
+            }
+        });
+        textField5.setText(LocalDate.now().toString());
+        textField6.setEditable(false);
+        textField7.setEditable(false);
+        customerGrid.setOnRefreshed(() -> customerGrid.getRow(0));
+        productGrid.setOnRefreshed(() -> productGrid.getRow(0));
+        customerGrid.addTableModelListener(e -> {
+            if (customerGrid.getRowCount()==1 && customerGrid.isLoaded(0)) {
+                selectCustomerRow(0);
+            }
+        });
+        productGrid.addTableModelListener(e -> {
+            if (productGrid.getRowCount()==1 && productGrid.isLoaded(0)) {
+                selectProductRow(0);
+            }
+        });
+        cusDb.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting() && cusDb.getSelectedRow() >= 0) {
+                selectCustomerRow(cusDb.convertRowIndexToModel(cusDb.getSelectedRow()));
+            }
+        });
+        proDb.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting() && proDb.getSelectedRow() >= 0) {
+                selectProductRow(proDb.convertRowIndexToModel(proDb.getSelectedRow()));
+            }
+        });
+        cartDb.getSelectionModel().addListSelectionListener(e -> {
+            if (!e.getValueIsAdjusting() && cartDb.getSelectedRow() >= 0) {
+                selectCartRow(cartDb.convertRowIndexToModel(cartDb.getSelectedRow()));
+            }
+        });
+
+        cAdd.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                String first = fname.getText();
+                String last = lname.getText();
+                if (first.isBlank()||last.isBlank()){
+                    JOptionPane.showMessageDialog(cAdd, "An error occur to add customer");
+                    return;
+                }
+                dbExecutor.submit(DbExecutor.Kind.WRITE, "customer.add", () -> offlineJournal.write(new Mutation.CustomerInsert(first, last)), customer -> {
+                    if (customer == null) {
+                        JOptionPane.showMessageDialog(cAdd, OFFLINE_MESSAGE);
+                    } else {
+                        applyChange(new ChangeEvent.CustomerSaved(customer));
+                        JOptionPane.showMessageDialog(cAdd, "Customer Added Successfully");
+                    }
+                    fname.setText("");
+                    lname.setText("");
+                }, ex -> showError(cAdd, "An error occur to add customer", ex));
+            }
+        });
+        cUpdate.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                String first = fname.getText();
+                String last = lname.getText();
+                Customer current = selectedCustomer;
+                if (first.isBlank()||last.isBlank()||current==null){
+                    JOptionPane.showMessageDialog(cUpdate, "An error occur to update customer");
+                    return;
+                }
+                Customer updated = new Customer(current.id(), first, last);
+                dbExecutor.submit(DbExecutor.Kind.WRITE, "customer.update", () -> offlineJournal.write(new Mutation.CustomerUpdate(updated)), ok -> {
+                    if (ok == null || ok){
+                        applyChange(new ChangeEvent.CustomerSaved(updated));
+                        JOptionPane.showMessageDialog(cUpdate, ok == null ? OFFLINE_MESSAGE : "Customer Update Successfully");
+                        selectedCustomer = null;
+                        fname.setText("");
+                        lname.setText("");
+                    }else {
+                        JOptionPane.showMessageDialog(cUpdate, "An error occur to update customer");
+                    }
+                }, ex -> showError(cUpdate, "An error occur to update customer", ex));
+            }
+        });
+
+        cSearch.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+               if (!cusFullnameField.getText().isBlank()){
+                   LoadAllCustomersByName();
+               }
+            }
+        });
+        cDelete.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                Customer current = selectedCustomer;
+                if (fname.getText().isBlank()||lname.getText().isBlank()||current==null){
+                    JOptionPane.showMessageDialog(cAdd, "An error occur to delete customer");
+                    return;
+                }
+                dbExecutor.submit(DbExecutor.Kind.WRITE, "customer.delete", () -> offlineJournal.write(new Mutation.CustomerDelete(current.id())), ok -> {
+                    if (ok == null || ok){
+                        applyChange(new ChangeEvent.CustomerDeleted(current.id()));
+                        JOptionPane.showMessageDialog(cAdd, ok == null ? OFFLINE_MESSAGE : "Customer Delete Successfully");
+                        selectedCustomer = null;
+                        fname.setText("");
+                        lname.setText("");
+                    }else {
+                        JOptionPane.showMessageDialog(cAdd, "An error occur to delete customer");
+                    }
+                }, ex -> showError(cAdd, "An error occur to delete customer", ex));
+            }
+        });
+        cNew.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                LoadAllCustomers();
+            }
+        });
+
+        pSearch.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (!pName.getText().isBlank()){
+                LoadAllProductByName();
+                }
+            }
+        });
+
+        pAdd.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                Product product = readProductFields(pAdd, 0, "An error occur to add Product");
+                if (product == null) {
+                    return;
+                }
+                dbExecutor.submit(DbExecutor.Kind.WRITE, "product.add", () -> offlineJournal.write(new Mutation.ProductInsert(product)), added -> {
+                    if (added == null) {
+                        JOptionPane.showMessageDialog(cAdd, OFFLINE_MESSAGE);
+                    } else {
+                        applyChange(new ChangeEvent.ProductSaved(added));
+                        JOptionPane.showMessageDialog(cAdd, "Product Added Successfully");
+                    }
+                    clearProductFields();
+                }, ex -> showError(cAdd, "An error occur to add Product", ex));
+            }
+        });
+        pUpdate.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                Product current = selectedProduct;
+                if (current == null) {
+                    JOptionPane.showMessageDialog(cUpdate, "An error occur to update Product");
+                    return;
+                }
+                Product product = readProductFields(cUpdate, current.productId(), "An error occur to update Product");
+                if (product == null) {
+                    return;
+                }
+                productWrites.submit(new Mutation.ProductUpdate(current, product), ok -> {
+                    if (ok == null || ok){
+                        applyChange(new ChangeEvent.ProductSaved(product));
+                        JOptionPane.showMessageDialog(cUpdate, ok == null ? OFFLINE_MESSAGE : "Product Update Successfully");
+                        clearProductFields();
+                    }else {
+                        reloadConflictingProduct(current);
+                    }
+                }, ex -> showError(cUpdate, "An error occur to update Product", ex));
+            }
+
+        });
+
+        pDelete.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                Product current = selectedProduct;
+                if (pName.getText().isBlank()||pStock.getText().isBlank()||pPrice.getText().isBlank()||current==null){
+                    JOptionPane.showMessageDialog(cAdd, "An error occur to delete Product");
+                    return;
+                }
+                dbExecutor.submit(DbExecutor.Kind.WRITE, "product.delete", () -> offlineJournal.write(new Mutation.ProductDelete(current.productId())), ok -> {
+                    if (ok == null || ok){
+                        applyChange(new ChangeEvent.ProductDeleted(current.productId()));
+                        JOptionPane.showMessageDialog(cAdd, ok == null ? OFFLINE_MESSAGE : "Product Delete Successfully");
+                        clearProductFields();
+                    }else {
+                        JOptionPane.showMessageDialog(cAdd, "An error occur to delete Product");
+                    }
+                }, ex -> showError(cAdd, "An error occur to delete Product", ex));
+            }
+        });
+        pNew.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                LoadProductGrid();
+            }
+        });
+        oAdd.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                Product product = findOrderProduct();
+                LineFields line = product == null ? null : readOrderLineFields(product);
+                if (line == null) {
+                    JOptionPane.showMessageDialog(oAdd, "An error occur to add order");
+                    return;
+                }
+                if (!stockLedger.reserve(product.productId(), line.quantity(), product.quantityInStock())) {
+                    showNotEnoughStock(oAdd, product);
+                    return;
+                }
+                orderCart.add(product, line.quantity(), line.priceEach());
+                showCartTotals();
+            }
+        });
+        oUpdate.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                Product product = findOrderProduct();
+                LineFields line = product == null ? null : readOrderLineFields(product);
+                CartLine current = product == null ? null : orderCart.line(product.productId());
+                if (line == null || current == null) {
+                    JOptionPane.showMessageDialog(oUpdate, "An error occur to update order");
+                    return;
+                }
+                int more = line.quantity() - current.quantity();
+                if (more > 0 && !stockLedger.reserve(product.productId(), more, product.quantityInStock())) {
+                    showNotEnoughStock(oUpdate, product);
+                    return;
+                }
+                stockLedger.release(product.productId(), Math.max(0, -more));
+                orderCart.update(product, line.quantity(), line.priceEach());
+                showCartTotals();
+            }
+        });
+        oDelete.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                Product product = findOrderProduct();
+                CartLine current = product == null ? null : orderCart.line(product.productId());
+                if (current == null) {
+                    JOptionPane.showMessageDialog(oDelete, "An error occur to delete order");
+                    return;
+                }
+                orderCart.remove(product.productId());
+                stockLedger.release(product.productId(), current.quantity());
+                showCartTotals();
+            }
+        });
+        oCheckout.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                Integer customerId = orderCustomerId;
+                LocalDateTime orderDate = readOrderDate();
+                if (customerId == null || orderDate == null || orderCart.isEmpty()) {
+                    JOptionPane.showMessageDialog(oCheckout, "An error occur to add order");
+                    return;
+                }
+                List<CartLine> lines = orderCart.lines();
+                dbExecutor.submit(DbExecutor.Kind.WRITE, "order.place", () -> offlineJournal.write(new Mutation.PlaceOrder(customerId, orderDate, lines)), order -> {
+                    JOptionPane.showMessageDialog(oCheckout, order == null ? OFFLINE_MESSAGE : "Order Added Successfully");
+                    applyChange(new ChangeEvent.OrderPlaced(order == null ? 0 : order.orderId(), customerId, orderDate,
+                            lines, order == null ? Map.of() : order.stockAfter()));
+                    for (CartLine line : lines) {
+                        stockLedger.release(line.productId(), line.quantity());
+                    }
+                    orderCart.clear();
+                    showCartTotals();
+                    textField8.setText("");
+                    textField9.setText("");
+                    customerGrid.refresh();
+                }, ex -> {
+                    if (ex instanceof OutOfStockException) {
+                        //สต็อกถูกขายไปจากเครื่องอื่นแล้ว ดึงสต็อกล่าสุดมาให้ผู้ใช้แก้จำนวน
+                        dbExecutor.submit(DbExecutor.Kind.READ, "product.sync", () -> {
+                            productCatalog.sync();
+                            return null;
+                        }, ignored -> JOptionPane.showMessageDialog(oCheckout, "Not enough stock, please check the order quantity"));
+                        return;
+                    }
+                    showError(oCheckout, "An error occur to add order", ex);
+                });
+            }
+        });
+        cusNameBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                String name = (String) cusNameBox.getSelectedItem();
+                if (name == null || name.isBlank()) {
+                    return;
+                }
+                customerIndex.resolveId(name).ifPresent(customerId -> orderCustomerId = customerId);
+            }
+        });
+
+        proNameBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                Product product = findOrderProduct();
+                if (product != null && textField9.getText().isBlank()) {
+                    textField9.setText(Money.format(product.price()));
+                }
+            }
+        });
+
+        offlineJournal.startReplay(Long.getLong("storemom.journal.retryMs", 5_000L), sent -> SwingUtilities.invokeLater(() -> {
+            //ส่งรายการที่ค้างไว้ตอน offline สำเร็จแล้ว โหลดข้อมูลลูกค้าใหม่ให้มี id ที่เพิ่งได้
+            LoadAllCustomerToComboBox();
+            customerGrid.refresh();
+        }));
+    }
+
+    public  void LoadAllCustomerToComboBox(){
+        dbExecutor.submit(DbExecutor.Kind.READ, "customer.load", () -> {
+            List<Customer> customers = store.customers();
+            customerIndex.build(customers);
+            return customers;
+        }, customers -> {
+            List<String> names = new ArrayList<>(customers.size());
+            for (Customer customer : customers) {
+                names.add(customer.fullName());
+            }
+            customerNames.setItems(names);
+            showTopSellers();
+        });
+    }
+
+    //bus หลุดไปช่วงหนึ่ง อาจพลาดการแก้ไขจากเครื่องอื่น โหลดรายชื่อและตารางใหม่
+    private void reloadAfterMissedChanges() {
+        LoadAllCustomerToComboBox();
+        dbExecutor.submit(DbExecutor.Kind.READ, "product.sync", () -> {
+            productCatalog.sync();
+            return productCatalog.all();
+        }, products -> {
+            showProductNames(products);
+            if (productGridShowsAll) {
+                LoadProductGrid();
+            }
+        });
+        customerGrid.refresh();
+    }
+
+    /**
+     * Applies a committed change, from this terminal's own write or from another terminal through the bus, to the
+     * caches, name lists and grids, changing only the rows it touches.
+     */
+    private void applyChange(ChangeEvent event) {
+        if (event instanceof ChangeEvent.CustomerSaved) {
+            Customer customer = ((ChangeEvent.CustomerSaved) event).customer();
+            Optional<Customer> previous = customerIndex.get(customer.id());
+            customerIndex.put(customer);
+            //เอาออกแล้วใส่ใหม่จะล้างชื่อที่เลือกไว้ในกล่อง ทำเฉพาะเมื่อชื่อเปลี่ยน
+            String previousName = previous.map(Customer::fullName).orElse(null);
+            if (!customer.fullName().equals(previousName)) {
+                customerNames.removeElement(previousName);
+                customerNames.addElement(customer.fullName());
+            }
+            int updated = customerGrid.updateRows(0, customer.id(), values -> {
+                values[1] = customer.fname();
+                values[2] = customer.lname();
+                return values;
+            });
+            if (updated == 0 && previous.isEmpty() && customerGridShowsAll
+                    && !customerGrid.appendRow(OrderRepository.customerGridRow(customer))) {
+                customerGrid.refresh();
+            }
+            showTopSellers();
+        } else if (event instanceof ChangeEvent.CustomerDeleted) {
+            int id = ((ChangeEvent.CustomerDeleted) event).id();
+            customerIndex.remove(id).ifPresent(old -> customerNames.removeElement(old.fullName()));
+            if (!customerGrid.removeRows(0, id)) {
+                customerGrid.refresh();
+            }
+        } else if (event instanceof ChangeEvent.ProductSaved) {
+            Product product = ((ChangeEvent.ProductSaved) event).product();
+            Optional<Product> previous = productCatalog.get(product.productId());
+            productCatalog.put(product);
+            String previousName = previous.map(Product::productName).orElse(null);
+            if (!product.productName().equals(previousName)) {
+                productNames.removeElement(previousName);
+                productNames.addElement(product.productName());
+            }
+            if (productGridSource != null && (productGridShowsAll || productGridSource.contains(product.productId()))) {
+                productGridSource.put(product);
+            }
+            PageSource.Row row = CatalogPageSource.row(product);
+            int updated = productGrid.updateRows(0, product.productId(), values -> row.values().clone());
+            if (updated == 0 && previous.isEmpty() && productGridShowsAll && !productGrid.appendRow(row)) {
+                productGrid.refresh();
+            }
+            showTopSellers();
+        } else if (event instanceof ChangeEvent.ProductDeleted) {
+            int productId = ((ChangeEvent.ProductDeleted) event).productId();
+            productCatalog.get(productId).ifPresent(old -> productNames.removeElement(old.productName()));
+            productCatalog.remove(productId);
+            if (productGridSource != null) {
+                productGridSource.remove(productId);
+            }
+            if (!productGrid.removeRows(0, productId)) {
+                productGrid.refresh();
+            }
+        } else if (event instanceof ChangeEvent.OrderPlaced) {
+            ChangeEvent.OrderPlaced order = (ChangeEvent.OrderPlaced) event;
+            if (salesReloads > 0) {
+                ordersDuringReload.add(order);
+            }
+            countSale(order);
+            for (CartLine line : order.lines()) {
+                //ใช้สต็อกที่ commit แล้ว ไม่ลบจากค่าใน cache ซึ่ง sync อาจอ่านค่าหลังขายมาแล้ว ลบเองเฉพาะที่ยังค้างใน offline journal
+                Integer stockAfter = order.stockAfter().get(line.productId());
+                productCatalog.get(line.productId()).ifPresent(product -> applyChange(new ChangeEvent.ProductSaved(
+                        product.withQuantityInStock(stockAfter != null ? stockAfter
+                                : product.quantityInStock() - line.quantity()))));
+            }
+            showTopSellers();
+        }
+    }
+
+    public  void LoadAllProductToComboBox(){
+        dbExecutor.submit(DbExecutor.Kind.READ, "product.load", () -> {
+            //โหลด threshold ก่อน sync ครั้งแรก สินค้าจะได้ถูกประเมินกับค่าที่ถูกต้องตั้งแต่แรก
+            lowStockMonitor.pollThresholds();
+            productCatalog.sync();
+            return productCatalog.all();
+        }, products -> {
+            showProductNames(products);
+            productCatalog.startAutoSync(Long.getLong("storemom.catalog.syncMs", 30_000L));
+            lowStockMonitor.start(Long.getLong("storemom.lowstock.thresholdSyncMs", 60_000L));
+        });
+    }
+
+    private void showProductNames(List<Product> products) {
+        List<String> names = new ArrayList<>(products.size());
+        for (Product product : products) {
+            names.add(product.productName());
+        }
+        productNames.setItems(names);
+        showTopSellers();
+    }
+
+    public  void LoadProductGrid(){
+        dbExecutor.submitLatest("product.grid", DbExecutor.Kind.SEARCH, () -> {
+            productCatalog.sync();
+            return productCatalog.all();
+        }, products -> {
+            productGridSource = new CatalogPageSource(products);
+            productGrid.setSource(productGridSource);
+            productGridShowsAll = true;
+        });
+    }
+
+    public  void LoadTopSellers(){
+        salesReloads++;
+        LocalDate today = LocalDate.now();
+        dbExecutor.submit(DbExecutor.Kind.READ, "dashboard.reseed", () -> store.salesOf(today), sales -> {
+            //reset บน EDT เหมือน order ที่มาทาง bus แล้วนับ order ที่มาระหว่างโหลดและยังไม่อยู่ในยอดซ้ำอีกครั้ง
+            topSellers.reset(TopNTracker.Window.TODAY, today, sales.day());
+            topSellers.reset(TopNTracker.Window.THIS_MONTH, today, sales.month());
+            lowStockMonitor.resetSales(sales.month(), today.getDayOfMonth());
+            salesLoadedUpTo = sales.lastOrderId();
+            for (ChangeEvent.OrderPlaced order : ordersDuringReload) {
+                countSale(order);
+            }
+            reloadDone();
+            showTopSellers();
+        }, ex -> {
+            Logger.getLogger(Home.class.getName()).log(Level.SEVERE, null, ex);
+            reloadDone();
+        });
+    }
+
+    private void reloadDone() {
+        if (--salesReloads == 0) {
+            ordersDuringReload.clear();
+        }
+    }
+
+    private void countSale(ChangeEvent.OrderPlaced order) {
+        if (order.orderId() != 0 && order.orderId() <= salesLoadedUpTo) {
+            return;
+        }
+        topSellers.orderPlaced(order.customerId(), order.orderDate(), order.lines());
+        lowStockMonitor.sold(order.lines());
+    }
+
+    public  void LoadAllCustomers(){
+        customerGrid.setSource(store.customerGrid(null));
+        customerGridShowsAll = true;
+    }
+
+    public  void LoadAllCustomersByName(){
+        String text = cusFullnameField.getText();
+        if (customerGridShowsAll && customerIndex.isLoaded()) {
+            Set<Integer> ids = new HashSet<>();
+            for (Customer customer : customerIndex.search(text, CUSTOMER_SEARCH_LIMIT)) {
+                ids.add(customer.id());
+            }
+            if (customerGrid.filter(0, id -> id != null && ids.contains(((Number) id).intValue()))) {
+                return;
+            }
+        }
+        customerGridShowsAll = false;
+        if (!customerIndex.isLoaded()) {
+            customerGrid.setSource(store.customerGrid(text));
+            return;
+        }
+        List<Integer> ids = new ArrayList<>();
+        for (Customer customer : customerIndex.search(text, CUSTOMER_SEARCH_LIMIT)) {
+            ids.add(customer.id());
+        }
+        customerGrid.setSource(store.customerGridByIds(ids));
+    }
+
+    public  void LoadAllProductByName(){
+        if (!productCatalog.isLoaded()) {
+            productGridShowsAll = false;
+            productGridSource = null;
+            productGrid.setSource(store.productGrid(pName.getText()));
+            return;
+        }
+        List<Product> found = productCatalog.findByName(pName.getText());
+        Set<Integer> ids = new HashSet<>();
+        for (Product product : found) {
+            ids.add(product.productId());
+        }
+        if (productGridShowsAll && productGrid.filter(0, ids::contains)) {
+            return;
+        }
+        productGridShowsAll = false;
+        productGridSource = new CatalogPageSource(found);
+        productGrid.setSource(productGridSource);
+    }
+
+    //คลิกหัวตารางเพื่อเรียงตามคอลัมน์นั้น คลิกซ้ำเพื่อสลับลำดับ (เรียงได้เมื่อโหลดครบทุกแถวแล้ว)
+    private static void installSorting(JTable table, GridModel grid) {
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            private int column = -1;
+            private boolean ascending;
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int clicked = table.convertColumnIndexToModel(table.columnAtPoint(e.getPoint()));
+                boolean nextAscending = clicked != column || !ascending;
+                if (clicked >= 0 && grid.sort(clicked, nextAscending)) {
+                    column = clicked;
+                    ascending = nextAscending;
+                }
+            }
+        });
+    }
+
+    private void loadSelectedTab() {
+        Runnable loader = tabLoaders.remove(tabbedPane1.getSelectedComponent());
+        if (loader != null) {
+            loader.run();
+        }
+    }
+
+    //วาดหน้าต่างครั้งแรกเสร็จแล้วค่อยเริ่มโหลดข้อมูล หน้าจอจึงขึ้นเร็วไม่ว่าข้อมูลจะมีมากแค่ไหน
+    @Override
+    public void paint(Graphics g) {
+        super.paint(g);
+        if (!painted) {
+            painted = true;
+            SwingUtilities.invokeLater(this::firstPainted);
+        }
+    }
+
+    private void firstPainted() {
+        long sinceMain = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mainStartedNanos);
+        long sinceJvmStart = ManagementFactory.getRuntimeMXBean().getUptime();
+        Logger.getLogger(Home.class.getName()).log(sinceJvmStart > 1_000 ? Level.WARNING : Level.INFO,
+                "First paint " + sinceJvmStart + "ms after JVM start, " + sinceMain + "ms after main()");
+        if (Boolean.getBoolean("storemom.startup.exitAfterPaint")) {
+            System.exit(0);
+        }
+        //ลูกค้ากับสินค้าโหลดพร้อมกันคนละ thread
+        LoadAllCustomerToComboBox();
+        LoadAllProductToComboBox();
+        loadSelectedTab();
+    }
+
+    private void selectCustomerRow(int row) {
+        Object[] values = customerGrid.getRow(row);
+        if (values == null) {
+            return;
+        }
+        selectedCustomer = OrderRepository.customerOfGridRow(values);
+        fname.setText(selectedCustomer.fname());
+        lname.setText(selectedCustomer.lname());
+    }
+
+    private void selectProductRow(int row) {
+        Object[] values = productGrid.getRow(row);
+        if (values == null) {
+            return;
+        }
+        showProduct(ProductRepository.fromGridRow(values));
+    }
+
+    private void showProduct(Product product) {
+        selectedProduct = product;
+        pName.setText(product.productName());
+        pStock.setText(String.valueOf(product.quantityInStock()));
+        pPrice.setText(Money.format(product.price()));
+        pVolume.setText(product.volume() == null ? "" : product.volume());
+    }
+
+    private Product readProductFields(JComponent parent, int productId, String errorMessage) {
+        if (pName.getText().isBlank()||pStock.getText().isBlank()||pPrice.getText().isBlank()){
+            JOptionPane.showMessageDialog(parent, errorMessage);
+            return null;
+        }
+        //ฟอร์มไม่มีช่องคำอธิบาย ใช้ค่าเดิมจาก catalog ไม่ให้ event ไปล้างคำอธิบายใน cache ของทุกเครื่อง
+        String description = productCatalog.get(productId).map(Product::description).orElse(null);
+        try {
+            //ราคา (ราคาทุน) และสต็อกติดลบไม่ได้ ไม่งั้นกำไรของ order ที่ขายสินค้านี้จะผิด
+            int stock = Integer.parseInt(pStock.getText().trim());
+            long price = Money.parse(pPrice.getText());
+            if (stock < 0 || price < 0) {
+                JOptionPane.showMessageDialog(parent, errorMessage);
+                return null;
+            }
+            return new Product(productId, pName.getText(), stock, price, pVolume.getText(), description);
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(parent, errorMessage);
+            return null;
+        }
+    }
+
+    private void clearProductFields() {
+        selectedProduct = null;
+        pName.setText("");
+        pStock.setText("");
+        pPrice.setText("");
+        pVolume.setText("");
+    }
+
+    private void reloadConflictingProduct(Product current) {
+        dbExecutor.submit(DbExecutor.Kind.READ, "product.refresh", () -> store.product(current.productId()), latest -> {
+            if (latest.isEmpty()) {
+                applyChange(new ChangeEvent.ProductDeleted(current.productId()));
+                JOptionPane.showMessageDialog(pUpdate, "This product has been deleted");
+                clearProductFields();
+                return;
+            }
+            applyChange(new ChangeEvent.ProductSaved(latest.get()));
+            showProduct(latest.get());
+            JOptionPane.showMessageDialog(pUpdate, "This product was changed on another terminal, please check and update again");
+        }, ex -> showError(pUpdate, "An error occur to update Product", ex));
+    }
+
+    private void showNotEnoughStock(JComponent parent, Product product) {
+        JOptionPane.showMessageDialog(parent, "Not enough stock, " + product.productName() + " has "
+                + stockLedger.available(product.productId(), product.quantityInStock()) + " left");
+    }
+
+    private void selectCartRow(int row) {
+        CartLine line = orderCart.lineAt(row);
+        productNames.setSelectedItem(line.productName());
+        textField8.setText(String.valueOf(line.quantity()));
+        textField9.setText(Money.format(line.priceEach()));
+    }
+
+    private Product findOrderProduct() {
+        String name = (String) proNameBox.getSelectedItem();
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        return productCatalog.findFirstByName(name).orElse(null);
+    }
+
+    //จำนวนและราคาขายต่อชิ้น (สตางค์) ที่กรอกในหน้า order
+    private record LineFields(int quantity, long priceEach) {
+    }
+
+    //ถ้าไม่กรอกราคาขายจะใช้ราคาสินค้า ราคากรอกเป็นบาทได้ถึงสตางค์ เช่น 12.50
+    private LineFields readOrderLineFields(Product product) {
+        try {
+            int quantity = Integer.parseInt(textField8.getText().trim());
+            long priceEach = textField9.getText().isBlank() ? product.price() : Money.parse(textField9.getText());
+            return quantity > 0 && priceEach >= 0 ? new LineFields(quantity, priceEach) : null;
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private LocalDateTime readOrderDate() {
+        String text = textField5.getText().trim();
+        if (text.isEmpty()) {
+            return LocalDateTime.now();
+        }
+        try {
+            return LocalDate.parse(text).atTime(LocalTime.now().withNano(0));
+        } catch (DateTimeParseException ex) {
+            return null;
+        }
+    }
+
+    private void showCartTotals() {
+        textField6.setText(Money.format(orderCart.totalAmount()));
+        textField7.setText(Money.format(orderCart.profit()));
+    }
+
+    private void showTopSellers() {
+        TopNTracker.Window window = (TopNTracker.Window) dWindow.getSelectedItem();
+        topProducts.setRowCount(0);
+        for (TopNTracker.Entry entry : topSellers.topProducts(window)) {
+            String name = productCatalog.get(entry.id()).map(Product::productName).orElse("#" + entry.id());
+            topProducts.addRow(new Object[]{name, entry.value()});
+        }
+        topCustomers.setRowCount(0);
+        for (TopNTracker.Entry entry : topSellers.topCustomers(window)) {
+            String name = customerIndex.get(entry.id()).map(Customer::fullName).orElse("#" + entry.id());
+            topCustomers.addRow(new Object[]{name, Money.format(entry.value())});
+        }
+    }
+
+    private void showLowStock(List<LowStockMonitor.Alert> alerts) {
+        lowStockAlerts = alerts;
+        lowStock.setRowCount(0);
+        for (LowStockMonitor.Alert alert : alerts) {
+            double daysLeft = alert.daysLeft();
+            lowStock.addRow(new Object[]{alert.productName(), alert.quantityInStock(), alert.threshold(),
+                    Double.isInfinite(daysLeft) ? "-" : String.format("%.1f", daysLeft)});
+        }
+        int tab = tabbedPane1.indexOfComponent(page8);
+        tabbedPane1.setTitleAt(tab, alerts.isEmpty() ? DASHBOARD_TITLE : DASHBOARD_TITLE + " (" + alerts.size() + ")");
+    }
+
+    private void editStockThreshold(LowStockMonitor.Alert alert) {
+        String text = JOptionPane.showInputDialog(lowStockDb, "Alert when " + alert.productName()
+                + " is below (empty = default)", alert.threshold());
+        if (text == null) {
+            return;
+        }
+        Integer threshold;
+        try {
+            threshold = text.isBlank() ? null : Integer.valueOf(text.trim());
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(lowStockDb, "An error occur to set the alert level");
+            return;
+        }
+        dbExecutor.submit(DbExecutor.Kind.WRITE, "stockThreshold.set", () -> {
+            store.setThreshold(alert.productId(), threshold);
+            lowStockMonitor.pollThresholds();
+            return null;
+        }, ignored -> { }, ex -> showError(lowStockDb, "An error occur to set the alert level", ex));
+    }
+
+    private OfflineJournal openOfflineJournal() {
+        Path path = Paths.get(System.getProperty("storemom.journal.path",
+                Paths.get(System.getProperty("user.home"), ".storemom", "journal.dat").toString()));
+        try {
+            WriteJournal journal = new WriteJournal(path, Integer.getInteger("storemom.journal.sizeMb", 16) * 1024 * 1024);
+            return new OfflineJournal(journal, store, Integer.getInteger("storemom.journal.replayBatch", 200));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open write journal " + path, ex);
+        }
+    }
+
+    private static void showError(JComponent parent, String message, Throwable ex) {
+        Logger.getLogger(Home.class.getName()).log(Level.SEVERE, null, ex);
+        JOptionPane.showMessageDialog(parent, message);
+    }
+
+    public static void main(String[] args) {
+        mainStartedNanos = System.nanoTime();
+        SwingUtilities.invokeLater(() -> {
+            Home home = new Home();
+            home.setContentPane(home.JpanalMain);
+            home.setTitle("Store Management");
+            home.setSize(600, 600);
+            home.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            home.setVisible(true);
+        });
+    }
+}
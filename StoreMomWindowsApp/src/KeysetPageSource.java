@@ -0,0 +1,205 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link PageSource} over a SQL select ordered by one or more non-null key expressions.
+ * Pages are read with {@code WHERE key > ? ORDER BY key LIMIT n}, so the cost of a page does not grow with its position.
+ */
+public class KeysetPageSource implements PageSource {
+    private static final Logger LOGGER = Logger.getLogger(KeysetPageSource.class.getName());
+
+    private final String[] columnNames;
+    private final String selectList;
+    private final String from;
+    private final String where;
+    private final Object[] params;
+    private final String[] keyExpressions;
+
+    public KeysetPageSource(String[] columnNames, String selectList, String from, String where, Object[] params,
+                            String... keyExpressions) {
+        if (keyExpressions.length == 0) {
+            throw new IllegalArgumentException("at least one key expression is required");
+        }
+        this.columnNames = columnNames.clone();
+        this.selectList = selectList;
+        this.from = from;
+        this.where = where;
+        this.params = params == null ? new Object[0] : params.clone();
+        this.keyExpressions = keyExpressions.clone();
+    }
+
+    @Override
+    public String[] columnNames() {
+        return columnNames.clone();
+    }
+
+    @Override
+    public int count() throws SQLException {
+        String sql = "SELECT COUNT(*) FROM " + from + (where == null ? "" : " WHERE " + where);
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            bindParams(preparedStatement, 1);
+            try (ResultSet results = preparedStatement.executeQuery()) {
+                return results.next() ? results.getInt(1) : 0;
+            }
+        }
+    }
+
+    @Override
+    public List<Row> fetch(Object[] afterKey, int limit) throws SQLException {
+        String sql = "SELECT " + selectList + ", " + String.join(", ", keyExpressions)
+                + " FROM " + from + whereAfter(afterKey) + orderBy() + " LIMIT ?";
+        List<Row> rows = new ArrayList<>(limit);
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            int index = bindParams(preparedStatement, 1);
+            index = bindKey(preparedStatement, index, afterKey);
+            preparedStatement.setInt(index, limit);
+            try (ResultSet results = preparedStatement.executeQuery()) {
+                while (results.next()) {
+                    rows.add(readRow(results));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Reads up to {@code maxRows} rows with one query. With {@code useCursorFetch=true} on the URL the server hands
+     * them out {@code fetchSize} at a time; otherwise Connector/J streams them row by row. Either way the driver does
+     * not buffer the whole result. If the sink stops early on a row-by-row stream the connection is aborted, since
+     * closing that result set would read every remaining row off the socket first; the pool then discards it.
+     */
+    @Override
+    public void stream(int fetchSize, int maxRows, RowSink sink) throws SQLException {
+        String sql = "SELECT " + selectList + ", " + String.join(", ", keyExpressions)
+                + " FROM " + from + whereAfter(null) + orderBy() + " LIMIT ?";
+        boolean rowStreaming = storeConnection.rowStreaming();
+        Connection connection = storeConnection.connect();
+        boolean drained = false;
+        try {
+            PreparedStatement preparedStatement = connection.prepareStatement(sql);
+            preparedStatement.setFetchSize(rowStreaming ? Integer.MIN_VALUE : fetchSize);
+            int index = bindParams(preparedStatement, 1);
+            preparedStatement.setInt(index, maxRows);
+            ResultSet results = preparedStatement.executeQuery();
+            while (results.next()) {
+                if (!sink.accept(readRow(results))) {
+                    return;
+                }
+            }
+            results.close();
+            preparedStatement.close();
+            drained = true;
+        } finally {
+            if (!drained && rowStreaming && UnitOfWork.joinedConnection() == null) {
+                abandon(connection);
+            }
+            connection.close();
+        }
+    }
+
+    @Override
+    public Object[] skip(Object[] afterKey, int count) throws SQLException {
+        if (count <= 0) {
+            return afterKey;
+        }
+        String sql = "SELECT " + String.join(", ", keyExpressions) + " FROM " + from + whereAfter(afterKey) + orderBy()
+                + " LIMIT 1 OFFSET ?";
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            int index = bindParams(preparedStatement, 1);
+            index = bindKey(preparedStatement, index, afterKey);
+            preparedStatement.setInt(index, count - 1);
+            try (ResultSet results = preparedStatement.executeQuery()) {
+                if (!results.next()) {
+                    return null;
+                }
+                Object[] key = new Object[keyExpressions.length];
+                for (int i = 0; i < key.length; i++) {
+                    key[i] = results.getObject(i + 1);
+                }
+                return key;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetPageSource[" + from + (where == null ? "" : " WHERE " + where) + ", params="
+                + Arrays.toString(params) + "]";
+    }
+
+    private Row readRow(ResultSet results) throws SQLException {
+        int cols = columnNames.length;
+        Object[] values = new Object[cols];
+        for (int i = 0; i < cols; i++) {
+            values[i] = results.getObject(i + 1);
+        }
+        Object[] key = new Object[keyExpressions.length];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = results.getObject(cols + i + 1);
+        }
+        return new Row(key, values);
+    }
+
+    //ปิดแบบปกติ Connector/J จะอ่านแถวที่เหลือทิ้งจนหมด ตัด socket ไปเลยแล้วให้ pool ทิ้ง connection นี้
+    private static void abandon(Connection connection) {
+        try {
+            connection.abort(Runnable::run);
+        } catch (SQLException ex) {
+            LOGGER.log(Level.FINE, "Error aborting an abandoned stream", ex);
+        }
+    }
+
+    private String whereAfter(Object[] afterKey) {
+        String after = afterKey == null ? null : keyPredicate(0);
+        if (where == null && after == null) {
+            return "";
+        }
+        if (where == null) {
+            return " WHERE " + after;
+        }
+        return " WHERE (" + where + ")" + (after == null ? "" : " AND " + after);
+    }
+
+    //(k1,k2) > (?,?) เขียนแบบกระจายเพื่อให้ใช้ index ของคอลัมน์แรกได้
+    private String keyPredicate(int i) {
+        String key = keyExpressions[i];
+        if (i == keyExpressions.length - 1) {
+            return key + " > ?";
+        }
+        return "(" + key + " > ? OR (" + key + " = ? AND " + keyPredicate(i + 1) + "))";
+    }
+
+    private String orderBy() {
+        return " ORDER BY " + String.join(", ", keyExpressions);
+    }
+
+    private int bindParams(PreparedStatement preparedStatement, int index) throws SQLException {
+        for (Object param : params) {
+            preparedStatement.setObject(index++, param);
+        }
+        return index;
+    }
+
+    private int bindKey(PreparedStatement preparedStatement, int index, Object[] afterKey) throws SQLException {
+        if (afterKey == null) {
+            return index;
+        }
+        for (int i = 0; i < afterKey.length; i++) {
+            preparedStatement.setObject(index++, afterKey[i]);
+            if (i < afterKey.length - 1) {
+                preparedStatement.setObject(index++, afterKey[i]);
+            }
+        }
+        return index;
+    }
+}
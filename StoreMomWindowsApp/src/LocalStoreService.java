@@ -0,0 +1,260 @@
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link StoreService} straight on the database through the repositories and the shared connection pool.
+ * With a {@link ChangeBus}, what each committed write changed is published to the other terminals.
+ */
+public class LocalStoreService implements StoreService {
+    private static final Logger LOGGER = Logger.getLogger(LocalStoreService.class.getName());
+    private static final String SELECT_APPLIED = "SELECT seq FROM journal_applied WHERE terminal_id = ? AND seq BETWEEN ? AND ?";
+    private static final String INSERT_APPLIED = "INSERT INTO journal_applied (terminal_id, seq, status) VALUES(?,?,?)";
+
+    private final CustomerRepository customerRepository = new CustomerRepository();
+    private final ProductRepository productRepository = new ProductRepository();
+    private final OrderRepository orderRepository = new OrderRepository();
+    private final SalesSummary salesSummary = new SalesSummary();
+    private final ChangeBus bus;
+
+    public LocalStoreService() {
+        this(null);
+    }
+
+    public LocalStoreService(ChangeBus bus) {
+        this.bus = bus;
+    }
+
+    @Override
+    public List<Customer> customers() throws SQLException {
+        return customerRepository.findAll();
+    }
+
+    @Override
+    public Optional<Product> product(int productId) throws SQLException {
+        return productRepository.findById(productId);
+    }
+
+    @Override
+    public List<VersionedProduct> productsUpdatedSince(Timestamp since) throws SQLException {
+        return productRepository.findUpdatedSince(since);
+    }
+
+    @Override
+    public Set<Integer> productIds() throws SQLException {
+        return productRepository.findAllIds();
+    }
+
+    @Override
+    public Map<Integer, Timestamp> productVersions() throws SQLException {
+        return productRepository.findVersions();
+    }
+
+    @Override
+    public List<StockThreshold> thresholdsUpdatedSince(Timestamp since) throws SQLException {
+        return productRepository.findThresholdsUpdatedSince(since);
+    }
+
+    @Override
+    public void setThreshold(int productId, Integer threshold) throws SQLException {
+        productRepository.setThreshold(productId, threshold);
+    }
+
+    @Override
+    public SalesSummary.Snapshot salesOf(LocalDate day) throws SQLException {
+        return salesSummary.snapshot(day);
+    }
+
+    @Override
+    public PageSource customerGrid(String nameFilter) {
+        return orderRepository.customerOrders(nameFilter);
+    }
+
+    @Override
+    public PageSource customerGridByIds(Collection<Integer> customerIds) {
+        return orderRepository.customerOrdersByIds(customerIds);
+    }
+
+    @Override
+    public PageSource productGrid(String nameFilter) {
+        return productRepository.grid(nameFilter);
+    }
+
+    @Override
+    public List<Outcome> apply(long terminalId, long firstSeq, List<Mutation<?>> mutations) throws SQLException {
+        return apply(terminalId, firstSeq, mutations, bus == null ? 0 : bus.origin());
+    }
+
+    /**
+     * {@link #apply(long, long, List)} on behalf of the terminal {@code origin}, which is left out when the change is
+     * published.
+     */
+    public List<Outcome> apply(long terminalId, long firstSeq, List<Mutation<?>> mutations, long origin) throws SQLException {
+        List<Outcome> outcomes = UnitOfWork.run(unitOfWork -> {
+            List<Outcome> applied = new ArrayList<>(mutations.size());
+            try (PreparedStatement preparedStatement = unitOfWork.connection().prepareStatement(INSERT_APPLIED)) {
+                for (int i = 0; i < mutations.size(); i++) {
+                    Outcome outcome = applyOne(mutations.get(i), unitOfWork);
+                    applied.add(outcome);
+                    preparedStatement.setLong(1, terminalId);
+                    preparedStatement.setLong(2, firstSeq + i);
+                    preparedStatement.setString(3, status(outcome.error() != null, outcome.value()));
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+            }
+            return applied;
+        });
+        List<ChangeEvent> events = new ArrayList<>();
+        for (int i = 0; i < mutations.size(); i++) {
+            Outcome outcome = outcomes.get(i);
+            if (outcome.error() == null) {
+                addEvent(events, mutations.get(i), outcome.value());
+            }
+        }
+        publish(origin, events);
+        return outcomes;
+    }
+
+    @Override
+    public void replay(long terminalId, List<WriteJournal.Entry> entries) throws SQLException {
+        replay(terminalId, entries, bus == null ? 0 : bus.origin());
+    }
+
+    /** {@link #replay(long, List)} on behalf of the terminal {@code origin}. */
+    public void replay(long terminalId, List<WriteJournal.Entry> entries, long origin) throws SQLException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<ChangeEvent> events = UnitOfWork.run(unitOfWork -> {
+            List<ChangeEvent> replayed = new ArrayList<>();
+            Connection connection = unitOfWork.connection();
+            Set<Long> applied = new HashSet<>();
+            try (PreparedStatement preparedStatement = connection.prepareStatement(SELECT_APPLIED)) {
+                preparedStatement.setLong(1, terminalId);
+                preparedStatement.setLong(2, entries.get(0).seq());
+                preparedStatement.setLong(3, entries.get(entries.size() - 1).seq());
+                try (ResultSet results = preparedStatement.executeQuery()) {
+                    while (results.next()) {
+                        applied.add(results.getLong(1));
+                    }
+                }
+            }
+            try (PreparedStatement preparedStatement = connection.prepareStatement(INSERT_APPLIED)) {
+                for (WriteJournal.Entry entry : entries) {
+                    if (applied.contains(entry.seq())) {
+                        continue;
+                    }
+                    preparedStatement.setLong(1, terminalId);
+                    preparedStatement.setLong(2, entry.seq());
+                    preparedStatement.setString(3, replayEntry(unitOfWork, entry, replayed));
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+            }
+            return replayed;
+        });
+        //ส่งหลัง commit แล้วเท่านั้น เครื่องอื่นจะได้ไม่เห็นสิ่งที่ถูก rollback
+        publish(origin, events);
+    }
+
+    private void publish(long origin, List<ChangeEvent> events) {
+        if (bus != null) {
+            bus.publish(origin, events);
+        }
+    }
+
+    private static void addEvent(List<ChangeEvent> events, Mutation<?> mutation, Object result) {
+        ChangeEvent event = ChangeEvent.of(mutation, result);
+        if (event != null) {
+            events.add(event);
+        }
+    }
+
+    private Outcome applyOne(Mutation<?> mutation, UnitOfWork unitOfWork) throws SQLException {
+        Savepoint savepoint = unitOfWork.savepoint();
+        try {
+            Object value = apply(mutation, true);
+            unitOfWork.release(savepoint);
+            return new Outcome(value, null);
+        } catch (SQLException ex) {
+            if (OfflineJournal.isConnectionFailure(ex)) {
+                throw ex;
+            }
+            unitOfWork.rollbackTo(savepoint);
+            return new Outcome(null, ex);
+        }
+    }
+
+    //สถานะที่บันทึกใน journal_applied
+    private static String status(boolean failed, Object result) {
+        return failed ? "failed" : Boolean.FALSE.equals(result) ? "skipped" : "applied";
+    }
+
+    //คืนสถานะที่บันทึกใน journal_applied ถ้า entry ใช้ไม่ได้แล้ว (เช่นลูกค้าถูกลบไปแล้ว) จะข้ามไป ไม่ค้างทั้ง journal
+    private String replayEntry(UnitOfWork unitOfWork, WriteJournal.Entry entry, List<ChangeEvent> events)
+            throws SQLException {
+        Savepoint savepoint = unitOfWork.savepoint();
+        try {
+            Mutation<?> mutation = Mutation.decode(entry.type(), entry.payload());
+            Object result = apply(mutation, false);
+            unitOfWork.release(savepoint);
+            addEvent(events, mutation, result);
+            return status(false, result);
+        } catch (SQLException ex) {
+            if (OfflineJournal.isConnectionFailure(ex)) {
+                throw ex;
+            }
+            unitOfWork.rollbackTo(savepoint);
+            LOGGER.log(Level.WARNING, "Journal entry " + entry.seq() + " could not be applied", ex);
+            return status(true, null);
+        } catch (IOException ex) {
+            unitOfWork.rollbackTo(savepoint);
+            LOGGER.log(Level.WARNING, "Journal entry " + entry.seq() + " could not be read", ex);
+            return "failed";
+        }
+    }
+
+    private Object apply(Mutation<?> mutation, boolean online) throws SQLException {
+        if (mutation instanceof Mutation.CustomerInsert) {
+            Mutation.CustomerInsert insert = (Mutation.CustomerInsert) mutation;
+            return customerRepository.insert(insert.fname(), insert.lname());
+        }
+        if (mutation instanceof Mutation.CustomerUpdate) {
+            return customerRepository.update(((Mutation.CustomerUpdate) mutation).customer());
+        }
+        if (mutation instanceof Mutation.CustomerDelete) {
+            return customerRepository.delete(((Mutation.CustomerDelete) mutation).id());
+        }
+        if (mutation instanceof Mutation.ProductInsert) {
+            return productRepository.insert(((Mutation.ProductInsert) mutation).product());
+        }
+        if (mutation instanceof Mutation.ProductUpdate) {
+            Mutation.ProductUpdate update = (Mutation.ProductUpdate) mutation;
+            return productRepository.update(update.current(), update.product());
+        }
+        if (mutation instanceof Mutation.ProductDelete) {
+            return productRepository.delete(((Mutation.ProductDelete) mutation).productId());
+        }
+        if (mutation instanceof Mutation.PlaceOrder) {
+            Mutation.PlaceOrder order = (Mutation.PlaceOrder) mutation;
+            //ตอน replay ของถูกขายไปแล้วจริง ตัดสต็อกเสมอแม้จะติดลบ
+            return orderRepository.placeOrder(order.customerId(), order.orderDate(), order.lines(), online);
+        }
+        throw new IllegalArgumentException("Unsupported mutation " + mutation);
+    }
+}
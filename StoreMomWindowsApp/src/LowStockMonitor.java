@@ -0,0 +1,231 @@
+import javax.swing.SwingUtilities;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the list of products whose stock is below their alert level.
+ * Registered as a {@link ProductCatalog} listener: the catalog's background sync only reads product rows changed
+ * since its last poll ({@code updated_at}, so sales on every terminal show up), and only those products are
+ * re-evaluated here. Alert levels live in {@code stock_threshold} and are polled the same way, reaching back
+ * {@code syncLagMs} before the newest {@code updated_at} seen for transactions that commit late; products without
+ * one use {@code defaultThreshold}. Alerts sit in a priority queue, most urgent first: fewest days of stock left at this
+ * month's sales rate, then lowest stock. Changes reach the {@link AlertListener} on the Event Dispatch Thread,
+ * at most one pending update at a time.
+ */
+public class LowStockMonitor implements ProductCatalog.Listener {
+    private static final Logger LOGGER = Logger.getLogger(LowStockMonitor.class.getName());
+
+    public interface AlertListener {
+        /** Called on the Event Dispatch Thread with every current alert, most urgent first. */
+        void alertsChanged(List<Alert> alerts);
+    }
+
+    public record Alert(int productId, String productName, int quantityInStock, int threshold, double dailySales) {
+        /** Days until the product runs out at the current sales rate; infinite when it is not selling. */
+        public double daysLeft() {
+            if (quantityInStock <= 0) {
+                return 0;
+            }
+            return dailySales > 0 ? quantityInStock / dailySales : Double.POSITIVE_INFINITY;
+        }
+    }
+
+    private static final Comparator<Alert> URGENCY = Comparator.comparingDouble(Alert::daysLeft)
+            .thenComparingInt(Alert::quantityInStock)
+            .thenComparingInt(Alert::productId);
+
+    private final ProductCatalog catalog;
+    private final StoreService store;
+    private final int defaultThreshold;
+    private final long syncLagMs;
+    private final Map<Integer, Integer> thresholds = new HashMap<>();
+    private final Map<Integer, Alert> alerts = new HashMap<>();
+    private final PriorityQueue<Alert> queue = new PriorityQueue<>(URGENCY);
+    private final IntLongMap soldThisMonth = new IntLongMap(256);
+    private int salesDays = 1;
+    private final Object pollLock = new Object();
+    private Timestamp thresholdWatermark;
+    private final AtomicBoolean publishPending = new AtomicBoolean();
+    private volatile AlertListener listener;
+    private ScheduledExecutorService scheduler;
+
+    public LowStockMonitor(ProductCatalog catalog, StoreService store, int defaultThreshold, long syncLagMs) {
+        this.catalog = catalog;
+        this.store = store;
+        this.defaultThreshold = defaultThreshold;
+        this.syncLagMs = syncLagMs;
+    }
+
+    public void setAlertListener(AlertListener listener) {
+        this.listener = listener;
+        publish();
+    }
+
+    @Override
+    public synchronized void catalogChanged(Collection<Product> upserted, Collection<Integer> removed) {
+        boolean changed = false;
+        for (Product product : upserted) {
+            changed |= evaluate(product);
+        }
+        for (Integer productId : removed) {
+            changed |= drop(productId);
+        }
+        if (changed) {
+            publish();
+        }
+    }
+
+    /** Reads alert levels changed since the last poll and re-evaluates those products. */
+    public void pollThresholds() throws SQLException {
+        synchronized (pollLock) {
+            //ย้อนไป syncLagMs เหมือน ProductCatalog แถวที่อ่านซ้ำตั้งค่าเดิมทับไม่มีผลอะไร
+            List<StockThreshold> rows = store.thresholdsUpdatedSince(
+                    thresholdWatermark == null ? null : new Timestamp(thresholdWatermark.getTime() - syncLagMs));
+            boolean changed = false;
+            synchronized (this) {
+                for (StockThreshold row : rows) {
+                    if (row.threshold() == null) {
+                        thresholds.remove(row.productId());
+                    } else {
+                        thresholds.put(row.productId(), row.threshold());
+                    }
+                    if (row.updatedAt() != null && (thresholdWatermark == null || row.updatedAt().after(thresholdWatermark))) {
+                        thresholdWatermark = row.updatedAt();
+                    }
+                    Product product = catalog.get(row.productId()).orElse(null);
+                    changed |= product == null ? drop(row.productId()) : evaluate(product);
+                }
+                if (changed) {
+                    publish();
+                }
+            }
+        }
+    }
+
+    /** Replaces the sales rate with this month's totals so far, {@code days} days into the month. */
+    public synchronized void resetSales(List<SalesSummary.SaleRow> monthRows, int days) {
+        soldThisMonth.clear();
+        for (SalesSummary.SaleRow row : monthRows) {
+            soldThisMonth.add(row.productId(), row.quantity());
+        }
+        salesDays = Math.max(1, days);
+        reprioritize();
+    }
+
+    /** Counts a sale made on this terminal towards the sales rate. */
+    public synchronized void sold(List<CartLine> lines) {
+        for (CartLine line : lines) {
+            soldThisMonth.add(line.productId(), line.quantity());
+        }
+        reprioritize();
+    }
+
+    public synchronized int threshold(int productId) {
+        return thresholds.getOrDefault(productId, defaultThreshold);
+    }
+
+    /** Current alerts, most urgent first. */
+    public synchronized List<Alert> alerts() {
+        PriorityQueue<Alert> copy = new PriorityQueue<>(queue);
+        List<Alert> sorted = new ArrayList<>(copy.size());
+        while (!copy.isEmpty()) {
+            sorted.add(copy.poll());
+        }
+        return sorted;
+    }
+
+    /** Polls {@code stock_threshold} in the background every {@code periodMs}. */
+    public synchronized void start(long periodMs) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "storemom-low-stock");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                pollThresholds();
+            } catch (SQLException | RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Stock threshold poll failed", ex);
+            }
+        }, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private boolean evaluate(Product product) {
+        int threshold = threshold(product.productId());
+        if (product.quantityInStock() >= threshold) {
+            return drop(product.productId());
+        }
+        Alert alert = new Alert(product.productId(), product.productName(), product.quantityInStock(), threshold,
+                (double) soldThisMonth.get(product.productId()) / salesDays);
+        Alert previous = alerts.put(product.productId(), alert);
+        if (alert.equals(previous)) {
+            return false;
+        }
+        if (previous != null) {
+            queue.remove(previous);
+        }
+        queue.add(alert);
+        return true;
+    }
+
+    private boolean drop(int productId) {
+        Alert previous = alerts.remove(productId);
+        if (previous == null) {
+            return false;
+        }
+        queue.remove(previous);
+        return true;
+    }
+
+    //อัตราขายเปลี่ยน ลำดับความเร่งด่วนของทุกรายการที่แจ้งเตือนอยู่ก็เปลี่ยนตาม
+    private void reprioritize() {
+        if (alerts.isEmpty()) {
+            return;
+        }
+        queue.clear();
+        for (Map.Entry<Integer, Alert> entry : alerts.entrySet()) {
+            Alert alert = entry.getValue();
+            Alert updated = new Alert(alert.productId(), alert.productName(), alert.quantityInStock(), alert.threshold(),
+                    (double) soldThisMonth.get(alert.productId()) / salesDays);
+            entry.setValue(updated);
+            queue.add(updated);
+        }
+        publish();
+    }
+
+    private void publish() {
+        if (listener == null || !publishPending.compareAndSet(false, true)) {
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            publishPending.set(false);
+            AlertListener current = listener;
+            if (current != null) {
+                current.alertsChanged(alerts());
+            }
+        });
+    }
+}
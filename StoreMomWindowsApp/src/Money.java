@@ -0,0 +1,42 @@
+import java.math.BigDecimal;
+
+/**
+ * Amounts of money as whole satang in a {@code long}, so sums and differences are exact and never parsed from text.
+ * Prices are kept in satang too ({@link CartLine#priceEach()}, {@link CartLine#unitCost()}); the database columns
+ * are {@code DECIMAL(..,2)} and are read and written through {@link #toDecimal} and {@link #fromDecimal}.
+ * Arithmetic throws {@link ArithmeticException} on overflow instead of wrapping.
+ */
+public final class Money {
+    public static final int MINOR_PER_MAJOR = 100;
+
+    private Money() {
+    }
+
+    /** Satang in {@code baht} whole baht. */
+    public static long ofMajor(long baht) {
+        return Math.multiplyExact(baht, MINOR_PER_MAJOR);
+    }
+
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, 2);
+    }
+
+    /** Satang in a {@code DECIMAL} column value; null counts as zero, fractions of a satang are an error. */
+    public static long fromDecimal(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).longValueExact();
+    }
+
+    /** Satang in baht typed as text, e.g. {@code 12.5}; more than two decimals is a {@link NumberFormatException}. */
+    public static long parse(String text) {
+        try {
+            return fromDecimal(new BigDecimal(text.trim()));
+        } catch (ArithmeticException ex) {
+            throw new NumberFormatException("Not an amount of baht: " + text);
+        }
+    }
+
+    /** Baht with two decimals, e.g. {@code 1250.50}. */
+    public static String format(long minor) {
+        return toDecimal(minor).toPlainString();
+    }
+}
@@ -0,0 +1,203 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A customer, product or order write as it is stored in the {@link WriteJournal}.
+ * {@code T} is what the matching repository method returns. A payload starts with {@link #FORMAT_VERSION}; strings
+ * are an {@code int} byte length ({@code -1} for null) and UTF-8 bytes, so they have no 64 KB limit. Payloads written
+ * before the version byte existed start with a zero byte and are still read.
+ */
+public interface Mutation<T> {
+    byte CUSTOMER_INSERT = 1;
+    byte CUSTOMER_UPDATE = 2;
+    byte CUSTOMER_DELETE = 3;
+    byte PRODUCT_INSERT = 4;
+    byte PRODUCT_UPDATE = 5;
+    byte PRODUCT_DELETE = 6;
+    byte PLACE_ORDER = 7;
+
+    byte FORMAT_VERSION = 1;
+
+    byte type();
+
+    void writeTo(DataOutputStream out) throws IOException;
+
+    default byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            writeTo(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Mutation<?> decode(byte type, byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            //payload ก่อนมี version ขึ้นต้นด้วย byte สูงของ int หรือความยาว writeUTF ซึ่งเป็น 0
+            boolean legacy = payload.length == 0 || payload[0] == 0;
+            if (!legacy && in.readByte() != FORMAT_VERSION) {
+                throw new IOException("Unknown journal entry format " + payload[0]);
+            }
+            switch (type) {
+                case CUSTOMER_INSERT:
+                    return new CustomerInsert(readString(in, legacy), readString(in, legacy));
+                case CUSTOMER_UPDATE:
+                    return new CustomerUpdate(new Customer(in.readInt(), readString(in, legacy), readString(in, legacy)));
+                case CUSTOMER_DELETE:
+                    return new CustomerDelete(in.readInt());
+                case PRODUCT_INSERT:
+                    return new ProductInsert(readProduct(in, legacy));
+                case PRODUCT_UPDATE:
+                    return new ProductUpdate(readProduct(in, legacy), readProduct(in, legacy));
+                case PRODUCT_DELETE:
+                    return new ProductDelete(in.readInt());
+                case PLACE_ORDER:
+                    int customerId = in.readInt();
+                    LocalDateTime orderDate = LocalDateTime.parse(readString(in, legacy));
+                    int count = in.readInt();
+                    List<CartLine> lines = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        lines.add(new CartLine(in.readInt(), readString(in, legacy), in.readInt(), in.readLong(),
+                                in.readLong()));
+                    }
+                    return new PlaceOrder(customerId, orderDate, lines);
+                default:
+                    throw new IOException("Unknown journal entry type " + type);
+            }
+        }
+    }
+
+    record CustomerInsert(String fname, String lname) implements Mutation<Customer> {
+        public byte type() {
+            return CUSTOMER_INSERT;
+        }
+
+        public void writeTo(DataOutputStream out) throws IOException {
+            writeString(out, fname);
+            writeString(out, lname);
+        }
+    }
+
+    record CustomerUpdate(Customer customer) implements Mutation<Boolean> {
+        public byte type() {
+            return CUSTOMER_UPDATE;
+        }
+
+        public void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(customer.id());
+            writeString(out, customer.fname());
+            writeString(out, customer.lname());
+        }
+    }
+
+    record CustomerDelete(int id) implements Mutation<Boolean> {
+        public byte type() {
+            return CUSTOMER_DELETE;
+        }
+
+        public void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(id);
+        }
+    }
+
+    record ProductInsert(Product product) implements Mutation<Product> {
+        public byte type() {
+            return PRODUCT_INSERT;
+        }
+
+        public void writeTo(DataOutputStream out) throws IOException {
+            writeProduct(out, product);
+        }
+    }
+
+    record ProductUpdate(Product current, Product product) implements Mutation<Boolean> {
+        public byte type() {
+            return PRODUCT_UPDATE;
+        }
+
+        public void writeTo(DataOutputStream out) throws IOException {
+            writeProduct(out, current);
+            writeProduct(out, product);
+        }
+    }
+
+    record ProductDelete(int productId) implements Mutation<Boolean> {
+        public byte type() {
+            return PRODUCT_DELETE;
+        }
+
+        public void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(productId);
+        }
+    }
+
+    record PlaceOrder(int customerId, LocalDateTime orderDate, List<CartLine> lines) implements Mutation<Order> {
+        public byte type() {
+            return PLACE_ORDER;
+        }
+
+        public void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(customerId);
+            writeString(out, orderDate.toString());
+            out.writeInt(lines.size());
+            for (CartLine line : lines) {
+                out.writeInt(line.productId());
+                writeString(out, line.productName());
+                out.writeInt(line.quantity());
+                out.writeLong(line.priceEach());
+                out.writeLong(line.unitCost());
+            }
+        }
+    }
+
+    private static void writeProduct(DataOutputStream out, Product product) throws IOException {
+        out.writeInt(product.productId());
+        writeString(out, product.productName());
+        out.writeInt(product.quantityInStock());
+        out.writeLong(product.price());
+        writeString(out, product.volume());
+        writeString(out, product.description());
+    }
+
+    private static Product readProduct(DataInputStream in, boolean legacy) throws IOException {
+        if (legacy) {
+            return new Product(in.readInt(), in.readUTF(), in.readInt(), in.readLong(),
+                    in.readBoolean() ? in.readUTF() : null, in.readBoolean() ? in.readUTF() : null);
+        }
+        return new Product(in.readInt(), readString(in, false), in.readInt(), in.readLong(), readString(in, false),
+                readString(in, false));
+    }
+
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        if (text == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in, boolean legacy) throws IOException {
+        if (legacy) {
+            return in.readUTF();
+        }
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.available()) {
+            throw new IOException("Journal entry ends inside a string of " + length + " bytes");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
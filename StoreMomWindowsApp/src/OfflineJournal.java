@@ -0,0 +1,145 @@
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps writes going while the database is unreachable.
+ * {@link #write} applies a {@link Mutation} through the {@link StoreService}; if the connection fails, or older writes
+ * are still waiting, it appends the mutation to the {@link WriteJournal} instead and returns null. {@link #replay} sends
+ * waiting entries in order, {@code replayBatch} per transaction, and the store records each sequence number in
+ * {@code journal_applied} in the same transaction, so entries already applied before a crash are skipped.
+ * Every write takes its sequence number before the first attempt and the store records it with the write, so a write
+ * whose commit went through but whose reply was lost (a connection failure during COMMIT) is journaled under the same
+ * number and skipped on replay instead of being applied twice.
+ */
+public class OfflineJournal {
+    private static final Logger LOGGER = Logger.getLogger(OfflineJournal.class.getName());
+
+    private final WriteJournal journal;
+    private final StoreService store;
+    private final int replayBatch;
+    private final Object replayLock = new Object();
+    //จองเลขจนถึงลง journal ในล็อกเดียวกัน เลขใน journal จึงเรียงตามลำดับเสมอ
+    private final Object writeLock = new Object();
+    private ScheduledExecutorService replayer;
+
+    public OfflineJournal(WriteJournal journal, StoreService store, int replayBatch) {
+        this.journal = journal;
+        this.store = store;
+        this.replayBatch = replayBatch;
+    }
+
+    /** The result of the write, or null if it was journaled to be applied later. */
+    @SuppressWarnings("unchecked")
+    public <T> T write(Mutation<T> mutation) throws SQLException, IOException {
+        StoreService.Outcome outcome = writeAll(List.of(mutation)).get(0);
+        if (outcome.error() != null) {
+            throw outcome.error();
+        }
+        return (T) outcome.value();
+    }
+
+    /**
+     * Applies the writes together (see {@link StoreService#apply}); if the store cannot be reached, or older writes are
+     * still waiting, all of them are journaled and their outcomes hold null.
+     */
+    public List<StoreService.Outcome> writeAll(List<Mutation<?>> mutations) throws SQLException, IOException {
+        synchronized (writeLock) {
+            long firstSeq = journal.reserve(mutations.size());
+            if (journal.size() == 0) {
+                try {
+                    return store.apply(journal.terminalId(), firstSeq, mutations);
+                } catch (SQLException ex) {
+                    if (!isConnectionFailure(ex)) {
+                        throw ex;
+                    }
+                    LOGGER.log(Level.WARNING, "Database unreachable, journaling " + mutations.size() + " write(s)", ex);
+                }
+            }
+            List<StoreService.Outcome> journaled = new ArrayList<>(mutations.size());
+            for (int i = 0; i < mutations.size(); i++) {
+                Mutation<?> mutation = mutations.get(i);
+                journal.append(firstSeq + i, mutation.type(), mutation.encode());
+                journaled.add(new StoreService.Outcome(null, null));
+            }
+            return journaled;
+        }
+    }
+
+    public int pending() {
+        return journal.size();
+    }
+
+    /** Applies waiting entries and returns how many were sent. Stops at the first batch that cannot reach the database. */
+    public int replay() throws SQLException, IOException {
+        synchronized (replayLock) {
+            int sent = 0;
+            List<WriteJournal.Entry> entries = journal.entries();
+            for (int from = 0; from < entries.size(); from += replayBatch) {
+                List<WriteJournal.Entry> batch = entries.subList(from, Math.min(entries.size(), from + replayBatch));
+                store.replay(journal.terminalId(), batch);
+                journal.removeThrough(batch.get(batch.size() - 1).seq());
+                sent += batch.size();
+            }
+            return sent;
+        }
+    }
+
+    /** Tries {@link #replay} every {@code periodMs} while entries are waiting; {@code onReplayed} gets the count sent. */
+    public synchronized void startReplay(long periodMs, IntConsumer onReplayed) {
+        if (replayer != null) {
+            return;
+        }
+        replayer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "storemom-journal-replay");
+            t.setDaemon(true);
+            return t;
+        });
+        replayer.scheduleWithFixedDelay(() -> {
+            if (pending() == 0) {
+                return;
+            }
+            try {
+                int sent = replay();
+                if (sent > 0) {
+                    onReplayed.accept(sent);
+                }
+            } catch (SQLException ex) {
+                if (!isConnectionFailure(ex)) {
+                    LOGGER.log(Level.SEVERE, "Journal replay failed", ex);
+                }
+            } catch (IOException | RuntimeException ex) {
+                LOGGER.log(Level.SEVERE, "Journal replay failed", ex);
+            }
+        }, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** True for failures that mean the database could not be reached, as opposed to a rejected statement. */
+    public static boolean isConnectionFailure(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientConnectionException || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                String state = ((SQLException) cause).getSQLState();
+                if (state != null && state.startsWith("08")) {
+                    return true;
+                }
+            }
+            if (cause instanceof java.net.ConnectException || cause instanceof java.net.UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
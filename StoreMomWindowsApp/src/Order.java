@@ -0,0 +1,10 @@
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A stored order; {@code totalAmount} and {@code profit} in satang ({@link Money}). {@code stockAfter} maps each sold
+ * product to its stock as committed with the sale.
+ */
+public record Order(int orderId, int customerId, LocalDateTime orderDate, long totalAmount, long profit,
+                    Map<Integer, Integer> stockAfter) {
+}
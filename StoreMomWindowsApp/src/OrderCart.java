@@ -0,0 +1,122 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Order being entered on the Orders tab, one line per product, shown in cartDb.
+ * Nothing is written until checkout hands {@link #lines()} to {@link OrderRepository#placeOrder}.
+ * Must be used from the Event Dispatch Thread.
+ */
+public class OrderCart extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMNS = {"productName", "quantityOrdered", "priceEach", "total", "profit"};
+
+    private final Map<Integer, CartLine> lines = new LinkedHashMap<>();
+    private List<CartLine> rows = List.of();
+    private long totalAmount;
+    private long profit;
+
+    /** Adds the product or, if it is already in the cart, adds to its quantity at the new price. */
+    public void add(Product product, int quantity, long priceEach) {
+        CartLine existing = lines.get(product.productId());
+        int total = existing == null ? quantity : existing.quantity() + quantity;
+        put(product, total, priceEach);
+    }
+
+    /** Sets the quantity and price of a line; returns false if the product is not in the cart. */
+    public boolean update(Product product, int quantity, long priceEach) {
+        if (!lines.containsKey(product.productId())) {
+            return false;
+        }
+        put(product, quantity, priceEach);
+        return true;
+    }
+
+    public boolean remove(int productId) {
+        if (lines.remove(productId) == null) {
+            return false;
+        }
+        changed();
+        return true;
+    }
+
+    public void clear() {
+        lines.clear();
+        changed();
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    /** Snapshot of the lines in the order they were added. */
+    public List<CartLine> lines() {
+        return rows;
+    }
+
+    /** The line for {@code productId}, or null if the product is not in the cart. */
+    public CartLine line(int productId) {
+        return lines.get(productId);
+    }
+
+    public CartLine lineAt(int row) {
+        return rows.get(row);
+    }
+
+    /** Satang ({@link Money}). */
+    public long totalAmount() {
+        return totalAmount;
+    }
+
+    /** Satang ({@link Money}). */
+    public long profit() {
+        return profit;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        CartLine line = rows.get(rowIndex);
+        switch (columnIndex) {
+            case 0:
+                return line.productName();
+            case 1:
+                return line.quantity();
+            case 2:
+                return Money.toDecimal(line.priceEach());
+            case 3:
+                return Money.toDecimal(line.lineTotal());
+            default:
+                return Money.toDecimal(line.lineProfit());
+        }
+    }
+
+    private void put(Product product, int quantity, long priceEach) {
+        lines.put(product.productId(),
+                new CartLine(product.productId(), product.productName(), quantity, priceEach, product.price()));
+        changed();
+    }
+
+    private void changed() {
+        rows = List.copyOf(lines.values());
+        OrderPricing pricing = OrderPricing.of(rows);
+        totalAmount = pricing.total();
+        profit = pricing.profit();
+        fireTableDataChanged();
+    }
+}
@@ -0,0 +1,27 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Amounts of an order in satang ({@link Money}), worked out once when the order is written: each line's total, cost
+ * and profit, and the order's sums of them. The same figures go into {@code orderdetail}, {@code orders} and the
+ * sales rollups, so reports only add stored numbers.
+ */
+public record OrderPricing(List<LineAmounts> lines, long total, long cost, long profit, long quantity) {
+    public record LineAmounts(CartLine line, long total, long cost, long profit) {
+    }
+
+    public static OrderPricing of(List<CartLine> lines) {
+        List<LineAmounts> amounts = new ArrayList<>(lines.size());
+        long total = 0;
+        long cost = 0;
+        long quantity = 0;
+        for (CartLine line : lines) {
+            LineAmounts amount = new LineAmounts(line, line.lineTotal(), line.lineCost(), line.lineProfit());
+            amounts.add(amount);
+            total = Math.addExact(total, amount.total());
+            cost = Math.addExact(cost, amount.cost());
+            quantity += line.quantity();
+        }
+        return new OrderPricing(List.copyOf(amounts), total, cost, Math.subtractExact(total, cost), quantity);
+    }
+}
@@ -0,0 +1,157 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class OrderRepository {
+    private static final String[] CUSTOMER_GRID_COLUMNS = {"id", "firstname", "lastname", "productName", "price",
+            "totalAmount", "profit", "quantityOrdered", "priceEach"};
+    private static final String CUSTOMER_GRID_SELECT = "c.id, c.fname, c.lname, p.productName, p.price, o.totalAmount, o.profit, od.quantityOrdered, od.priceEach";
+    private static final String CUSTOMER_GRID_FROM = "customer c left join orders o on c.id = o.customer_id\n" +
+            "left join (orderdetail od join product p on p.productId = od.productId) on od.orderId = o.orderId";
+    private static final String[] CUSTOMER_GRID_KEYS = {"c.id", "coalesce(o.orderId, 0)", "coalesce(od.orderDetailId, 0)"};
+    private static final String INSERT_ORDER = "INSERT INTO orders (totalAmount, customer_id, orderDate, profit) VALUES(?,?,?,?)";
+    private static final String INSERT_LINE = "INSERT INTO orderdetail (quantityOrdered, priceEach, productId, orderId, unitCost, lineTotal, lineProfit)\n" +
+            "VALUES(?,?,?,?,?,?,?)";
+    //ตัดสต็อกจากรายการที่เพิ่ง insert ของ order นี้ในคำสั่งเดียว ไม่ว่าจะมีกี่รายการ เฉพาะสินค้าที่ยังมีของพอ
+    private static final String DECREMENT_STOCK = "UPDATE product p JOIN (SELECT productId, sum(quantityOrdered) quantity FROM orderdetail WHERE orderId = ? GROUP BY productId) od\n" +
+            "ON od.productId = p.productId SET p.quantityInStock = coalesce(p.quantityInStock, 0) - od.quantity\n" +
+            "WHERE coalesce(p.quantityInStock, 0) >= od.quantity";
+    private static final String DECREMENT_STOCK_UNCHECKED = "UPDATE product p JOIN (SELECT productId, sum(quantityOrdered) quantity FROM orderdetail WHERE orderId = ? GROUP BY productId) od\n" +
+            "ON od.productId = p.productId SET p.quantityInStock = coalesce(p.quantityInStock, 0) - od.quantity";
+    private static final String SELECT_STOCK_AFTER = "SELECT p.productId, coalesce(p.quantityInStock, 0) FROM product p\n" +
+            "WHERE p.productId IN (SELECT productId FROM orderdetail WHERE orderId = ?)";
+
+
+    /**
+     * Grid rows for cusDb: every customer with each of their order lines (customers without orders appear once),
+     * optionally restricted to full names containing {@code nameFilter}.
+     */
+    public PageSource customerOrders(String nameFilter) {
+        if (nameFilter == null || nameFilter.isBlank()) {
+            return new KeysetPageSource(CUSTOMER_GRID_COLUMNS, CUSTOMER_GRID_SELECT, CUSTOMER_GRID_FROM, null, null,
+                    CUSTOMER_GRID_KEYS);
+        }
+        return new KeysetPageSource(CUSTOMER_GRID_COLUMNS, CUSTOMER_GRID_SELECT, CUSTOMER_GRID_FROM,
+                "concat(c.fname,\" \",c.lname) like ?", new Object[]{"%" + nameFilter + "%"}, CUSTOMER_GRID_KEYS);
+    }
+
+    /** Same rows as {@link #customerOrders(String)} for the given customer ids only. */
+    public PageSource customerOrdersByIds(Collection<Integer> customerIds) {
+        if (customerIds.isEmpty()) {
+            return new KeysetPageSource(CUSTOMER_GRID_COLUMNS, CUSTOMER_GRID_SELECT, CUSTOMER_GRID_FROM, "1 = 0", null,
+                    CUSTOMER_GRID_KEYS);
+        }
+        return new KeysetPageSource(CUSTOMER_GRID_COLUMNS, CUSTOMER_GRID_SELECT, CUSTOMER_GRID_FROM,
+                "c.id in (" + String.join(",", Collections.nCopies(customerIds.size(), "?")) + ")",
+                customerIds.toArray(), CUSTOMER_GRID_KEYS);
+    }
+
+    /** Column names of {@link #customerOrders(String)}. */
+    public static String[] customerGridColumns() {
+        return CUSTOMER_GRID_COLUMNS.clone();
+    }
+
+    /** The single row {@link #customerOrders(String)} gives for a customer with no orders yet. */
+    public static PageSource.Row customerGridRow(Customer customer) {
+        Object[] values = new Object[CUSTOMER_GRID_COLUMNS.length];
+        values[0] = customer.id();
+        values[1] = customer.fname();
+        values[2] = customer.lname();
+        return new PageSource.Row(new Object[]{customer.id(), 0, 0}, values);
+    }
+
+    /** Maps a row of {@link #customerOrders(String)} to the customer it belongs to. */
+    public static Customer customerOfGridRow(Object[] values) {
+        return new Customer(((Number) values[0]).intValue(), (String) values[1], (String) values[2]);
+    }
+
+    /**
+     * Writes the order, its lines and the stock decrements in one transaction and returns the stored order.
+     * The lines go out as one JDBC batch (a single multi-row INSERT with {@code rewriteBatchedStatements=true}) and
+     * stock is decremented from those lines with one UPDATE, so the round trips do not grow with the number of lines.
+     * The decrement only applies where enough stock is left; if any product falls short the order is rolled back and
+     * {@link OutOfStockException} is thrown, so concurrent tills cannot sell the same last units. Product rows are
+     * locked only from that statement on, near the end of the transaction, and the stock they are left with is read
+     * back under that lock into {@link Order#stockAfter()}. Line totals, the cost of each line at
+     * today's product cost and profit are worked out once by {@link OrderPricing} and stored as numbers with the
+     * order and its lines. The database triggers behind {@link SalesSummary} add them to the monthly sales rollups in
+     * the same transaction.
+     */
+    public Order placeOrder(int customerId, LocalDateTime orderDate, List<CartLine> lines) throws SQLException {
+        return placeOrder(customerId, orderDate, lines, true);
+    }
+
+    /**
+     * Same as {@link #placeOrder(int, LocalDateTime, List)}; with {@code enforceStock} false the stock is decremented
+     * even below zero, for sales that already happened while the database was unreachable.
+     */
+    public Order placeOrder(int customerId, LocalDateTime orderDate, List<CartLine> lines, boolean enforceStock) throws SQLException {
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("Order has no lines");
+        }
+        return UnitOfWork.run(unitOfWork -> {
+            OrderPricing pricing = OrderPricing.of(lines);
+            Set<Integer> productIds = new HashSet<>();
+            for (CartLine line : lines) {
+                productIds.add(line.productId());
+            }
+            Connection connection = unitOfWork.connection();
+            int orderId;
+            try (PreparedStatement preparedStatement = connection.prepareStatement(INSERT_ORDER, Statement.RETURN_GENERATED_KEYS)) {
+                preparedStatement.setBigDecimal(1, Money.toDecimal(pricing.total()));
+                preparedStatement.setInt(2, customerId);
+                preparedStatement.setTimestamp(3, Timestamp.valueOf(orderDate));
+                preparedStatement.setBigDecimal(4, Money.toDecimal(pricing.profit()));
+                preparedStatement.executeUpdate();
+                try (ResultSet keys = preparedStatement.getGeneratedKeys()) {
+                    if (!keys.next()) {
+                        throw new SQLException("No id generated for new order");
+                    }
+                    orderId = keys.getInt(1);
+                }
+            }
+            try (PreparedStatement preparedStatement = connection.prepareStatement(INSERT_LINE)) {
+                for (OrderPricing.LineAmounts amounts : pricing.lines()) {
+                    CartLine line = amounts.line();
+                    preparedStatement.setInt(1, line.quantity());
+                    preparedStatement.setBigDecimal(2, Money.toDecimal(line.priceEach()));
+                    preparedStatement.setInt(3, line.productId());
+                    preparedStatement.setInt(4, orderId);
+                    preparedStatement.setBigDecimal(5, Money.toDecimal(line.unitCost()));
+                    preparedStatement.setBigDecimal(6, Money.toDecimal(amounts.total()));
+                    preparedStatement.setBigDecimal(7, Money.toDecimal(amounts.profit()));
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+            }
+            try (PreparedStatement preparedStatement = connection.prepareStatement(
+                    enforceStock ? DECREMENT_STOCK : DECREMENT_STOCK_UNCHECKED)) {
+                preparedStatement.setInt(1, orderId);
+                if (preparedStatement.executeUpdate() != productIds.size() && enforceStock) {
+                    throw new OutOfStockException("Not enough stock for order of customer " + customerId);
+                }
+            }
+            Map<Integer, Integer> stockAfter = new HashMap<>();
+            try (PreparedStatement preparedStatement = connection.prepareStatement(SELECT_STOCK_AFTER)) {
+                preparedStatement.setInt(1, orderId);
+                try (ResultSet results = preparedStatement.executeQuery()) {
+                    while (results.next()) {
+                        stockAfter.put(results.getInt(1), results.getInt(2));
+                    }
+                }
+            }
+            return new Order(orderId, customerId, orderDate, pricing.total(), pricing.profit(), stockAfter);
+        });
+    }
+}
@@ -0,0 +1,10 @@
+import java.sql.SQLException;
+
+/** Thrown when an order asks for more units than are left; the whole order has been rolled back. */
+public class OutOfStockException extends SQLException {
+    private static final long serialVersionUID = 1L;
+
+    public OutOfStockException(String reason) {
+        super(reason);
+    }
+}
@@ -0,0 +1,72 @@
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Ordered, keyset-addressable source of grid rows for {@link PagedTableModel}.
+ * A key is the value of the ordering columns of a row; {@code null} means "before the first row".
+ */
+public interface PageSource {
+    String[] columnNames();
+
+    int count() throws SQLException;
+
+    /** Up to {@code limit} rows whose key is greater than {@code afterKey}, in key order. */
+    List<Row> fetch(Object[] afterKey, int limit) throws SQLException;
+
+    /** Key of the {@code count}-th row after {@code afterKey}, or {@code null} if there are fewer rows. */
+    Object[] skip(Object[] afterKey, int count) throws SQLException;
+
+    /**
+     * Hands up to {@code maxRows} rows to {@code sink} in key order until it returns false. Sources backed by a query
+     * read them as one streaming result set; this default walks the rows with {@link #fetch} in steps of
+     * {@code fetchSize}.
+     */
+    default void stream(int fetchSize, int maxRows, RowSink sink) throws SQLException {
+        Object[] afterKey = null;
+        int left = maxRows;
+        while (left > 0) {
+            int limit = Math.min(fetchSize, left);
+            List<Row> rows = fetch(afterKey, limit);
+            for (Row row : rows) {
+                if (!sink.accept(row)) {
+                    return;
+                }
+            }
+            if (rows.size() < limit) {
+                return;
+            }
+            left -= limit;
+            afterKey = rows.get(rows.size() - 1).key();
+        }
+    }
+
+    /** Orders keys as the sources do: whole numbers by value, other values by their natural order, nulls first. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static int compareKeys(Object[] a, Object[] b) {
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            Object x = a[i];
+            Object y = b[i];
+            int compared;
+            if (x == null || y == null) {
+                compared = x == null ? (y == null ? 0 : -1) : 1;
+            } else if (x instanceof Number && y instanceof Number) {
+                compared = Long.compare(((Number) x).longValue(), ((Number) y).longValue());
+            } else {
+                compared = ((Comparable) x).compareTo(y);
+            }
+            if (compared != 0) {
+                return compared;
+            }
+        }
+        return Integer.compare(a.length, b.length);
+    }
+
+    @FunctionalInterface
+    interface RowSink {
+        /** Returns false to stop the stream. */
+        boolean accept(Row row) throws SQLException;
+    }
+
+    record Row(Object[] key, Object[] values) {
+    }
+}
@@ -0,0 +1,231 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Read-only table model that only holds a few pages of rows in memory.
+ * Pages are fetched from a {@link PageSource} in the background when the table asks for a row that is not cached;
+ * until then the cells render empty. Page start keys are remembered so a page is re-read with a keyset query.
+ * Must be used from the Event Dispatch Thread.
+ */
+public class PagedTableModel extends AbstractTableModel implements GridModel {
+    private static final long serialVersionUID = 1L;
+    private final int pageSize;
+    private final int maxCachedPages;
+    private final DbExecutor dbExecutor = DbExecutor.get();
+
+    private PageSource source;
+    private String[] columnNames = new String[0];
+    private int rowCount;
+    private boolean counted;
+    private long generation;
+    private final Map<Integer, List<PageSource.Row>> pages;
+    private final Set<Integer> loading = new HashSet<>();
+    //key ของแถวสุดท้ายก่อนเริ่มแต่ละหน้า (หน้า 0 ไม่มี key)
+    private ConcurrentSkipListMap<Integer, Object[]> anchors = new ConcurrentSkipListMap<>();
+    private Runnable onRefreshed;
+
+    public PagedTableModel(int pageSize, int maxCachedPages) {
+        this.pageSize = pageSize;
+        this.maxCachedPages = maxCachedPages;
+        this.pages = new LinkedHashMap<>(maxCachedPages * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<PageSource.Row>> eldest) {
+                return size() > PagedTableModel.this.maxCachedPages;
+            }
+        };
+    }
+
+    /** Switches to a new source; the row count is read in the background and the first page follows on demand. */
+    @Override
+    public void setSource(PageSource source) {
+        this.source = source;
+        this.columnNames = source.columnNames();
+        fireTableStructureChanged();
+        refresh();
+    }
+
+    @Override
+    public void refresh() {
+        long current = ++generation;
+        pages.clear();
+        loading.clear();
+        anchors = new ConcurrentSkipListMap<>();
+        rowCount = 0;
+        counted = false;
+        fireTableDataChanged();
+        PageSource target = source;
+        if (target == null) {
+            return;
+        }
+        dbExecutor.submit(DbExecutor.Kind.READ, "grid.count", target::count, count -> {
+            if (current != generation) {
+                return;
+            }
+            rowCount = count;
+            counted = true;
+            fireTableDataChanged();
+            if (onRefreshed != null) {
+                onRefreshed.run();
+            }
+        });
+    }
+
+    /** Called on the EDT once the row count of a refresh is known. */
+    @Override
+    public void setOnRefreshed(Runnable onRefreshed) {
+        this.onRefreshed = onRefreshed;
+    }
+
+    /** Values of a row if its page is cached, otherwise {@code null} (and the page is requested). */
+    @Override
+    public Object[] getRow(int rowIndex) {
+        PageSource.Row row = row(rowIndex);
+        return row == null ? null : row.values().clone();
+    }
+
+    @Override
+    public boolean isLoaded(int rowIndex) {
+        return pages.containsKey(rowIndex / pageSize);
+    }
+
+    @Override
+    public int updateRows(int column, Object value, UnaryOperator<Object[]> change) {
+        int updated = 0;
+        for (Map.Entry<Integer, List<PageSource.Row>> page : pages.entrySet()) {
+            List<PageSource.Row> rows = page.getValue();
+            for (int i = 0; i < rows.size(); i++) {
+                PageSource.Row row = rows.get(i);
+                if (!GridModel.sameValue(row.values()[column], value)) {
+                    continue;
+                }
+                if (rows == page.getValue()) {
+                    rows = new ArrayList<>(rows);
+                    page.setValue(rows);
+                }
+                rows.set(i, new PageSource.Row(row.key(), change.apply(row.values().clone())));
+                fireTableRowsUpdated(page.getKey() * pageSize + i, page.getKey() * pageSize + i);
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    /** Appends when the page holding the current last row is cached, so the new key can be checked against it. */
+    @Override
+    public boolean appendRow(PageSource.Row row) {
+        if (!counted) {
+            return false;
+        }
+        int lastPage = rowCount == 0 ? 0 : (rowCount - 1) / pageSize;
+        List<PageSource.Row> rows = pages.get(lastPage);
+        if (rowCount == 0) {
+            rows = List.of();
+        } else if (rows == null || rows.size() != rowCount - lastPage * pageSize
+                || PageSource.compareKeys(row.key(), rows.get(rows.size() - 1).key()) <= 0) {
+            return false;
+        }
+        if (rows.size() == pageSize) {
+            anchors.putIfAbsent(lastPage + 1, rows.get(rows.size() - 1).key());
+            pages.put(lastPage + 1, new ArrayList<>(List.of(row)));
+        } else {
+            List<PageSource.Row> grown = new ArrayList<>(rows);
+            grown.add(row);
+            pages.put(lastPage, grown);
+        }
+        rowCount++;
+        fireTableRowsInserted(rowCount - 1, rowCount - 1);
+        return true;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        PageSource.Row row = row(rowIndex);
+        return row == null ? null : row.values()[columnIndex];
+    }
+
+    private PageSource.Row row(int rowIndex) {
+        if (rowIndex < 0 || rowIndex >= rowCount) {
+            return null;
+        }
+        int page = rowIndex / pageSize;
+        List<PageSource.Row> rows = pages.get(page);
+        if (rows == null) {
+            requestPage(page);
+            return null;
+        }
+        int offset = rowIndex - page * pageSize;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    private void requestPage(int page) {
+        if (!loading.add(page)) {
+            return;
+        }
+        long current = generation;
+        PageSource target = source;
+        ConcurrentSkipListMap<Integer, Object[]> knownAnchors = anchors;
+        dbExecutor.submit(DbExecutor.Kind.READ, "grid.page", () -> loadPage(target, knownAnchors, page), rows -> {
+            if (current != generation) {
+                return;
+            }
+            loading.remove(page);
+            pages.put(page, rows);
+            int first = page * pageSize;
+            int last = Math.min(rowCount, first + pageSize) - 1;
+            if (last >= first) {
+                fireTableRowsUpdated(first, last);
+            }
+        }, ex -> {
+            //ไม่ลบออกจาก loading เพื่อไม่ให้ repaint ยิง query ซ้ำ จนกว่าจะ refresh
+            Logger.getLogger(PagedTableModel.class.getName()).log(Level.SEVERE, null, ex);
+        });
+    }
+
+    //runs on a background thread
+    private List<PageSource.Row> loadPage(PageSource target, ConcurrentSkipListMap<Integer, Object[]> anchors,
+                                          int page) throws Exception {
+        Object[] afterKey = null;
+        if (page > 0) {
+            afterKey = anchors.get(page);
+            if (afterKey == null) {
+                Map.Entry<Integer, Object[]> nearest = anchors.floorEntry(page - 1);
+                int known = nearest == null ? 0 : nearest.getKey();
+                Object[] from = nearest == null ? null : nearest.getValue();
+                afterKey = target.skip(from, (page - known) * pageSize);
+                if (afterKey == null) {
+                    return List.of();
+                }
+                anchors.put(page, afterKey);
+            }
+        }
+        List<PageSource.Row> rows = target.fetch(afterKey, pageSize);
+        if (rows.size() == pageSize) {
+            anchors.putIfAbsent(page + 1, rows.get(rows.size() - 1).key());
+        }
+        return rows;
+    }
+}
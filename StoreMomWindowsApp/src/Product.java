@@ -0,0 +1,14 @@
+/**
+ * A product row; {@code price} (the cost price) in satang ({@link Money}). {@code description} may be null and is
+ * searched by {@link ProductSearchIndex} but not edited on the product form.
+ */
+public record Product(int productId, String productName, int quantityInStock, long price, String volume,
+                      String description) {
+    public Product withId(int productId) {
+        return new Product(productId, productName, quantityInStock, price, volume, description);
+    }
+
+    public Product withQuantityInStock(int quantityInStock) {
+        return new Product(productId, productName, quantityInStock, price, volume, description);
+    }
+}
@@ -0,0 +1,277 @@
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Client-side copy of the product table keyed by productId.
+ * The first {@link #sync()} reads the whole table; later ones read rows whose {@code updated_at} is at or after the
+ * newest version already seen minus {@code syncLagMs}. {@code updated_at} is stamped when a statement runs, not when
+ * its transaction commits, so a row can become visible after newer ones were already synced; the window re-reads
+ * those, and unchanged rows are skipped. Every {@code reconcileIntervalMs} the sync compares the productId and
+ * {@code updated_at} of every row with the cache instead: products deleted by other terminals are dropped, and the
+ * delta reaches back to the oldest version that differs, which picks up writes that committed later than the window.
+ * Names are searched through a {@link ProductSearchIndex} kept in step with the cache.
+ */
+public class ProductCatalog {
+    private static final Logger LOGGER = Logger.getLogger(ProductCatalog.class.getName());
+
+    public interface Listener {
+        /** Called on the syncing thread after products were added/changed or removed. */
+        void catalogChanged(Collection<Product> upserted, Collection<Integer> removed);
+    }
+
+    private final StoreService store;
+    private final long reconcileIntervalMs;
+    private final long syncLagMs;
+    private final Map<Integer, Product> byId = new ConcurrentHashMap<>();
+    //updated_at ของแต่ละแถวที่ sync มาแล้ว ใช้เฉพาะใต้ syncLock
+    private final Map<Integer, Timestamp> versions = new HashMap<>();
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Object syncLock = new Object();
+    private volatile Timestamp highWatermark;
+    private volatile boolean loaded;
+    private volatile long lastSyncMillis;
+    private volatile long lastReconcileMillis;
+    private ScheduledExecutorService scheduler;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong fullLoads = new AtomicLong();
+    private final AtomicLong deltaSyncs = new AtomicLong();
+    private final AtomicLong rowsPulled = new AtomicLong();
+    private final AtomicLong reconciles = new AtomicLong();
+    private final AtomicLong tombstones = new AtomicLong();
+    private final AtomicLong syncFailures = new AtomicLong();
+
+    public ProductCatalog(StoreService store, long reconcileIntervalMs, long syncLagMs) {
+        this.store = store;
+        this.reconcileIntervalMs = reconcileIntervalMs;
+        this.syncLagMs = syncLagMs;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /** Brings the cache up to date: a full read the first time, a delta on {@code updated_at} after that. */
+    public void sync() throws SQLException {
+        synchronized (syncLock) {
+            try {
+                long now = System.currentTimeMillis();
+                boolean reconcile = loaded && now - lastReconcileMillis >= reconcileIntervalMs;
+                Map<Integer, Timestamp> live = reconcile ? store.productVersions() : null;
+                List<VersionedProduct> rows = store.productsUpdatedSince(
+                        !loaded ? null : reconcile ? reconcileFrom(live) : syncFrom());
+                rowsPulled.addAndGet(rows.size());
+                List<Product> upserted = new ArrayList<>();
+                Set<Integer> seenIds = live == null ? new HashSet<>() : new HashSet<>(live.keySet());
+                Timestamp newest = highWatermark;
+                for (VersionedProduct row : rows) {
+                    Product product = row.product();
+                    seenIds.add(product.productId());
+                    versions.put(product.productId(), row.updatedAt());
+                    if (!product.equals(byId.put(product.productId(), product))) {
+                        searchIndex.put(product);
+                        upserted.add(product);
+                    }
+                    if (row.updatedAt() != null && (newest == null || row.updatedAt().after(newest))) {
+                        newest = row.updatedAt();
+                    }
+                }
+                highWatermark = newest;
+                List<Integer> removed = new ArrayList<>();
+                if (!loaded || reconcile) {
+                    removeMissing(seenIds, removed);
+                    if (reconcile) {
+                        reconciles.incrementAndGet();
+                    } else {
+                        fullLoads.incrementAndGet();
+                    }
+                    lastReconcileMillis = now;
+                    loaded = true;
+                } else {
+                    deltaSyncs.incrementAndGet();
+                }
+                lastSyncMillis = now;
+                notifyListeners(upserted, removed);
+            } catch (SQLException | RuntimeException ex) {
+                syncFailures.incrementAndGet();
+                throw ex;
+            }
+        }
+    }
+
+    //ย้อนเวลาไป syncLagMs เผื่อ transaction ที่ commit ช้ากว่าแถวที่ sync ไปแล้ว
+    private Timestamp syncFrom() {
+        return highWatermark == null ? null : new Timestamp(highWatermark.getTime() - syncLagMs);
+    }
+
+    //อ่านย้อนไปถึงแถวที่เก่าที่สุดที่ version ไม่ตรงกับที่ sync มา แถวที่ไม่มี updated_at ต้องอ่านทั้งตาราง
+    private Timestamp reconcileFrom(Map<Integer, Timestamp> live) {
+        Timestamp from = syncFrom();
+        if (from == null) {
+            return null;
+        }
+        for (Map.Entry<Integer, Timestamp> entry : live.entrySet()) {
+            Timestamp version = entry.getValue();
+            if (versions.containsKey(entry.getKey()) && Objects.equals(versions.get(entry.getKey()), version)) {
+                continue;
+            }
+            if (version == null) {
+                return null;
+            }
+            if (version.before(from)) {
+                from = version;
+            }
+        }
+        return from;
+    }
+
+    /** Runs {@link #sync()} in the background every {@code periodMs}. */
+    public synchronized void startAutoSync(long periodMs) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "storemom-catalog-sync");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                sync();
+            } catch (SQLException | RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Product catalog sync failed", ex);
+            }
+        }, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopAutoSync() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public Optional<Product> get(int productId) {
+        Product product = byId.get(productId);
+        (product == null ? misses : hits).incrementAndGet();
+        return Optional.ofNullable(product);
+    }
+
+    /** All cached products ordered by productId. */
+    public List<Product> all() {
+        List<Product> products = new ArrayList<>(byId.values());
+        products.sort(Comparator.comparingInt(Product::productId));
+        return products;
+    }
+
+    /**
+     * Cached products whose name or description contains {@code text} (case-insensitive), ordered by productId; when
+     * none does, the names that would with a typo or two.
+     */
+    public List<Product> findByName(String text) {
+        List<Product> products = searchIndex.containing(text);
+        if (products.isEmpty()) {
+            for (ProductSearchIndex.Match match : searchIndex.search(text, Integer.MAX_VALUE)) {
+                products.add(match.product());
+            }
+        }
+        products.sort(Comparator.comparingInt(Product::productId));
+        hits.incrementAndGet();
+        return products;
+    }
+
+    /** Best {@code limit} products for {@code text}, most relevant first (see {@link ProductSearchIndex#search}). */
+    public List<ProductSearchIndex.Match> search(String text, int limit) {
+        hits.incrementAndGet();
+        return searchIndex.search(text, limit);
+    }
+
+    /** The product named exactly {@code name}; the lowest productId wins on duplicates. */
+    public Optional<Product> findFirstByName(String name) {
+        Product first = null;
+        for (Product product : searchIndex.containing(name)) {
+            if (product.productName().equals(name) && (first == null || product.productId() < first.productId())) {
+                first = product;
+            }
+        }
+        (first == null ? misses : hits).incrementAndGet();
+        return Optional.ofNullable(first);
+    }
+
+    /** Applies a write this terminal made so it is visible before the next sync. */
+    public void put(Product product) {
+        byId.put(product.productId(), product);
+        searchIndex.put(product);
+        notifyListeners(List.of(product), List.of());
+    }
+
+    public void remove(int productId) {
+        if (byId.remove(productId) != null) {
+            searchIndex.remove(productId);
+            notifyListeners(List.of(), List.of(productId));
+        }
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public Stats stats() {
+        long last = lastSyncMillis;
+        return new Stats(byId.size(), hits.get(), misses.get(), fullLoads.get(), deltaSyncs.get(), rowsPulled.get(),
+                reconciles.get(), tombstones.get(), syncFailures.get(),
+                last == 0 ? -1 : System.currentTimeMillis() - last);
+    }
+
+    public record Stats(int size, long hits, long misses, long fullLoads, long deltaSyncs, long rowsPulled,
+                        long reconciles, long removedByReconcile, long syncFailures, long stalenessMillis) {
+    }
+
+    private void removeMissing(Set<Integer> liveIds, List<Integer> removed) {
+        for (Integer productId : new ArrayList<>(byId.keySet())) {
+            if (!liveIds.contains(productId) && byId.remove(productId) != null) {
+                versions.remove(productId);
+                searchIndex.remove(productId);
+                removed.add(productId);
+                tombstones.incrementAndGet();
+            }
+        }
+    }
+
+    private void notifyListeners(Collection<Product> upserted, Collection<Integer> removed) {
+        if (upserted.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        for (Listener listener : listeners) {
+            try {
+                listener.catalogChanged(upserted, removed);
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Product catalog listener failed", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+public class ProductRepository {
+    private static final String[] GRID_COLUMNS = {"productId", "productName", "quantityInStock", "price", "volume"};
+    private static final String GRID_SELECT = "productId, productName, quantityInStock, price, volume";
+    private static final String PRODUCT_SELECT = GRID_SELECT + ", description";
+    private static final String SELECT_ALL = "SELECT " + PRODUCT_SELECT + " FROM product ORDER BY productId";
+    private static final String SELECT_BY_ID = "SELECT " + PRODUCT_SELECT + " FROM product WHERE productId = ?";
+    private static final String SELECT_UPDATED_SINCE = "SELECT " + PRODUCT_SELECT + ", updated_at FROM product WHERE updated_at >= ? ORDER BY updated_at";
+    private static final String SELECT_ALL_VERSIONED = "SELECT " + PRODUCT_SELECT + ", updated_at FROM product";
+    private static final String SELECT_IDS = "SELECT productId FROM product";
+    private static final String SELECT_VERSIONS = "SELECT productId, updated_at FROM product";
+    private static final String INSERT = "INSERT INTO product (productName,quantityInStock,price,volume,description) VALUES(?,?,?,?,?)";
+    private static final String UPDATE = "UPDATE product SET productName=?, quantityInStock=?, price=?, volume=? WHERE productId=?\n" +
+            "AND productName=? AND coalesce(quantityInStock,0)=? AND price=? AND coalesce(volume,'')=?";
+    private static final String DELETE = "DELETE FROM product WHERE productId=?";
+    private static final String SELECT_THRESHOLDS = "SELECT productId, threshold, updated_at FROM stock_threshold";
+    private static final String SELECT_THRESHOLDS_SINCE = SELECT_THRESHOLDS + " WHERE updated_at >= ? ORDER BY updated_at";
+    //ลบ threshold ด้วยการตั้งเป็น NULL เพื่อให้เครื่องอื่นเห็นการเปลี่ยนจาก updated_at
+    private static final String UPSERT_THRESHOLD = "INSERT INTO stock_threshold (productId, threshold) VALUES(?,?)\n" +
+            "ON DUPLICATE KEY UPDATE threshold = VALUES(threshold)";
+
+    /** Grid rows for proDb, optionally restricted to names or descriptions containing {@code nameFilter}. */
+    public PageSource grid(String nameFilter) {
+        if (nameFilter == null || nameFilter.isBlank()) {
+            return new KeysetPageSource(GRID_COLUMNS, GRID_SELECT, "product", null, null, "productId");
+        }
+        String pattern = "%" + nameFilter + "%";
+        return new KeysetPageSource(GRID_COLUMNS, GRID_SELECT, "product", "(productName like ? or description like ?)",
+                new Object[]{pattern, pattern}, "productId");
+    }
+
+    /** Column names of {@link #grid(String)}. */
+    public static String[] gridColumns() {
+        return GRID_COLUMNS.clone();
+    }
+
+    /** Maps a row of {@link #grid(String)} back to a product; the grid has no description, so it is null. */
+    public static Product fromGridRow(Object[] values) {
+        return new Product(((Number) values[0]).intValue(), (String) values[1],
+                values[2] == null ? 0 : ((Number) values[2]).intValue(),
+                price(values[3]), (String) values[4], null);
+    }
+
+    //ราคาในแถวของตาราง: DECIMAL จากฐานข้อมูล, ข้อความเมื่อมาจาก server หรือ INT จาก schema ก่อน migrate
+    private static long price(Object value) {
+        if (value instanceof BigDecimal) {
+            return Money.fromDecimal((BigDecimal) value);
+        }
+        if (value instanceof Number) {
+            return Money.ofMajor(((Number) value).longValue());
+        }
+        return Money.parse(value.toString());
+    }
+
+    public List<Product> findAll() throws SQLException {
+        List<Product> products = new ArrayList<>();
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(SELECT_ALL);
+             ResultSet results = preparedStatement.executeQuery()) {
+            while (results.next()) {
+                products.add(map(results));
+            }
+        }
+        return products;
+    }
+
+    public Optional<Product> findById(int productId) throws SQLException {
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(SELECT_BY_ID)) {
+            preparedStatement.setInt(1, productId);
+            try (ResultSet results = preparedStatement.executeQuery()) {
+                return results.next() ? Optional.of(map(results)) : Optional.empty();
+            }
+        }
+    }
+
+    /** Every product with its version; {@code since == null} reads the whole table. */
+    public List<VersionedProduct> findUpdatedSince(Timestamp since) throws SQLException {
+        List<VersionedProduct> products = new ArrayList<>();
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(
+                     since == null ? SELECT_ALL_VERSIONED : SELECT_UPDATED_SINCE)) {
+            if (since != null) {
+                preparedStatement.setTimestamp(1, since);
+            }
+            try (ResultSet results = preparedStatement.executeQuery()) {
+                while (results.next()) {
+                    products.add(new VersionedProduct(map(results), results.getTimestamp("updated_at")));
+                }
+            }
+        }
+        return products;
+    }
+
+    public Set<Integer> findAllIds() throws SQLException {
+        Set<Integer> ids = new HashSet<>();
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(SELECT_IDS);
+             ResultSet results = preparedStatement.executeQuery()) {
+            while (results.next()) {
+                ids.add(results.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    /** {@code updated_at} of every product by productId, without reading the products themselves. */
+    public Map<Integer, Timestamp> findVersions() throws SQLException {
+        Map<Integer, Timestamp> versions = new HashMap<>();
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(SELECT_VERSIONS);
+             ResultSet results = preparedStatement.executeQuery()) {
+            while (results.next()) {
+                versions.put(results.getInt(1), results.getTimestamp(2));
+            }
+        }
+        return versions;
+    }
+
+    /** Inserts the product and returns it with its generated id. */
+    public Product insert(Product product) throws SQLException {
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            preparedStatement.setString(1, product.productName());
+            preparedStatement.setInt(2, product.quantityInStock());
+            preparedStatement.setBigDecimal(3, Money.toDecimal(product.price()));
+            preparedStatement.setString(4, product.volume());
+            preparedStatement.setString(5, product.description());
+            preparedStatement.executeUpdate();
+            try (ResultSet keys = preparedStatement.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("No id generated for new product");
+                }
+                return product.withId(keys.getInt(1));
+            }
+        }
+    }
+
+    /**
+     * Replaces {@code current} with {@code product} only if the row still holds the values of {@code current}.
+     * Returns false when the product was deleted or changed by someone else in the meantime (for example a sale
+     * on another till), so a stale stock figure from the form never overwrites a newer one. The price is compared as
+     * the exact {@code DECIMAL}, so products priced with satang can be updated too. The description is left as it
+     * is in the database.
+     */
+    public boolean update(Product current, Product product) throws SQLException {
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(UPDATE)) {
+            preparedStatement.setString(1, product.productName());
+            preparedStatement.setInt(2, product.quantityInStock());
+            preparedStatement.setBigDecimal(3, Money.toDecimal(product.price()));
+            preparedStatement.setString(4, product.volume());
+            preparedStatement.setInt(5, current.productId());
+            preparedStatement.setString(6, current.productName());
+            preparedStatement.setInt(7, current.quantityInStock());
+            preparedStatement.setBigDecimal(8, Money.toDecimal(current.price()));
+            preparedStatement.setString(9, current.volume() == null ? "" : current.volume());
+            return preparedStatement.executeUpdate() == 1;
+        }
+    }
+
+    public boolean delete(int productId) throws SQLException {
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(DELETE)) {
+            preparedStatement.setInt(1, productId);
+            return preparedStatement.executeUpdate() == 1;
+        }
+    }
+
+    /** Alert levels changed at or after {@code since}; {@code since == null} reads them all. */
+    public List<StockThreshold> findThresholdsUpdatedSince(Timestamp since) throws SQLException {
+        List<StockThreshold> thresholds = new ArrayList<>();
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(
+                     since == null ? SELECT_THRESHOLDS : SELECT_THRESHOLDS_SINCE)) {
+            if (since != null) {
+                preparedStatement.setTimestamp(1, since);
+            }
+            try (ResultSet results = preparedStatement.executeQuery()) {
+                while (results.next()) {
+                    int threshold = results.getInt("threshold");
+                    thresholds.add(new StockThreshold(results.getInt("productId"),
+                            results.wasNull() ? null : threshold, results.getTimestamp("updated_at")));
+                }
+            }
+        }
+        return thresholds;
+    }
+
+    /** Sets the alert level of a product; null goes back to the default level. */
+    public void setThreshold(int productId, Integer threshold) throws SQLException {
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(UPSERT_THRESHOLD)) {
+            preparedStatement.setInt(1, productId);
+            if (threshold == null) {
+                preparedStatement.setNull(2, Types.INTEGER);
+            } else {
+                preparedStatement.setInt(2, threshold);
+            }
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    private static Product map(ResultSet results) throws SQLException {
+        return new Product(results.getInt("productId"), results.getString("productName"),
+                results.getInt("quantityInStock"), Money.fromDecimal(results.getBigDecimal("price")),
+                results.getString("volume"), results.getString("description"));
+    }
+}
@@ -0,0 +1,460 @@
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory product name search that needs no word breaks, so Thai names work as well as English ones.
+ * Every character and every pair of adjacent characters of a name is a key of an inverted index (n-grams of 1 and 2),
+ * each listing the products that contain it. A substring search reads the shortest list among the query's keys and
+ * checks only those products; a typo-tolerant search counts how many of the query's pairs each product shares and
+ * checks the ones sharing enough with a bounded edit distance. Descriptions have an index of their own, searched
+ * for substrings only, so their length neither slows down nor crowds out the typo search over names.
+ * Kept current with {@link #put} and {@link #remove}.
+ */
+public class ProductSearchIndex {
+    /** Queries of at least this many characters also match names with one typo, twice as long with two. */
+    private static final int FUZZY_MIN_LENGTH = 4;
+
+    public enum Kind { EXACT, PREFIX, SUBSTRING, DESCRIPTION, FUZZY }
+
+    /** A found product; {@code edits} is 0 unless {@code kind} is {@link Kind#FUZZY}. */
+    public record Match(Product product, Kind kind, int edits) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Integer> slotOf = new HashMap<>();
+    private final Map<Integer, Postings> postings = new HashMap<>();
+    private final Map<Integer, Postings> descriptionPostings = new HashMap<>();
+    private Product[] products = new Product[0];
+    private String[] texts = new String[0];
+    private String[] descriptions = new String[0];
+    private int[] freeSlots = new int[0];
+    private int freeCount;
+    private int slotCount;
+
+    public void build(Collection<Product> all) {
+        lock.writeLock().lock();
+        try {
+            slotOf.clear();
+            postings.clear();
+            descriptionPostings.clear();
+            products = new Product[all.size()];
+            texts = new String[all.size()];
+            descriptions = new String[all.size()];
+            freeCount = 0;
+            slotCount = 0;
+            for (Product product : all) {
+                add(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Adds a new product or re-indexes an existing one. */
+    public void put(Product product) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotOf.get(product.productId());
+            if (slot != null && texts[slot].equals(normalize(product.productName()))
+                    && descriptions[slot].equals(normalize(product.description()))) {
+                products[slot] = product;
+                return;
+            }
+            if (slot != null) {
+                unindex(slot);
+            }
+            add(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int productId) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotOf.get(productId);
+            if (slot != null) {
+                unindex(slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotOf.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Products whose name or description contains {@code text} (case-insensitive), in no particular order; all for
+     * blank text.
+     */
+    public List<Product> containing(String text) {
+        String needle = normalize(text);
+        lock.readLock().lock();
+        try {
+            List<Product> found = new ArrayList<>();
+            if (needle.isEmpty()) {
+                for (int slot = 0; slot < slotCount; slot++) {
+                    if (products[slot] != null) {
+                        found.add(products[slot]);
+                    }
+                }
+                return found;
+            }
+            Postings candidates = shortest(postings, needle);
+            if (candidates != null) {
+                for (int i = 0; i < candidates.size; i++) {
+                    int slot = candidates.slots[i];
+                    if (texts[slot].contains(needle)) {
+                        found.add(products[slot]);
+                    }
+                }
+            }
+            candidates = shortest(descriptionPostings, needle);
+            if (candidates != null) {
+                for (int i = 0; i < candidates.size; i++) {
+                    int slot = candidates.slots[i];
+                    if (!texts[slot].contains(needle) && descriptions[slot].contains(needle)) {
+                        found.add(products[slot]);
+                    }
+                }
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The best {@code limit} matches for {@code text}: the exact name first, then names starting with it, then names
+     * containing it, then descriptions containing it, then (for longer queries) names containing it with a typo or
+     * two, fewest typos first. Ties go to the shorter name, then the lower productId.
+     */
+    public List<Match> search(String text, int limit) {
+        String needle = normalize(text);
+        if (needle.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Ranks ranks = new Ranks();
+            Postings candidates = shortest(postings, needle);
+            if (candidates != null) {
+                for (int i = 0; i < candidates.size; i++) {
+                    int slot = candidates.slots[i];
+                    String name = texts[slot];
+                    if (name.equals(needle)) {
+                        ranks.add(Kind.EXACT, 0, slot);
+                    } else if (name.startsWith(needle)) {
+                        ranks.add(Kind.PREFIX, 0, slot);
+                    } else if (name.contains(needle)) {
+                        ranks.add(Kind.SUBSTRING, 0, slot);
+                    }
+                }
+            }
+            candidates = shortest(descriptionPostings, needle);
+            if (candidates != null) {
+                for (int i = 0; i < candidates.size; i++) {
+                    int slot = candidates.slots[i];
+                    if (!texts[slot].contains(needle) && descriptions[slot].contains(needle)) {
+                        ranks.add(Kind.DESCRIPTION, 0, slot);
+                    }
+                }
+            }
+            int maxEdits = needle.length() > Long.SIZE ? 0 : Math.min(2, needle.length() / FUZZY_MIN_LENGTH);
+            if (ranks.size < limit && maxEdits > 0) {
+                addFuzzy(needle, maxEdits, ranks);
+            }
+            return ranks.best(limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //แต่ละตัวที่พิมพ์ผิดทำให้คู่ตัวอักษรของคำค้นหายไปได้ไม่เกิน 2 คู่ (สลับที่กันนับเป็น 1 ตัว แต่อาจหายได้ 3 คู่)
+    //ชื่อที่มีคู่ร่วมน้อยกว่านั้นจึงไม่มีทางผ่าน ไม่ต้องคำนวณ edit distance
+    private void addFuzzy(String needle, int maxEdits, Ranks ranks) {
+        int[] grams = bigrams(needle);
+        int required = Math.max(1, grams.length - 3 * maxEdits);
+        //นับคู่ร่วมเป็น byte (คำค้นหามีไม่เกิน 63 คู่) และเก็บ slot ที่ครบ required ไว้ตรวจต่อ ไม่ต้องไล่ทุก slot
+        byte[] shared = new byte[slotCount];
+        int[] candidates = new int[16];
+        int candidateCount = 0;
+        for (int gram : grams) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                continue;
+            }
+            for (int i = 0; i < list.size; i++) {
+                int slot = list.slots[i];
+                if (++shared[slot] == required) {
+                    if (candidateCount == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                    }
+                    candidates[candidateCount++] = slot;
+                }
+            }
+        }
+        Pattern pattern = new Pattern(needle);
+        for (int i = 0; i < candidateCount; i++) {
+            int slot = candidates[i];
+            if (texts[slot].contains(needle) || descriptions[slot].contains(needle)) {
+                continue;
+            }
+            int edits = pattern.distance(texts[slot], maxEdits);
+            if (edits <= maxEdits) {
+                ranks.add(Kind.FUZZY, edits, slot);
+            }
+        }
+    }
+
+    /** Fewest edits (insert, delete, replace or swap two neighbours) turning {@code needle} into some substring of {@code text}. */
+    static int substringDistance(String needle, String text) {
+        return new Pattern(needle).distance(text, Integer.MAX_VALUE - 1);
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : Normalizer.normalize(text, Normalizer.Form.NFKC).strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static Postings shortest(Map<Integer, Postings> postings, String needle) {
+        Postings shortest = null;
+        for (int gram : needle.length() == 1 ? new int[]{needle.charAt(0)} : bigrams(needle)) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return null;
+            }
+            if (shortest == null || list.size < shortest.size) {
+                shortest = list;
+            }
+        }
+        return shortest;
+    }
+
+    private void add(Product product) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            slot = slotCount++;
+            if (slot == products.length) {
+                int capacity = Math.max(16, slot + (slot >> 1));
+                products = Arrays.copyOf(products, capacity);
+                texts = Arrays.copyOf(texts, capacity);
+                descriptions = Arrays.copyOf(descriptions, capacity);
+            }
+        }
+        String text = normalize(product.productName());
+        String description = normalize(product.description());
+        products[slot] = product;
+        texts[slot] = text;
+        descriptions[slot] = description;
+        slotOf.put(product.productId(), slot);
+        for (int gram : grams(text)) {
+            postings.computeIfAbsent(gram, g -> new Postings()).add(slot);
+        }
+        for (int gram : grams(description)) {
+            descriptionPostings.computeIfAbsent(gram, g -> new Postings()).add(slot);
+        }
+    }
+
+    private void unindex(int slot) {
+        unindex(postings, slot, texts[slot]);
+        unindex(descriptionPostings, slot, descriptions[slot]);
+        slotOf.remove(products[slot].productId());
+        products[slot] = null;
+        texts[slot] = null;
+        descriptions[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeCount * 2));
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private static void unindex(Map<Integer, Postings> postings, int slot, String text) {
+        for (int gram : grams(text)) {
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(slot) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    //ตัวอักษรเดี่ยวเป็น key 0..0xFFFF และคู่ตัวอักษรเป็น key ตั้งแต่ 0x10000 ขึ้นไป จึงไม่ชนกัน
+    private static int[] grams(String text) {
+        int[] pairs = bigrams(text);
+        int[] grams = new int[text.length() + pairs.length];
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            grams[count++] = text.charAt(i);
+        }
+        for (int pair : pairs) {
+            grams[count++] = pair;
+        }
+        return distinct(grams, count);
+    }
+
+    private static int[] bigrams(String text) {
+        int count = Math.max(0, text.length() - 1);
+        int[] pairs = new int[count];
+        for (int i = 0; i < count; i++) {
+            pairs[i] = (Math.min(text.charAt(i), 0xFFFE) + 1) << 16 | text.charAt(i + 1);
+        }
+        return distinct(pairs, count);
+    }
+
+    private static int[] distinct(int[] values, int count) {
+        int[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (unique == 0 || sorted[i] != sorted[unique - 1]) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, unique);
+    }
+
+    /**
+     * Matches packed into one {@code long} each (kind, edits, name length, productId from the high bits down), so
+     * ranking thousands of candidates is a primitive sort and only the returned ones become {@link Match} objects.
+     */
+    private final class Ranks {
+        long[] keys = new long[16];
+        int size;
+
+        void add(Kind kind, int edits, int slot) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size++] = (long) kind.ordinal() << 49 | (long) edits << 47
+                    | (long) Math.min(texts[slot].length(), 0xFFFF) << 31 | products[slot].productId();
+        }
+
+        List<Match> best(int limit) {
+            Arrays.sort(keys, 0, size);
+            List<Match> matches = new ArrayList<>(Math.min(size, limit));
+            for (int i = 0; i < size && i < limit; i++) {
+                long key = keys[i];
+                Product product = products[slotOf.get((int) (key & Integer.MAX_VALUE))];
+                matches.add(new Match(product, Kind.values()[(int) (key >>> 49)], (int) (key >>> 47) & 3));
+            }
+            return matches;
+        }
+    }
+
+    /**
+     * A query of up to 64 characters for {@link #distance}: the Myers/Hyyrö bit-vector edit distance with
+     * transpositions, one column of the edit distance table per text character in a few {@code long} operations.
+     */
+    static final class Pattern {
+        private static final int TABLE_SIZE = 256;
+
+        private final int length;
+        private final long last;
+        //ตัวอักษรของคำค้นหาแต่ละตัวอยู่ในช่อง hash ของตัวเอง ตัวที่ช่องชนกันไปค้นใน others แทน
+        private final char[] tableChars = new char[TABLE_SIZE];
+        private final long[] tableMasks = new long[TABLE_SIZE];
+        private final Map<Character, Long> others = new HashMap<>();
+
+        Pattern(String needle) {
+            if (needle.isEmpty() || needle.length() > Long.SIZE) {
+                throw new IllegalArgumentException("Pattern length must be 1 to 64: " + needle.length());
+            }
+            length = needle.length();
+            last = 1L << (length - 1);
+            Map<Character, Long> masks = new HashMap<>();
+            for (int i = 0; i < length; i++) {
+                masks.merge(needle.charAt(i), 1L << i, (x, y) -> x | y);
+            }
+            for (Map.Entry<Character, Long> entry : masks.entrySet()) {
+                char c = entry.getKey();
+                int index = index(c);
+                if (tableMasks[index] == 0) {
+                    tableChars[index] = c;
+                    tableMasks[index] = entry.getValue();
+                } else {
+                    others.put(c, entry.getValue());
+                }
+            }
+        }
+
+        private static int index(char c) {
+            return (c ^ c >>> 7) & (TABLE_SIZE - 1);
+        }
+
+        private long mask(char c) {
+            int index = index(c);
+            if (tableChars[index] == c) {
+                return tableMasks[index];
+            }
+            return others.isEmpty() ? 0 : others.getOrDefault(c, 0L);
+        }
+
+        /** Edits to the closest substring of {@code text}; {@code max + 1} once it cannot be {@code max} or fewer. */
+        int distance(String text, int max) {
+            long positive = length == Long.SIZE ? -1L : (1L << length) - 1;
+            long negative = 0;
+            long diagonal = 0;
+            long previousMatch = 0;
+            int score = length;
+            int best = length;
+            for (int j = 0; j < text.length() && best > 0; j++) {
+                long match = mask(text.charAt(j));
+                long transposed = ((~diagonal & match) << 1) & previousMatch;
+                diagonal = (((match & positive) + positive) ^ positive) | match | negative | transposed;
+                long horizontalPositive = negative | ~(diagonal | positive);
+                long horizontalNegative = diagonal & positive;
+                if ((horizontalPositive & last) != 0) {
+                    score++;
+                } else if ((horizontalNegative & last) != 0) {
+                    score--;
+                }
+                //ตำแหน่งเริ่มใน text เริ่มได้ทุกที่ แถวบนสุดจึงเป็น 0 ตลอด ไม่ต้องเติมบิต 1 เข้ามา
+                horizontalPositive <<= 1;
+                negative = horizontalPositive & diagonal;
+                positive = (horizontalNegative << 1) | ~(horizontalPositive | diagonal);
+                previousMatch = match;
+                best = Math.min(best, score);
+            }
+            return Math.min(best, max + 1);
+        }
+    }
+
+    /** Slots of the products containing one n-gram, unordered. */
+    private static final class Postings {
+        int[] slots = new int[4];
+        int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        boolean remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    slots[i] = slots[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * {@link StoreService} of a thin client: every call is one HTTP request to a {@link StoreServer}, which holds the
+ * connection pool and caches. If the server cannot be reached the call fails with SQLState {@code 08001}, the same as
+ * a lost database connection, so {@link OfflineJournal} keeps the writes and replays them later. A request that was
+ * sent but got no answer (a timeout, a dropped connection) fails with {@code 08S01}: the server may still have
+ * committed it, which the journal's sequence numbers sent along with every write ({@link StoreService#apply}) make safe
+ * to replay.
+ */
+public class RemoteStoreService implements StoreService {
+    private static final Duration TIMEOUT = Duration.ofMillis(Long.getLong("storemom.server.timeoutMs", 10_000L));
+
+    private final URI base;
+    private final long origin;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+
+    public RemoteStoreService(URI base) {
+        this(base, 0);
+    }
+
+    /** {@code origin} is this till's {@link ChangeBus#origin()}, so the server does not send its writes back to it. */
+    public RemoteStoreService(URI base, long origin) {
+        this.base = base;
+        this.origin = origin;
+    }
+
+    @Override
+    public List<Customer> customers() throws SQLException {
+        List<Customer> customers = new ArrayList<>();
+        for (Object json : (List<?>) get("/api/customers", Map.of())) {
+            customers.add(StoreCodec.customer(json));
+        }
+        return customers;
+    }
+
+    @Override
+    public Optional<Product> product(int productId) throws SQLException {
+        Object json = get("/api/product", Map.of("id", productId));
+        return json == null ? Optional.empty() : Optional.of(StoreCodec.product(json));
+    }
+
+    @Override
+    public List<VersionedProduct> productsUpdatedSince(Timestamp since) throws SQLException {
+        List<VersionedProduct> rows = new ArrayList<>();
+        for (Object json : (List<?>) get("/api/products", since(since))) {
+            rows.add(StoreCodec.versionedProduct(json));
+        }
+        return rows;
+    }
+
+    @Override
+    public Set<Integer> productIds() throws SQLException {
+        Set<Integer> ids = new HashSet<>();
+        for (Object id : (List<?>) get("/api/products/ids", Map.of())) {
+            ids.add(StoreCodec.integer(id));
+        }
+        return ids;
+    }
+
+    @Override
+    public Map<Integer, Timestamp> productVersions() throws SQLException {
+        return StoreCodec.versions(get("/api/products/versions", Map.of()));
+    }
+
+    @Override
+    public List<StockThreshold> thresholdsUpdatedSince(Timestamp since) throws SQLException {
+        List<StockThreshold> rows = new ArrayList<>();
+        for (Object json : (List<?>) get("/api/thresholds", since(since))) {
+            rows.add(StoreCodec.threshold(json));
+        }
+        return rows;
+    }
+
+    @Override
+    public void setThreshold(int productId, Integer threshold) throws SQLException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("productId", productId);
+        body.put("threshold", threshold);
+        post("/api/thresholds", body);
+    }
+
+    @Override
+    public SalesSummary.Snapshot salesOf(LocalDate day) throws SQLException {
+        return StoreCodec.sales(get("/api/sales", Map.of("day", day)));
+    }
+
+    @Override
+    public PageSource customerGrid(String nameFilter) {
+        return new RemotePageSource("/api/grid/customers", OrderRepository.customerGridColumns(), filter(nameFilter));
+    }
+
+    @Override
+    public PageSource customerGridByIds(Collection<Integer> customerIds) {
+        StringJoiner ids = new StringJoiner(",");
+        for (Integer id : customerIds) {
+            ids.add(id.toString());
+        }
+        return new RemotePageSource("/api/grid/customers", OrderRepository.customerGridColumns(),
+                Map.of("ids", ids.toString()));
+    }
+
+    @Override
+    public PageSource productGrid(String nameFilter) {
+        return new RemotePageSource("/api/grid/products", ProductRepository.gridColumns(), filter(nameFilter));
+    }
+
+    @Override
+    public List<Outcome> apply(long terminalId, long firstSeq, List<Mutation<?>> mutations) throws SQLException {
+        List<Object> body = new ArrayList<>(mutations.size());
+        try {
+            for (Mutation<?> mutation : mutations) {
+                body.add(StoreCodec.mutation(mutation));
+            }
+        } catch (IOException ex) {
+            throw new SQLException("Cannot encode writes", ex);
+        }
+        List<?> results = (List<?>) post("/api/mutations?terminal=" + terminalId + "&seq=" + firstSeq + "&origin=" + origin,
+                body);
+        List<Outcome> outcomes = new ArrayList<>(results.size());
+        for (int i = 0; i < results.size(); i++) {
+            Map<?, ?> result = (Map<?, ?>) results.get(i);
+            outcomes.add(result.containsKey("error")
+                    ? new Outcome(null, StoreCodec.error(result))
+                    : new Outcome(StoreCodec.result(mutations.get(i), result.get("value")), null));
+        }
+        return outcomes;
+    }
+
+    @Override
+    public void replay(long terminalId, List<WriteJournal.Entry> entries) throws SQLException {
+        List<Object> body = new ArrayList<>(entries.size());
+        for (WriteJournal.Entry entry : entries) {
+            body.add(StoreCodec.entry(entry));
+        }
+        post("/api/replay?terminal=" + terminalId + "&origin=" + origin, body);
+    }
+
+    @Override
+    public String toString() {
+        return "RemoteStoreService[" + base + "]";
+    }
+
+    private static Map<String, Object> since(Timestamp since) {
+        return since == null ? Map.of() : Map.of("since", since);
+    }
+
+    private static Map<String, Object> filter(String nameFilter) {
+        return nameFilter == null || nameFilter.isBlank() ? Map.of() : Map.of("name", nameFilter);
+    }
+
+    Object get(String path, Map<String, ?> query) throws SQLException {
+        return send(HttpRequest.newBuilder(uri(path, query)).GET());
+    }
+
+    private Object post(String path, Object body) throws SQLException {
+        return send(HttpRequest.newBuilder(uri(path, Map.of()))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(Json.write(body), StandardCharsets.UTF_8)));
+    }
+
+    private URI uri(String path, Map<String, ?> query) {
+        StringJoiner params = new StringJoiner("&", path.contains("?") ? "&" : "?", "").setEmptyValue("");
+        for (Map.Entry<String, ?> param : query.entrySet()) {
+            params.add(param.getKey() + "=" + URLEncoder.encode(String.valueOf(param.getValue()), StandardCharsets.UTF_8));
+        }
+        return base.resolve(path + params);
+    }
+
+    private Object send(HttpRequest.Builder request) throws SQLException {
+        HttpResponse<String> response;
+        try {
+            response = client.send(request.timeout(TIMEOUT).build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (ConnectException | HttpConnectTimeoutException | UnknownHostException ex) {
+            throw new SQLTransientConnectionException("Store server " + base + " unreachable", "08001", ex);
+        } catch (IOException ex) {
+            throw new SQLRecoverableException("No answer from store server " + base + ", the request may have been applied",
+                    "08S01", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for " + base, ex);
+        }
+        Object json = response.body().isEmpty() ? null : Json.parse(response.body());
+        if (response.statusCode() != 200) {
+            throw json instanceof Map && ((Map<?, ?>) json).containsKey("error")
+                    ? StoreCodec.error(json)
+                    : new SQLException("Store server answered " + response.statusCode());
+        }
+        return json;
+    }
+
+    /** One grid of the server, addressed by path and filter; columns are known locally so no call is needed. */
+    private final class RemotePageSource implements PageSource {
+        private final String path;
+        private final String[] columnNames;
+        private final Map<String, Object> filter;
+
+        private RemotePageSource(String path, String[] columnNames, Map<String, ?> filter) {
+            this.path = path;
+            this.columnNames = columnNames;
+            this.filter = new LinkedHashMap<>(filter);
+        }
+
+        @Override
+        public String[] columnNames() {
+            return columnNames.clone();
+        }
+
+        @Override
+        public int count() throws SQLException {
+            return StoreCodec.integer(get(path, query("count", null, 0)));
+        }
+
+        @Override
+        public List<Row> fetch(Object[] afterKey, int limit) throws SQLException {
+            List<Row> rows = new ArrayList<>();
+            for (Object json : (List<?>) get(path, query("fetch", afterKey, limit))) {
+                rows.add(StoreCodec.row(json));
+            }
+            return rows;
+        }
+
+        @Override
+        public Object[] skip(Object[] afterKey, int count) throws SQLException {
+            return StoreCodec.array(get(path, query("skip", afterKey, count)));
+        }
+
+        private Map<String, Object> query(String op, Object[] afterKey, int limit) {
+            Map<String, Object> query = new LinkedHashMap<>(filter);
+            query.put("op", op);
+            if (afterKey != null) {
+                query.put("after", Json.write(StoreCodec.cells(afterKey)));
+            }
+            if (limit > 0) {
+                query.put("limit", limit);
+            }
+            return query;
+        }
+
+        @Override
+        public String toString() {
+            return base.resolve(path) + filter.toString();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Monthly sales rollups kept next to the orders they summarise.
+ * {@code sales_monthly} holds revenue, quantity and profit per month x product x customer and
+ * {@code sales_monthly_total} one row per month, so reports read a handful of rows per month instead of grouping
+ * every orderdetail row. Triggers on orders and orderdetail (db/migrate.sql) keep both up to date inside the
+ * transaction of every write, whether the desktop app, the web app or a CSV import makes it;
+ * {@link #backfill()} rebuilds them from the existing orders once after migrating.
+ * <pre>java -cp "out;lib/*" SalesSummary backfill | report yyyy-MM [yyyy-MM]</pre>
+ */
+public class SalesSummary {
+    //order เก่าก่อนมี lineTotal/lineProfit ใช้ยอดจาก priceEach และแบ่งกำไรของทั้ง order ตามสัดส่วนยอดขาย
+    private static final String BACKFILL_LINES = "INSERT INTO sales_monthly (sales_month, product_id, customer_id, revenue, quantity, profit, order_count)\n" +
+            "SELECT DATE_FORMAT(o.orderDate, '%Y-%m-01'), od.productId, o.customer_id,\n" +
+            "sum(coalesce(od.lineTotal, coalesce(od.quantityOrdered, 0) * coalesce(od.priceEach, 0))), sum(coalesce(od.quantityOrdered, 0)),\n" +
+            "sum(coalesce(od.lineProfit, CASE WHEN o.totalAmount > 0 THEN round(coalesce(o.profit, 0)\n" +
+            "  * coalesce(od.quantityOrdered, 0) * coalesce(od.priceEach, 0) / o.totalAmount, 2) ELSE 0 END)),\n" +
+            "count(DISTINCT o.orderId)\n" +
+            "FROM orders o JOIN orderdetail od ON od.orderId = o.orderId\n" +
+            "WHERE o.orderDate IS NOT NULL GROUP BY 1, 2, 3";
+    private static final String BACKFILL_MONTHS = "INSERT INTO sales_monthly_total (sales_month, revenue, quantity, profit, order_count)\n" +
+            "SELECT DATE_FORMAT(o.orderDate, '%Y-%m-01'), sum(coalesce(o.totalAmount, 0)), coalesce(sum(q.quantity), 0),\n" +
+            "sum(coalesce(o.profit, 0)), count(*)\n" +
+            "FROM orders o LEFT JOIN (SELECT orderId, sum(quantityOrdered) quantity FROM orderdetail GROUP BY orderId) q\n" +
+            "ON q.orderId = o.orderId WHERE o.orderDate IS NOT NULL GROUP BY 1";
+    private static final String SELECT_MONTHS = "SELECT sales_month, revenue, quantity, profit, order_count FROM sales_monthly_total\n" +
+            "WHERE sales_month BETWEEN ? AND ? ORDER BY sales_month";
+    private static final String SELECT_TOP_PRODUCTS = "SELECT product_id, sum(revenue) revenue, sum(quantity) quantity, sum(profit) profit\n" +
+            "FROM sales_monthly WHERE sales_month = ? GROUP BY product_id ORDER BY quantity DESC, product_id LIMIT ?";
+    private static final String SELECT_TOP_CUSTOMERS = "SELECT customer_id, sum(revenue) revenue, sum(quantity) quantity, sum(profit) profit\n" +
+            "FROM sales_monthly WHERE sales_month = ? GROUP BY customer_id ORDER BY revenue DESC, customer_id LIMIT ?";
+    private static final String SELECT_MONTH_ROWS = "SELECT product_id, customer_id, revenue, quantity FROM sales_monthly WHERE sales_month = ?";
+    private static final String SELECT_DAY_ROWS = "SELECT od.productId, o.customer_id, sum(coalesce(od.lineTotal, coalesce(od.quantityOrdered, 0) * coalesce(od.priceEach, 0))) revenue,\n" +
+            "sum(coalesce(od.quantityOrdered, 0)) quantity FROM orders o JOIN orderdetail od ON od.orderId = o.orderId\n" +
+            "WHERE o.orderDate >= ? AND o.orderDate < ? GROUP BY od.productId, o.customer_id";
+    private static final String SELECT_LAST_ORDER_ID = "SELECT coalesce(max(orderId), 0) FROM orders";
+
+    /** Revenue and profit in satang ({@link Money}). */
+    public record MonthlySales(YearMonth month, long revenue, long quantity, long profit, int orderCount) {
+    }
+
+    /** Totals of one product or one customer within a month. */
+    public record SalesLine(int id, long revenue, long quantity, long profit) {
+    }
+
+    /** Sales of one product to one customer within a period. */
+    public record SaleRow(int productId, int customerId, long revenue, long quantity) {
+    }
+
+    /**
+     * Sales of one day and of its month as of one moment; {@code lastOrderId} is the newest order they include, so
+     * orders announced afterwards can tell whether they are already counted.
+     */
+    public record Snapshot(int lastOrderId, List<SaleRow> day, List<SaleRow> month) {
+    }
+
+    public record BackfillReport(int rollupRows, int months, long elapsedMillis) {
+    }
+
+    /**
+     * Rebuilds both rollups from orders and orderdetail in one transaction. Orders placed while it runs wait for it
+     * and are added on top afterwards.
+     */
+    public BackfillReport backfill() throws SQLException {
+        long start = System.nanoTime();
+        return UnitOfWork.run(unitOfWork -> {
+            try (Statement statement = unitOfWork.connection().createStatement()) {
+                statement.executeUpdate("DELETE FROM sales_monthly");
+                statement.executeUpdate("DELETE FROM sales_monthly_total");
+                int rows = statement.executeUpdate(BACKFILL_LINES);
+                int months = statement.executeUpdate(BACKFILL_MONTHS);
+                return new BackfillReport(rows, months, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        });
+    }
+
+    /** One entry per month from {@code from} to {@code to}, months without sales included as zeros. */
+    public List<MonthlySales> monthly(YearMonth from, YearMonth to) throws SQLException {
+        Map<YearMonth, MonthlySales> found = new TreeMap<>();
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(SELECT_MONTHS)) {
+            preparedStatement.setDate(1, firstDay(from));
+            preparedStatement.setDate(2, firstDay(to));
+            try (ResultSet results = preparedStatement.executeQuery()) {
+                while (results.next()) {
+                    YearMonth month = YearMonth.from(results.getDate("sales_month").toLocalDate());
+                    found.put(month, new MonthlySales(month, Money.fromDecimal(results.getBigDecimal("revenue")),
+                            results.getLong("quantity"), Money.fromDecimal(results.getBigDecimal("profit")),
+                            results.getInt("order_count")));
+                }
+            }
+        }
+        List<MonthlySales> months = new ArrayList<>();
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            months.add(found.getOrDefault(month, new MonthlySales(month, 0, 0, 0, 0)));
+        }
+        return months;
+    }
+
+    /** Best selling products of the month by quantity. */
+    public List<SalesLine> topProducts(YearMonth month, int limit) throws SQLException {
+        return top(SELECT_TOP_PRODUCTS, month, limit);
+    }
+
+    /** Customers of the month by revenue. */
+    public List<SalesLine> topCustomers(YearMonth month, int limit) throws SQLException {
+        return top(SELECT_TOP_CUSTOMERS, month, limit);
+    }
+
+    /** Per product x customer totals of the month, read from the rollup. */
+    public List<SaleRow> monthRows(YearMonth month) throws SQLException {
+        return saleRows(SELECT_MONTH_ROWS, firstDay(month), null);
+    }
+
+    /** Per product x customer totals of one day, read from that day's orders only. */
+    public List<SaleRow> dayRows(LocalDate day) throws SQLException {
+        return saleRows(SELECT_DAY_ROWS, Timestamp.valueOf(day.atStartOfDay()), Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+    }
+
+    /** {@link #dayRows} and {@link #monthRows} of {@code day} read in one transaction with the newest order id. */
+    public Snapshot snapshot(LocalDate day) throws SQLException {
+        return UnitOfWork.run(unitOfWork -> {
+            int lastOrderId;
+            try (Statement statement = unitOfWork.connection().createStatement();
+                 ResultSet results = statement.executeQuery(SELECT_LAST_ORDER_ID)) {
+                results.next();
+                lastOrderId = results.getInt(1);
+            }
+            return new Snapshot(lastOrderId, dayRows(day), monthRows(YearMonth.from(day)));
+        });
+    }
+
+    private static List<SaleRow> saleRows(String sql, Object from, Object to) throws SQLException {
+        List<SaleRow> rows = new ArrayList<>();
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setObject(1, from);
+            if (to != null) {
+                preparedStatement.setObject(2, to);
+            }
+            try (ResultSet results = preparedStatement.executeQuery()) {
+                while (results.next()) {
+                    rows.add(new SaleRow(results.getInt(1), results.getInt(2),
+                            Money.fromDecimal(results.getBigDecimal("revenue")), results.getLong("quantity")));
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static List<SalesLine> top(String sql, YearMonth month, int limit) throws SQLException {
+        List<SalesLine> lines = new ArrayList<>();
+        try (Connection connection = storeConnection.connect();
+             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setDate(1, firstDay(month));
+            preparedStatement.setInt(2, limit);
+            try (ResultSet results = preparedStatement.executeQuery()) {
+                while (results.next()) {
+                    lines.add(new SalesLine(results.getInt(1), Money.fromDecimal(results.getBigDecimal("revenue")),
+                            results.getLong("quantity"), Money.fromDecimal(results.getBigDecimal("profit"))));
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static Date firstDay(YearMonth month) {
+        return Date.valueOf(month.atDay(1));
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1 || (args[0].equals("report") && args.length < 2)) {
+            System.err.println("usage: SalesSummary backfill | report yyyy-MM [yyyy-MM]");
+            System.exit(2);
+        }
+        SalesSummary summary = new SalesSummary();
+        if (args[0].equals("backfill")) {
+            BackfillReport report = summary.backfill();
+            System.out.printf("rebuilt %d rollup rows over %d months in %d ms%n",
+                    report.rollupRows(), report.months(), report.elapsedMillis());
+            return;
+        }
+        YearMonth from = YearMonth.parse(args[1]);
+        YearMonth to = args.length > 2 ? YearMonth.parse(args[2]) : from;
+        for (MonthlySales month : summary.monthly(from, to)) {
+            System.out.printf("%s  revenue %s  quantity %d  profit %s  orders %d%n", month.month(),
+                    Money.format(month.revenue()), month.quantity(), Money.format(month.profit()), month.orderCount());
+        }
+    }
+}
@@ -0,0 +1,200 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * LRU cache of prepared statements for one physical connection.
+ * Closing a statement obtained from the cache closes its result sets, clears its parameters and parks it for the
+ * next caller preparing the same SQL, so the server-side prepare is done once per connection.
+ * Every {@code execute*} call is timed in {@link DbMetrics} under its SQL; a query until its result set is closed,
+ * with the rows read from it.
+ */
+class StatementCache {
+    private static final Logger LOGGER = Logger.getLogger(StatementCache.class.getName());
+
+    private final int maxSize;
+    private final LinkedHashMap<Key, PreparedStatement> idle = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    StatementCache(int maxSize, AtomicLong hits, AtomicLong misses) {
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+    }
+
+    synchronized PreparedStatement prepare(Connection physical, String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        PreparedStatement statement = idle.remove(key);
+        if (statement != null && !statement.isClosed()) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            statement = autoGeneratedKeys == Statement.NO_GENERATED_KEYS
+                    ? physical.prepareStatement(sql)
+                    : physical.prepareStatement(sql, autoGeneratedKeys);
+        }
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new Handle(key, statement));
+    }
+
+    private synchronized void park(Key key, PreparedStatement statement) {
+        if (maxSize <= 0) {
+            closeQuietly(statement);
+            return;
+        }
+        PreparedStatement previous = idle.put(key, statement);
+        if (previous != null && previous != statement) {
+            closeQuietly(previous);
+        }
+        Iterator<PreparedStatement> eldest = idle.values().iterator();
+        while (idle.size() > maxSize && eldest.hasNext()) {
+            closeQuietly(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ex) {
+            LOGGER.log(Level.FINE, "Error closing cached statement", ex);
+        }
+    }
+
+    private record Key(String sql, int autoGeneratedKeys) {
+    }
+
+    private final class Handle implements InvocationHandler {
+        private final Key key;
+        private final PreparedStatement delegate;
+        private final List<ResultSet> resultSets = new ArrayList<>();
+        private boolean closed;
+
+        private Handle(Key key, PreparedStatement delegate) {
+            this.key = key;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        recycle();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+            DbMetrics.Sample sample = method.getName().startsWith("execute")
+                    ? DbMetrics.get().startSql(key.sql())
+                    : null;
+            try {
+                Object result = method.invoke(delegate, args);
+                if (result instanceof ResultSet) {
+                    if (sample != null) {
+                        //ยังไม่จบตอน executeQuery คืนค่า จับเวลาต่อจนปิด result set และนับแถวที่อ่าน
+                        result = Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                                new Class<?>[]{ResultSet.class}, new TimedResults((ResultSet) result, sample));
+                        sample = null;
+                    }
+                    resultSets.add((ResultSet) result);
+                }
+                if (sample != null) {
+                    sample.end(DbMetrics.rowsOf(result), null);
+                }
+                return result;
+            } catch (InvocationTargetException ex) {
+                if (sample != null) {
+                    sample.end(-1, ex.getCause());
+                }
+                throw ex.getCause();
+            }
+        }
+
+        private void recycle() {
+            try {
+                for (ResultSet resultSet : resultSets) {
+                    resultSet.close();
+                }
+                resultSets.clear();
+                delegate.clearParameters();
+                delegate.clearBatch();
+                delegate.clearWarnings();
+                delegate.setFetchSize(0);
+                delegate.setMaxRows(0);
+                delegate.setQueryTimeout(0);
+                park(key, delegate);
+            } catch (SQLException ex) {
+                closeQuietly(delegate);
+            }
+        }
+    }
+    private static final class TimedResults implements InvocationHandler {
+        private final ResultSet delegate;
+        private final DbMetrics.Sample sample;
+        private long rows;
+        private Throwable failure;
+        private boolean closed;
+
+        private TimedResults(ResultSet delegate, DbMetrics.Sample sample) {
+            this.delegate = delegate;
+            this.sample = sample;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            try {
+                Object result = method.invoke(delegate, args);
+                if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                    rows++;
+                } else if (method.getName().equals("close") && !closed) {
+                    closed = true;
+                    sample.end(rows, failure);
+                }
+                return result;
+            } catch (InvocationTargetException ex) {
+                if (failure == null) {
+                    failure = ex.getCause();
+                }
+                if (method.getName().equals("close") && !closed) {
+                    closed = true;
+                    sample.end(rows, failure);
+                }
+                throw ex.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Units held by open carts in this process, per product.
+ * A reservation only succeeds while the units held stay within the stock last seen for the product, so carts on this
+ * terminal cannot promise the same units twice. Counters are updated with compare-and-set, without a shared lock.
+ * The database has the final word: checkout settles all lines of a cart with one conditional UPDATE
+ * (see {@link OrderRepository#placeOrder}) and releases the reservation afterwards.
+ */
+public class StockLedger {
+    private final Map<Integer, AtomicInteger> reserved = new ConcurrentHashMap<>();
+
+    /** Holds {@code quantity} more units if that keeps the total held within {@code inStock}. */
+    public boolean reserve(int productId, int quantity, int inStock) {
+        AtomicInteger held = reserved.computeIfAbsent(productId, id -> new AtomicInteger());
+        while (true) {
+            int current = held.get();
+            if (current + quantity > inStock) {
+                return false;
+            }
+            if (held.compareAndSet(current, current + quantity)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(int productId, int quantity) {
+        AtomicInteger held = reserved.get(productId);
+        if (held == null) {
+            return;
+        }
+        while (true) {
+            int current = held.get();
+            if (held.compareAndSet(current, Math.max(0, current - quantity))) {
+                return;
+            }
+        }
+    }
+
+    public int reserved(int productId) {
+        AtomicInteger held = reserved.get(productId);
+        return held == null ? 0 : held.get();
+    }
+
+    /** Units still free to reserve given {@code inStock}. */
+    public int available(int productId, int inStock) {
+        return Math.max(0, inStock - reserved(productId));
+    }
+}
@@ -0,0 +1,5 @@
+import java.sql.Timestamp;
+
+/** Low-stock alert level of a product; {@code threshold == null} means the default level applies. */
+public record StockThreshold(int productId, Integer threshold, Timestamp updatedAt) {
+}
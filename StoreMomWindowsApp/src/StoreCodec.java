@@ -0,0 +1,281 @@
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON shapes of the {@link StoreServer} API, shared by the server and {@link RemoteStoreService}.
+ * Writes travel in their {@link WriteJournal} encoding ({@link Mutation#encode()}, base64) so both ends agree on them
+ * with no second format; timestamps travel as {@link Timestamp#toString()} to keep their nanoseconds for delta sync.
+ */
+final class StoreCodec {
+    private StoreCodec() {
+    }
+
+    static Map<String, Object> customer(Customer customer) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", customer.id());
+        json.put("fname", customer.fname());
+        json.put("lname", customer.lname());
+        return json;
+    }
+
+    static Customer customer(Object json) {
+        Map<?, ?> map = (Map<?, ?>) json;
+        return new Customer(integer(map.get("id")), (String) map.get("fname"), (String) map.get("lname"));
+    }
+
+    static Map<String, Object> product(Product product) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("productId", product.productId());
+        json.put("productName", product.productName());
+        json.put("quantityInStock", product.quantityInStock());
+        json.put("price", product.price());
+        json.put("volume", product.volume());
+        json.put("description", product.description());
+        return json;
+    }
+
+    static Product product(Object json) {
+        Map<?, ?> map = (Map<?, ?>) json;
+        return new Product(integer(map.get("productId")), (String) map.get("productName"),
+                integer(map.get("quantityInStock")), longValue(map.get("price")), (String) map.get("volume"),
+                (String) map.get("description"));
+    }
+
+    static Map<String, Object> versionedProduct(VersionedProduct row) {
+        Map<String, Object> json = product(row.product());
+        json.put("updatedAt", timestamp(row.updatedAt()));
+        return json;
+    }
+
+    static VersionedProduct versionedProduct(Object json) {
+        return new VersionedProduct(product(json), timestamp(((Map<?, ?>) json).get("updatedAt")));
+    }
+
+    static Map<String, Object> threshold(StockThreshold row) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("productId", row.productId());
+        json.put("threshold", row.threshold());
+        json.put("updatedAt", timestamp(row.updatedAt()));
+        return json;
+    }
+
+    static StockThreshold threshold(Object json) {
+        Map<?, ?> map = (Map<?, ?>) json;
+        Object threshold = map.get("threshold");
+        return new StockThreshold(integer(map.get("productId")), threshold == null ? null : integer(threshold),
+                timestamp(map.get("updatedAt")));
+    }
+
+    static Map<String, Object> order(Order order) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("orderId", order.orderId());
+        json.put("customerId", order.customerId());
+        json.put("orderDate", order.orderDate() == null ? null : order.orderDate().toString());
+        json.put("totalAmount", order.totalAmount());
+        json.put("profit", order.profit());
+        json.put("stockAfter", stock(order.stockAfter()));
+        return json;
+    }
+
+    static Order order(Object json) {
+        Map<?, ?> map = (Map<?, ?>) json;
+        Object orderDate = map.get("orderDate");
+        return new Order(integer(map.get("orderId")), integer(map.get("customerId")),
+                orderDate == null ? null : LocalDateTime.parse((String) orderDate), longValue(map.get("totalAmount")),
+                longValue(map.get("profit")), stock(map.get("stockAfter")));
+    }
+
+    //[productId, quantityInStock] ต่อสินค้า เพราะ key ของ JSON object เป็นตัวเลขไม่ได้
+    static List<Object> stock(Map<Integer, Integer> stock) {
+        List<Object> json = new ArrayList<>(stock.size());
+        stock.forEach((productId, quantity) -> json.add(List.of(productId, quantity)));
+        return json;
+    }
+
+    static Map<Integer, Integer> stock(Object json) {
+        Map<Integer, Integer> stock = new LinkedHashMap<>();
+        if (json != null) {
+            for (Object pair : (List<?>) json) {
+                List<?> fields = (List<?>) pair;
+                stock.put(integer(fields.get(0)), integer(fields.get(1)));
+            }
+        }
+        return stock;
+    }
+
+    //[productId, updatedAt] ต่อสินค้า เหมือน stock
+    static List<Object> versions(Map<Integer, Timestamp> versions) {
+        List<Object> json = new ArrayList<>(versions.size());
+        versions.forEach((productId, updatedAt) -> json.add(Arrays.asList(productId, timestamp(updatedAt))));
+        return json;
+    }
+
+    static Map<Integer, Timestamp> versions(Object json) {
+        Map<Integer, Timestamp> versions = new HashMap<>();
+        for (Object pair : (List<?>) json) {
+            List<?> fields = (List<?>) pair;
+            versions.put(integer(fields.get(0)), timestamp(fields.get(1)));
+        }
+        return versions;
+    }
+
+    static Map<String, Object> sales(SalesSummary.Snapshot sales) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("lastOrderId", sales.lastOrderId());
+        json.put("day", saleRows(sales.day()));
+        json.put("month", saleRows(sales.month()));
+        return json;
+    }
+
+    static SalesSummary.Snapshot sales(Object json) {
+        Map<?, ?> map = (Map<?, ?>) json;
+        return new SalesSummary.Snapshot(integer(map.get("lastOrderId")), saleRows(map.get("day")),
+                saleRows(map.get("month")));
+    }
+
+    private static List<Object> saleRows(List<SalesSummary.SaleRow> rows) {
+        List<Object> json = new ArrayList<>(rows.size());
+        for (SalesSummary.SaleRow row : rows) {
+            json.add(List.of(row.productId(), row.customerId(), row.revenue(), row.quantity()));
+        }
+        return json;
+    }
+
+    private static List<SalesSummary.SaleRow> saleRows(Object json) {
+        List<SalesSummary.SaleRow> rows = new ArrayList<>();
+        for (Object row : (List<?>) json) {
+            List<?> list = (List<?>) row;
+            rows.add(new SalesSummary.SaleRow(integer(list.get(0)), integer(list.get(1)), longValue(list.get(2)),
+                    longValue(list.get(3))));
+        }
+        return rows;
+    }
+
+    static Map<String, Object> row(PageSource.Row row) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("key", cells(row.key()));
+        json.put("values", cells(row.values()));
+        return json;
+    }
+
+    static PageSource.Row row(Object json) {
+        Map<?, ?> map = (Map<?, ?>) json;
+        return new PageSource.Row(array(map.get("key")), array(map.get("values")));
+    }
+
+    /** Grid cells as JSON: numbers and strings as they are, anything else (dates, decimals) as its text. */
+    static List<Object> cells(Object[] values) {
+        if (values == null) {
+            return null;
+        }
+        List<Object> cells = new ArrayList<>(values.length);
+        for (Object value : values) {
+            boolean plain = value == null || value instanceof String || value instanceof Integer
+                    || value instanceof Long || value instanceof Boolean;
+            cells.add(plain ? value : value.toString());
+        }
+        return cells;
+    }
+
+    static Object[] array(Object json) {
+        return json == null ? null : ((List<?>) json).toArray();
+    }
+
+    static Map<String, Object> mutation(Mutation<?> mutation) throws IOException {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("type", (int) mutation.type());
+        json.put("payload", Base64.getEncoder().encodeToString(mutation.encode()));
+        return json;
+    }
+
+    static Mutation<?> mutation(Object json) throws IOException {
+        Map<?, ?> map = (Map<?, ?>) json;
+        return Mutation.decode((byte) integer(map.get("type")), Base64.getDecoder().decode((String) map.get("payload")));
+    }
+
+    static Map<String, Object> entry(WriteJournal.Entry entry) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("seq", entry.seq());
+        json.put("type", (int) entry.type());
+        json.put("payload", Base64.getEncoder().encodeToString(entry.payload()));
+        return json;
+    }
+
+    static WriteJournal.Entry entry(Object json) {
+        Map<?, ?> map = (Map<?, ?>) json;
+        return new WriteJournal.Entry(longValue(map.get("seq")), (byte) integer(map.get("type")),
+                Base64.getDecoder().decode((String) map.get("payload")));
+    }
+
+    /** The JSON of what a write returned, read back by {@link #result}. */
+    static Object result(Object value) {
+        if (value instanceof Customer) {
+            return customer((Customer) value);
+        }
+        if (value instanceof Product) {
+            return product((Product) value);
+        }
+        if (value instanceof Order) {
+            return order((Order) value);
+        }
+        return value;
+    }
+
+    static Object result(Mutation<?> mutation, Object json) {
+        if (json == null) {
+            return null;
+        }
+        switch (mutation.type()) {
+            case Mutation.CUSTOMER_INSERT:
+                return customer(json);
+            case Mutation.PRODUCT_INSERT:
+                return product(json);
+            case Mutation.PLACE_ORDER:
+                return order(json);
+            default:
+                return json;
+        }
+    }
+
+    static Map<String, Object> error(SQLException ex) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("error", String.valueOf(ex.getMessage()));
+        json.put("sqlState", ex.getSQLState());
+        json.put("outOfStock", ex instanceof OutOfStockException);
+        return json;
+    }
+
+    static SQLException error(Object json) {
+        Map<?, ?> map = (Map<?, ?>) json;
+        String message = (String) map.get("error");
+        if (Boolean.TRUE.equals(map.get("outOfStock"))) {
+            return new OutOfStockException(message);
+        }
+        return new SQLException(message, (String) map.get("sqlState"));
+    }
+
+    static String timestamp(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toString();
+    }
+
+    static Timestamp timestamp(Object json) {
+        return json == null ? null : Timestamp.valueOf((String) json);
+    }
+
+    static int integer(Object json) {
+        return ((Number) json).intValue();
+    }
+
+    static long longValue(Object json) {
+        return ((Number) json).longValue();
+    }
+}
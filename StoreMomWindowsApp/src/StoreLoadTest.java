@@ -0,0 +1,96 @@
+import java.net.URI;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simulates tills against a running {@link StoreServer}:
+ * {@code java StoreLoadTest http://127.0.0.1:8470 <clients> <seconds>}.
+ * Each client loops over the reads a till makes (customer list, catalog delta, product lookups, grid pages, sales
+ * rollups) and the latency of each kind is reported with the server's cache and database counters, so the database
+ * side can be compared as clients are added.
+ */
+public class StoreLoadTest {
+    private static final String[] OPERATIONS = {"customers", "productsSince", "product", "customerGrid",
+            "productGrid", "sales"};
+
+    public static void main(String[] args) throws Exception {
+        URI url = URI.create(args.length > 0 ? args[0] : "http://127.0.0.1:8470");
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        RemoteStoreService store = new RemoteStoreService(url);
+        List<Integer> productIds = List.copyOf(store.productIds());
+
+        Map<String, LatencyHistogram> latencies = new TreeMap<>();
+        for (String operation : OPERATIONS) {
+            latencies.put(operation, new LatencyHistogram());
+        }
+        AtomicLong failures = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService executor = DbExecutor.newExecutor("storemom-load-");
+        for (int i = 0; i < clients; i++) {
+            executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    String operation = OPERATIONS[random.nextInt(OPERATIONS.length)];
+                    long started = System.nanoTime();
+                    try {
+                        run(store, operation, productIds, random);
+                        latencies.get(operation).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started));
+                    } catch (SQLException | RuntimeException ex) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+
+        long total = 0;
+        System.out.printf("%-14s %9s %9s %9s %9s%n", "operation", "count", "p50 ms", "p99 ms", "max ms");
+        for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            total += histogram.count();
+            System.out.printf("%-14s %9d %9.2f %9.2f %9.2f%n", entry.getKey(), histogram.count(),
+                    histogram.percentile(50) / 1e3, histogram.percentile(99) / 1e3, histogram.max() / 1e3);
+        }
+        System.out.printf("%d clients, %d requests in %ds (%.0f/s), %d failed%n", clients, total, seconds,
+                (double) total / seconds, failures.get());
+        System.out.println(Json.write(store.get("/api/metrics", Map.of())));
+    }
+
+    private static void run(StoreService store, String operation, List<Integer> productIds, ThreadLocalRandom random)
+            throws SQLException {
+        switch (operation) {
+            case "customers":
+                store.customers();
+                break;
+            case "productsSince":
+                store.productsUpdatedSince(new Timestamp(System.currentTimeMillis() / 10_000 * 10_000 - 60_000));
+                break;
+            case "product":
+                if (!productIds.isEmpty()) {
+                    store.product(productIds.get(random.nextInt(productIds.size())));
+                }
+                break;
+            case "customerGrid":
+                store.customerGrid(null).fetch(null, 100);
+                break;
+            case "productGrid":
+                store.productGrid(null).fetch(null, 100);
+                break;
+            case "sales":
+                store.salesOf(LocalDate.now());
+                break;
+            default:
+                throw new IllegalArgumentException(operation);
+        }
+    }
+}
@@ -0,0 +1,402 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Headless mode: serves a {@link LocalStoreService} as HTTP/JSON so tills run as thin clients
+ * ({@code -Dstoremom.server.url=http://host:8470}) and share one connection pool and one read cache.
+ * Requests run on virtual threads where the JDK has them. Reads are cached for {@code storemom.server.cacheMs} by
+ * path and query; concurrent misses of the same read wait for one query instead of each running it, and every write
+ * clears the cache. {@code POST /api/batch} answers a list of reads in one round trip and
+ * {@code POST /api/mutations} applies a list of writes as one transaction, under the journal sequence numbers the till
+ * reserved for them ({@link StoreService#apply}). Writes carry the {@link ChangeBus} origin
+ * of the till that sent them, so the change is published to every other till; changes published by tills running
+ * their own {@link LocalStoreService} clear the cache too.
+ */
+public class StoreServer {
+    private static final Logger LOGGER = Logger.getLogger(StoreServer.class.getName());
+    private static final int MAX_CACHED = Integer.getInteger("storemom.server.maxCached", 10_000);
+
+    static {
+        //HttpServer ส่ง header กับ body แยกกัน ถ้าไม่ปิด Nagle แต่ละคำตอบจะรอ delayed ACK ราว 40ms
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final LocalStoreService store;
+    private final long cacheMs;
+    private final HttpServer server;
+    private final ExecutorService executor = DbExecutor.newExecutor("storemom-http-");
+    private final ConcurrentHashMap<String, Cached> cache = new ConcurrentHashMap<>();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private record Cached(CompletableFuture<String> body, long expiresAt) {
+    }
+
+    public StoreServer(LocalStoreService store, ChangeBus bus, InetSocketAddress address, long cacheMs)
+            throws IOException {
+        this.store = store;
+        if (bus != null) {
+            bus.addListener(events -> invalidate());
+        }
+        this.cacheMs = cacheMs;
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+    }
+
+    public void start() {
+        server.start();
+        LOGGER.info("Store server listening on " + address());
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    public static void main(String[] args) throws IOException {
+        InetSocketAddress address = new InetSocketAddress(System.getProperty("storemom.server.host", "127.0.0.1"),
+                Integer.getInteger("storemom.server.port", 8470));
+        ChangeBus bus = ChangeBus.get();
+        StoreServer server = new StoreServer(new LocalStoreService(bus), bus, address,
+                Long.getLong("storemom.server.cacheMs", 2_000L));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "storemom-server-stop"));
+        server.start();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            Map<String, String> query = query(exchange.getRequestURI());
+            try {
+                String body;
+                if ("GET".equals(exchange.getRequestMethod())) {
+                    body = cached(path, query);
+                } else if ("POST".equals(exchange.getRequestMethod())) {
+                    body = Json.write(write(path, query, Json.parse(readBody(exchange))));
+                } else {
+                    send(exchange, 405, Json.write(Map.of("error", "Method not allowed")));
+                    return;
+                }
+                send(exchange, 200, body);
+            } catch (NotFound ex) {
+                send(exchange, 404, Json.write(Map.of("error", "No endpoint " + path)));
+            } catch (SQLException ex) {
+                boolean unreachable = OfflineJournal.isConnectionFailure(ex);
+                LOGGER.log(unreachable ? Level.WARNING : Level.SEVERE, path, ex);
+                send(exchange, unreachable ? 503 : 500, Json.write(error(ex, unreachable)));
+            } catch (IllegalArgumentException | ClassCastException | NullPointerException | DateTimeException ex) {
+                send(exchange, 400, Json.write(Map.of("error", String.valueOf(ex.getMessage()))));
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.SEVERE, path, ex);
+                send(exchange, 500, Json.write(Map.of("error", String.valueOf(ex))));
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Request failed", ex);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    //ผู้เรียกพร้อมกันที่ขอข้อมูลเดียวกันรอผลของ query เดียว
+    private String cached(String path, Map<String, String> query) throws SQLException {
+        if (cacheMs <= 0 || path.equals("/api/metrics")) {
+            return Json.write(read(path, query));
+        }
+        String key = path + query;
+        while (true) {
+            long now = System.currentTimeMillis();
+            Cached current = cache.get(key);
+            if (current != null && current.expiresAt() > now) {
+                cacheHits.incrementAndGet();
+                return await(current.body());
+            }
+            Cached fresh = new Cached(new CompletableFuture<>(), now + cacheMs);
+            boolean mine = current == null ? cache.putIfAbsent(key, fresh) == null : cache.replace(key, current, fresh);
+            if (!mine) {
+                continue;
+            }
+            cacheMisses.incrementAndGet();
+            trim(now);
+            try {
+                String body = Json.write(read(path, query));
+                fresh.body().complete(body);
+                return body;
+            } catch (SQLException | RuntimeException ex) {
+                cache.remove(key, fresh);
+                fresh.body().completeExceptionally(ex);
+                throw ex;
+            }
+        }
+    }
+
+    private static String await(CompletableFuture<String> body) throws SQLException {
+        try {
+            return body.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a cached read", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof SQLException) {
+                throw (SQLException) ex.getCause();
+            }
+            throw (RuntimeException) ex.getCause();
+        }
+    }
+
+    private void trim(long now) {
+        if (cache.size() > MAX_CACHED) {
+            cache.values().removeIf(cached -> cached.expiresAt() <= now);
+            if (cache.size() > MAX_CACHED) {
+                cache.clear();
+            }
+        }
+    }
+
+    private Object read(String path, Map<String, String> query) throws SQLException {
+        switch (path) {
+            case "/api/customers":
+                List<Object> customers = new ArrayList<>();
+                for (Customer customer : store.customers()) {
+                    customers.add(StoreCodec.customer(customer));
+                }
+                return customers;
+            case "/api/product":
+                return store.product(Integer.parseInt(required(query, "id"))).map(StoreCodec::product).orElse(null);
+            case "/api/products":
+                List<Object> products = new ArrayList<>();
+                for (VersionedProduct row : store.productsUpdatedSince(StoreCodec.timestamp(query.get("since")))) {
+                    products.add(StoreCodec.versionedProduct(row));
+                }
+                return products;
+            case "/api/products/ids":
+                return store.productIds();
+            case "/api/products/versions":
+                return StoreCodec.versions(store.productVersions());
+            case "/api/thresholds":
+                List<Object> thresholds = new ArrayList<>();
+                for (StockThreshold row : store.thresholdsUpdatedSince(StoreCodec.timestamp(query.get("since")))) {
+                    thresholds.add(StoreCodec.threshold(row));
+                }
+                return thresholds;
+            case "/api/sales":
+                return StoreCodec.sales(store.salesOf(LocalDate.parse(required(query, "day"))));
+            case "/api/grid/customers":
+                String ids = query.get("ids");
+                return grid(ids == null ? store.customerGrid(query.get("name")) : store.customerGridByIds(parseIds(ids)), query);
+            case "/api/grid/products":
+                return grid(store.productGrid(query.get("name")), query);
+            case "/api/metrics":
+                return metrics();
+            default:
+                throw new NotFound();
+        }
+    }
+
+    private Object write(String path, Map<String, String> query, Object body) throws SQLException {
+        Object result;
+        switch (path) {
+            case "/api/batch":
+                return batch((List<?>) body);
+            case "/api/thresholds":
+                Map<?, ?> threshold = (Map<?, ?>) body;
+                Object level = threshold.get("threshold");
+                store.setThreshold(StoreCodec.integer(threshold.get("productId")), level == null ? null : StoreCodec.integer(level));
+                result = Map.of("ok", true);
+                break;
+            case "/api/mutations":
+                result = mutations((List<?>) body, Long.parseLong(required(query, "terminal")),
+                        Long.parseLong(required(query, "seq")), origin(query));
+                break;
+            case "/api/replay":
+                List<WriteJournal.Entry> entries = new ArrayList<>();
+                for (Object entry : (List<?>) body) {
+                    entries.add(StoreCodec.entry(entry));
+                }
+                store.replay(Long.parseLong(required(query, "terminal")), entries, origin(query));
+                result = Map.of("ok", true);
+                break;
+            default:
+                throw new NotFound();
+        }
+        invalidate();
+        return result;
+    }
+
+    private static long origin(Map<String, String> query) {
+        String origin = query.get("origin");
+        return origin == null ? 0 : Long.parseLong(origin);
+    }
+
+    private List<Object> mutations(List<?> body, long terminalId, long firstSeq, long origin) throws SQLException {
+        List<Mutation<?>> mutations = new ArrayList<>(body.size());
+        try {
+            for (Object json : body) {
+                mutations.add(StoreCodec.mutation(json));
+            }
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Bad mutation: " + ex.getMessage(), ex);
+        }
+        List<Object> results = new ArrayList<>(mutations.size());
+        for (StoreService.Outcome outcome : store.apply(terminalId, firstSeq, mutations, origin)) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            if (outcome.error() != null) {
+                result.putAll(error(outcome.error(), false));
+            } else {
+                result.put("value", StoreCodec.result(outcome.value()));
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    /** Answers each {@code {"path": "/api/...?..."}} read as a GET would, errors per entry. */
+    private List<Object> batch(List<?> reads) {
+        List<Object> results = new ArrayList<>(reads.size());
+        for (Object read : reads) {
+            URI uri = URI.create((String) ((Map<?, ?>) read).get("path"));
+            Map<String, Object> result = new LinkedHashMap<>();
+            try {
+                result.put("value", Json.parse(cached(uri.getPath(), query(uri))));
+            } catch (SQLException ex) {
+                result.putAll(error(ex, OfflineJournal.isConnectionFailure(ex)));
+            } catch (NotFound ex) {
+                result.put("error", "No endpoint " + uri.getPath());
+            } catch (IllegalArgumentException | ClassCastException | NullPointerException | DateTimeException ex) {
+                result.put("error", String.valueOf(ex.getMessage()));
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
+    private static Object grid(PageSource source, Map<String, String> query) throws SQLException {
+        Object[] after = query.containsKey("after") ? StoreCodec.array(Json.parse(query.get("after"))) : null;
+        switch (required(query, "op")) {
+            case "count":
+                return source.count();
+            case "fetch":
+                List<Object> rows = new ArrayList<>();
+                for (PageSource.Row row : source.fetch(after, Integer.parseInt(required(query, "limit")))) {
+                    rows.add(StoreCodec.row(row));
+                }
+                return rows;
+            case "skip":
+                return StoreCodec.cells(source.skip(after, Integer.parseInt(required(query, "limit"))));
+            default:
+                throw new IllegalArgumentException("Unknown grid op " + query.get("op"));
+        }
+    }
+
+    private Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("cacheEntries", cache.size());
+        metrics.put("cacheHits", cacheHits.get());
+        metrics.put("cacheMisses", cacheMisses.get());
+        metrics.put("invalidations", invalidations.get());
+        metrics.put("db", DbMetrics.get().getReport());
+        return metrics;
+    }
+
+    private void invalidate() {
+        invalidations.incrementAndGet();
+        cache.clear();
+    }
+
+    private static List<Integer> parseIds(String ids) {
+        List<Integer> parsed = new ArrayList<>();
+        for (String id : ids.split(",")) {
+            if (!id.isBlank()) {
+                parsed.add(Integer.valueOf(id.trim()));
+            }
+        }
+        return parsed;
+    }
+
+    //ไม่มีการเชื่อมต่อฐานข้อมูลให้ client เห็นเป็น SQLState 08 เสมอ เพื่อให้ลง journal
+    private static Map<String, Object> error(SQLException ex, boolean unreachable) {
+        Map<String, Object> json = StoreCodec.error(ex);
+        String state = ex.getSQLState();
+        if (unreachable && (state == null || !state.startsWith("08"))) {
+            json.put("sqlState", "08001");
+        }
+        return json;
+    }
+
+    private static String required(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter " + name);
+        }
+        return value;
+    }
+
+    /** Parameters sorted by name, so the same read always has the same cache key. */
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> query = new TreeMap<>();
+        String raw = uri.getRawQuery();
+        if (raw == null) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static final class NotFound extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        NotFound() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+import java.net.URI;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Everything the app reads and writes. {@link LocalStoreService} runs it against the database;
+ * {@link RemoteStoreService} asks a shared {@link StoreServer}, so a till can run as a thin client.
+ * Pick one with {@link #create()}.
+ */
+public interface StoreService {
+    List<Customer> customers() throws SQLException;
+
+    Optional<Product> product(int productId) throws SQLException;
+
+    /** Products with {@code updated_at} at or after {@code since}; every product when {@code since} is null. */
+    List<VersionedProduct> productsUpdatedSince(Timestamp since) throws SQLException;
+
+    Set<Integer> productIds() throws SQLException;
+
+    /** {@code updated_at} of every product by productId, for checking a cached copy against the table. */
+    Map<Integer, Timestamp> productVersions() throws SQLException;
+
+    /** Alert levels changed at or after {@code since}; all of them when {@code since} is null. */
+    List<StockThreshold> thresholdsUpdatedSince(Timestamp since) throws SQLException;
+
+    /** Sets the alert level of a product; null goes back to the default. */
+    void setThreshold(int productId, Integer threshold) throws SQLException;
+
+    /** Sales of {@code day} and of its month, read together with the newest order they include. */
+    SalesSummary.Snapshot salesOf(LocalDate day) throws SQLException;
+
+    /** Rows for cusDb, optionally restricted to full names containing {@code nameFilter}. */
+    PageSource customerGrid(String nameFilter);
+
+    PageSource customerGridByIds(Collection<Integer> customerIds);
+
+    /** Rows for proDb, optionally restricted to names or descriptions containing {@code nameFilter}. */
+    PageSource productGrid(String nameFilter);
+
+    /**
+     * Applies the writes in order as one transaction, each behind its own savepoint: a write the database rejects is
+     * rolled back and reported in its {@link Outcome} while the others still commit. Throws when the transaction
+     * itself fails, e.g. the database cannot be reached. Write {@code i} is recorded in {@code journal_applied} as
+     * sequence number {@code firstSeq + i} of {@code terminalId} in the same transaction, so if it is journaled and
+     * replayed after a commit whose reply was lost, {@link #replay} skips it.
+     */
+    List<Outcome> apply(long terminalId, long firstSeq, List<Mutation<?>> mutations) throws SQLException;
+
+    /**
+     * Applies journaled writes of {@code terminalId} in one transaction, skipping sequence numbers already recorded in
+     * {@code journal_applied}. Orders take their stock even below zero: the sale already happened.
+     */
+    void replay(long terminalId, List<WriteJournal.Entry> entries) throws SQLException;
+
+    /** What one write returned, or why the database rejected it. */
+    record Outcome(Object value, SQLException error) {
+    }
+
+    /**
+     * {@link RemoteStoreService} when {@code storemom.server.url} is set, otherwise {@link LocalStoreService}; either
+     * way writes reach the other tills through {@link ChangeBus#get()}.
+     */
+    static StoreService create() {
+        String url = System.getProperty("storemom.server.url");
+        ChangeBus bus = ChangeBus.get();
+        return url == null || url.isBlank() ? new LocalStoreService(bus) : new RemoteStoreService(URI.create(url), bus.origin());
+    }
+}
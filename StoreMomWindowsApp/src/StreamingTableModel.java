@@ -0,0 +1,284 @@
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Read-only table model filled from one streaming query per refresh.
+ * Rows are collected into chunks of {@code chunkSize} on a background thread and appended on the EDT with one
+ * {@code fireTableRowsInserted} per chunk, so the first rows show as soon as the database sends them. At most two
+ * chunks wait for the EDT at a time and the stream stops after {@code maxRows}.
+ * Rows are kept in a {@link ColumnStore}; once every row is in, the grid can be sorted and filtered in memory.
+ * Rows that arrive while a sort or filter is shown are filtered and appended at the end, then sorted when the stream ends.
+ * Single rows can be changed in place; once the stream is complete rows can also be appended and removed, removed rows
+ * staying in the store but out of the view until the next refresh.
+ * Must be used from the Event Dispatch Thread.
+ */
+public class StreamingTableModel extends AbstractTableModel implements GridModel {
+    private static final long serialVersionUID = 1L;
+    private static final int CHUNKS_IN_FLIGHT = 2;
+
+    private final int fetchSize;
+    private final int chunkSize;
+    private final int maxRows;
+    private final DbExecutor dbExecutor = DbExecutor.get();
+
+    private PageSource source;
+    private String[] columnNames = new String[0];
+    private ColumnStore rows = new ColumnStore(0);
+    //ลำดับแถวที่แสดงหลัง sort/filter/ลบแถว (null = ทุกแถวตามลำดับที่ได้มา)
+    private int[] view;
+    private final BitSet removed = new BitSet();
+    private int sortColumn = -1;
+    private boolean sortAscending;
+    private int filterColumn = -1;
+    private Predicate<Object> filterTest;
+    private boolean complete;
+    //อ่านจาก thread ที่ stream อยู่เพื่อหยุดเมื่อมีการ refresh ใหม่
+    private volatile long generation;
+    private Runnable onRefreshed;
+
+    public StreamingTableModel(int fetchSize, int chunkSize, int maxRows) {
+        this.fetchSize = fetchSize;
+        this.chunkSize = chunkSize;
+        this.maxRows = maxRows;
+    }
+
+    @Override
+    public void setSource(PageSource source) {
+        this.source = source;
+        this.columnNames = source.columnNames();
+        sortColumn = -1;
+        rows = new ColumnStore(columnNames.length);
+        view = null;
+        removed.clear();
+        fireTableStructureChanged();
+        refresh();
+    }
+
+    @Override
+    public void refresh() {
+        long current = ++generation;
+        rows = new ColumnStore(columnNames.length);
+        view = null;
+        removed.clear();
+        filterColumn = -1;
+        filterTest = null;
+        complete = false;
+        fireTableDataChanged();
+        PageSource target = source;
+        if (target == null) {
+            return;
+        }
+        Semaphore inFlight = new Semaphore(CHUNKS_IN_FLIGHT);
+        dbExecutor.submit(DbExecutor.Kind.READ, "grid.stream", () -> {
+            List<Object[]> chunk = new ArrayList<>(chunkSize);
+            int[] streamed = {0};
+            //ขอเกิน maxRows ไปหนึ่งแถวไว้ดูว่ายังมีแถวเหลือหรือไม่ แถวนั้นไม่แสดง
+            target.stream(fetchSize, maxRows + 1, row -> {
+                if (current != generation) {
+                    return false;
+                }
+                if (streamed[0]++ == maxRows) {
+                    return true;
+                }
+                chunk.add(row.values());
+                if (chunk.size() == chunkSize) {
+                    if (!publish(current, new ArrayList<>(chunk), inFlight)) {
+                        return false;
+                    }
+                    chunk.clear();
+                }
+                return true;
+            });
+            publish(current, chunk, inFlight);
+            return streamed[0];
+        }, streamed -> {
+            if (current != generation) {
+                return;
+            }
+            complete = streamed <= maxRows;
+            if (sortColumn >= 0) {
+                applyView();
+            }
+            if (onRefreshed != null) {
+                onRefreshed.run();
+            }
+        }, ex -> Logger.getLogger(StreamingTableModel.class.getName()).log(Level.SEVERE, null, ex));
+    }
+
+    @Override
+    public void setOnRefreshed(Runnable onRefreshed) {
+        this.onRefreshed = onRefreshed;
+    }
+
+    @Override
+    public Object[] getRow(int rowIndex) {
+        return isLoaded(rowIndex) ? rows.row(rowAt(rowIndex)) : null;
+    }
+
+    @Override
+    public boolean isLoaded(int rowIndex) {
+        return rowIndex >= 0 && rowIndex < getRowCount();
+    }
+
+    @Override
+    public boolean sort(int column, boolean ascending) {
+        if (!complete) {
+            return false;
+        }
+        sortColumn = column;
+        sortAscending = ascending;
+        applyView();
+        return true;
+    }
+
+    @Override
+    public boolean filter(int column, Predicate<Object> test) {
+        if (!complete) {
+            return false;
+        }
+        filterColumn = column;
+        filterTest = test;
+        applyView();
+        return true;
+    }
+
+    @Override
+    public int updateRows(int column, Object value, UnaryOperator<Object[]> change) {
+        int[] matches = rows.filter(null, column, cell -> GridModel.sameValue(cell, value));
+        int updated = 0;
+        for (int row : matches) {
+            if (!removed.get(row)) {
+                rows.set(row, change.apply(rows.row(row)));
+                updated++;
+            }
+        }
+        if (updated == 0) {
+            return 0;
+        }
+        //แถวที่แก้อาจย้ายที่หรือหลุด filter
+        if (view != null) {
+            applyView();
+        } else {
+            for (int row : matches) {
+                fireTableRowsUpdated(row, row);
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public boolean appendRow(PageSource.Row row) {
+        if (!complete) {
+            return false;
+        }
+        rows.add(row.values());
+        if (view != null) {
+            applyView();
+        } else {
+            fireTableRowsInserted(rows.size() - 1, rows.size() - 1);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean removeRows(int column, Object value) {
+        if (!complete) {
+            return false;
+        }
+        int[] matches = rows.filter(null, column, cell -> GridModel.sameValue(cell, value));
+        for (int row : matches) {
+            removed.set(row);
+        }
+        if (matches.length > 0) {
+            applyView();
+        }
+        return true;
+    }
+
+    @Override
+    public int getRowCount() {
+        return view == null ? rows.size() : view.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return columnIndex < rows.columnCount() ? rows.columnClass(columnIndex) : Object.class;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        return rows.get(rowAt(rowIndex), columnIndex);
+    }
+
+    private int rowAt(int rowIndex) {
+        return view == null ? rowIndex : view[rowIndex];
+    }
+
+    private void applyView() {
+        int[] order = sortColumn >= 0 ? rows.sort(sortColumn, sortAscending) : null;
+        if (!removed.isEmpty()) {
+            IntStream shown = order == null ? IntStream.range(0, rows.size()) : IntStream.of(order);
+            order = shown.filter(row -> !removed.get(row)).toArray();
+        }
+        view = filterTest != null ? rows.filter(order, filterColumn, filterTest) : order;
+        fireTableDataChanged();
+    }
+
+    //ทำงานบน thread ที่ stream อยู่ รอถ้า EDT ยังค้างอยู่ CHUNKS_IN_FLIGHT ก้อน
+    private boolean publish(long current, List<Object[]> chunk, Semaphore inFlight) {
+        if (chunk.isEmpty()) {
+            return true;
+        }
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        SwingUtilities.invokeLater(() -> {
+            inFlight.release();
+            if (current != generation) {
+                return;
+            }
+            int first = getRowCount();
+            int from = rows.size();
+            for (Object[] row : chunk) {
+                rows.add(row);
+            }
+            if (view != null) {
+                int[] added = new int[chunk.size()];
+                Arrays.setAll(added, i -> from + i);
+                if (filterTest != null) {
+                    added = rows.filter(added, filterColumn, filterTest);
+                }
+                int[] grown = Arrays.copyOf(view, view.length + added.length);
+                System.arraycopy(added, 0, grown, view.length, added.length);
+                view = grown;
+            }
+            if (getRowCount() > first) {
+                fireTableRowsInserted(first, getRowCount() - 1);
+            }
+        });
+        return current == generation;
+    }
+}
@@ -0,0 +1,175 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Live best-selling products (by quantity) and best customers (by revenue) for today and this month.
+ * Orders are fed in as they are placed; each window keeps an {@link IntLongMap} of counters plus the current top
+ * {@code size} ids in a small sorted array. Counters only grow within a window, so an id can only enter the top by
+ * passing the smallest entry, and the array stays exact with O(size) work per line. Reading the top costs O(size)
+ * no matter how many orders were counted. A window starts empty when its day or month changes.
+ * Other terminals' orders arrive through {@link #reset}, which replaces a window with totals read from the database.
+ */
+public class TopNTracker {
+    public enum Window {
+        TODAY("Today"), THIS_MONTH("This month");
+
+        private final String label;
+
+        Window(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    public record Entry(int id, long value) {
+    }
+
+    private final Board[] products = new Board[Window.values().length];
+    private final Board[] customers = new Board[Window.values().length];
+
+    public TopNTracker(int size) {
+        for (Window window : Window.values()) {
+            products[window.ordinal()] = new Board(size);
+            customers[window.ordinal()] = new Board(size);
+        }
+    }
+
+    public synchronized void orderPlaced(int customerId, LocalDateTime orderDate, List<CartLine> lines) {
+        LocalDate day = orderDate.toLocalDate();
+        for (Window window : Window.values()) {
+            Board productBoard = products[window.ordinal()];
+            Board customerBoard = customers[window.ordinal()];
+            int period = period(window, day);
+            //order ย้อนหลัง (เช่นที่ค้างใน journal) ไม่นับเข้าหน้าต่างปัจจุบัน
+            if (!productBoard.roll(period) || !customerBoard.roll(period)) {
+                continue;
+            }
+            for (CartLine line : lines) {
+                productBoard.add(line.productId(), line.quantity());
+                customerBoard.add(customerId, line.lineTotal());
+            }
+        }
+    }
+
+    /** Replaces the window of {@code day} with the given per product x customer totals. */
+    public synchronized void reset(Window window, LocalDate day, List<SalesSummary.SaleRow> rows) {
+        Board productBoard = products[window.ordinal()];
+        Board customerBoard = customers[window.ordinal()];
+        int period = period(window, day);
+        if (!productBoard.roll(period) || !customerBoard.roll(period)) {
+            return;
+        }
+        productBoard.clear();
+        customerBoard.clear();
+        for (SalesSummary.SaleRow row : rows) {
+            productBoard.add(row.productId(), row.quantity());
+            customerBoard.add(row.customerId(), row.revenue());
+        }
+    }
+
+    /** Product ids with the quantity sold, best first. */
+    public synchronized List<Entry> topProducts(Window window) {
+        Board board = products[window.ordinal()];
+        board.roll(period(window, LocalDate.now()));
+        return board.top();
+    }
+
+    /** Customer ids with the amount spent in satang ({@link Money}), best first. */
+    public synchronized List<Entry> topCustomers(Window window) {
+        Board board = customers[window.ordinal()];
+        board.roll(period(window, LocalDate.now()));
+        return board.top();
+    }
+
+    private static int period(Window window, LocalDate day) {
+        switch (window) {
+            case TODAY:
+                return (int) day.toEpochDay();
+            case THIS_MONTH:
+                return day.getYear() * 12 + day.getMonthValue() - 1;
+            default:
+                throw new IllegalArgumentException("Unknown window " + window);
+        }
+    }
+
+    private static final class Board {
+        private final IntLongMap counts = new IntLongMap(256);
+        private final int[] topIds;
+        private final long[] topValues;
+        private int topSize;
+        private int period = Integer.MIN_VALUE;
+
+        private Board(int size) {
+            topIds = new int[size];
+            topValues = new long[size];
+        }
+
+        /** Moves to {@code newPeriod} if it is later; false if it is earlier than the current one. */
+        private boolean roll(int newPeriod) {
+            if (newPeriod > period) {
+                clear();
+                period = newPeriod;
+            }
+            return newPeriod == period;
+        }
+
+        private void clear() {
+            counts.clear();
+            topSize = 0;
+        }
+
+        private void add(int id, long delta) {
+            if (delta <= 0) {
+                return;
+            }
+            long value = counts.add(id, delta);
+            int at = indexOf(id);
+            if (at < 0) {
+                if (topSize < topIds.length) {
+                    at = topSize++;
+                } else if (ranksBefore(id, value, topSize - 1)) {
+                    at = topSize - 1;
+                } else {
+                    return;
+                }
+                topIds[at] = id;
+            }
+            topValues[at] = value;
+            //ค่ามีแต่เพิ่มขึ้น จึงเลื่อนขึ้นอย่างเดียว
+            while (at > 0 && ranksBefore(id, value, at - 1)) {
+                topIds[at] = topIds[at - 1];
+                topValues[at] = topValues[at - 1];
+                at--;
+            }
+            topIds[at] = id;
+            topValues[at] = value;
+        }
+
+        private boolean ranksBefore(int id, long value, int index) {
+            return value > topValues[index] || (value == topValues[index] && id < topIds[index]);
+        }
+
+        private int indexOf(int id) {
+            for (int i = 0; i < topSize; i++) {
+                if (topIds[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private List<Entry> top() {
+            List<Entry> entries = new ArrayList<>(topSize);
+            for (int i = 0; i < topSize; i++) {
+                entries.add(new Entry(topIds[i], topValues[i]));
+            }
+            return entries;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * Groups several writes into one transaction on one pooled connection.
+ * While {@link #run} is active, {@link storeConnection#connect()} on the same thread hands out that connection, so
+ * repository methods join the transaction without changes and their {@code close()} does not end it.
+ * A nested {@link #run} joins the outer transaction behind a savepoint instead of committing on its own.
+ */
+public final class UnitOfWork {
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    @FunctionalInterface
+    public interface Work<T> {
+        T run(UnitOfWork unitOfWork) throws Exception;
+    }
+
+    private final Connection connection;
+    private final Connection joined;
+
+    private UnitOfWork(Connection connection) {
+        this.connection = connection;
+        this.joined = joinedView(connection);
+    }
+
+    /** Runs {@code work} in a transaction: committed when it returns, rolled back when it throws. */
+    public static <T> T run(Work<T> work) throws SQLException {
+        UnitOfWork outer = CURRENT.get();
+        if (outer != null) {
+            Savepoint savepoint = outer.savepoint();
+            try {
+                T result = work.run(outer);
+                outer.release(savepoint);
+                return result;
+            } catch (Exception ex) {
+                outer.rollbackTo(savepoint);
+                throw rethrow(ex);
+            }
+        }
+        try (Connection connection = storeConnection.pool().borrow()) {
+            connection.setAutoCommit(false);
+            UnitOfWork unitOfWork = new UnitOfWork(connection);
+            CURRENT.set(unitOfWork);
+            try {
+                T result = work.run(unitOfWork);
+                connection.commit();
+                return result;
+            } catch (Exception ex) {
+                connection.rollback();
+                throw rethrow(ex);
+            } finally {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /** The connection of the transaction running on this thread, or null outside {@link #run}. */
+    static Connection joinedConnection() {
+        UnitOfWork current = CURRENT.get();
+        return current == null ? null : current.joined;
+    }
+
+    public Connection connection() {
+        return joined;
+    }
+
+    public Savepoint savepoint() throws SQLException {
+        return connection.setSavepoint();
+    }
+
+    /** Undoes everything since {@code savepoint}; the rest of the transaction goes on. */
+    public void rollbackTo(Savepoint savepoint) throws SQLException {
+        connection.rollback(savepoint);
+    }
+
+    public void release(Savepoint savepoint) throws SQLException {
+        connection.releaseSavepoint(savepoint);
+    }
+
+    //close() ไม่คืน connection และห้ามจัดการ transaction เองระหว่างอยู่ใน unit of work
+    private static Connection joinedView(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            return null;
+                        case "commit":
+                        case "rollback":
+                        case "setAutoCommit":
+                            throw new SQLException(method.getName() + " is managed by the unit of work");
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException ex) {
+                                throw ex.getCause();
+                            }
+                    }
+                });
+    }
+
+    private static SQLException rethrow(Exception ex) {
+        if (ex instanceof SQLException) {
+            return (SQLException) ex;
+        }
+        if (ex instanceof RuntimeException) {
+            throw (RuntimeException) ex;
+        }
+        return new SQLException(ex);
+    }
+}
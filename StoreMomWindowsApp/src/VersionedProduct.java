@@ -0,0 +1,5 @@
+import java.sql.Timestamp;
+
+/** A product row together with its {@code updated_at}, used for delta sync and optimistic updates. */
+public record VersionedProduct(Product product, Timestamp updatedAt) {
+}
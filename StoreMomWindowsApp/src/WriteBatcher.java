@@ -0,0 +1,98 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Collects writes that arrive in quick succession (for example price edits from pUpdate) and commits them together.
+ * A batch is flushed {@code delayMs} after its first write or as soon as it holds {@code maxBatch} writes, as one
+ * {@link OfflineJournal#writeAll} call on {@link DbExecutor.Kind#WRITE}: one transaction locally, one request against a
+ * {@link StoreServer}. Each write runs behind its own savepoint, so one failing write is rolled back and reported alone
+ * while the others still commit; if the database cannot be reached the whole batch is journaled.
+ * Callbacks run on the Event Dispatch Thread.
+ */
+public class WriteBatcher {
+    private final DbExecutor dbExecutor;
+    private final OfflineJournal journal;
+    private final long delayMs;
+    private final int maxBatch;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "storemom-write-batcher");
+        t.setDaemon(true);
+        return t;
+    });
+    private List<Pending<?>> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduled;
+
+    public WriteBatcher(DbExecutor dbExecutor, OfflineJournal journal, long delayMs, int maxBatch) {
+        this.dbExecutor = dbExecutor;
+        this.journal = journal;
+        this.delayMs = delayMs;
+        this.maxBatch = maxBatch;
+    }
+
+    public <T> void submit(Mutation<T> write, Consumer<? super T> onSuccess, Consumer<? super Throwable> onError) {
+        synchronized (this) {
+            pending.add(new Pending<>(write, onSuccess, onError));
+            if (pending.size() >= maxBatch) {
+                flushLocked();
+            } else if (scheduled == null) {
+                scheduled = timer.schedule(this::flush, delayMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    public synchronized void flush() {
+        flushLocked();
+    }
+
+    private void flushLocked() {
+        if (scheduled != null) {
+            scheduled.cancel(false);
+            scheduled = null;
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Pending<?>> batch = pending;
+        pending = new ArrayList<>();
+        List<Mutation<?>> writes = new ArrayList<>(batch.size());
+        for (Pending<?> write : batch) {
+            writes.add(write.write);
+        }
+        dbExecutor.submit(DbExecutor.Kind.WRITE, "writes.flush", () -> journal.writeAll(writes), outcomes -> {
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).deliver(outcomes.get(i));
+            }
+        }, ex -> {
+            //commit ไม่ผ่าน ทุกคำสั่งใน batch ถูก rollback
+            for (Pending<?> write : batch) {
+                write.onError.accept(ex);
+            }
+        });
+    }
+
+    private static final class Pending<T> {
+        private final Mutation<T> write;
+        private final Consumer<? super T> onSuccess;
+        private final Consumer<? super Throwable> onError;
+
+        private Pending(Mutation<T> write, Consumer<? super T> onSuccess, Consumer<? super Throwable> onError) {
+            this.write = write;
+            this.onSuccess = onSuccess;
+            this.onError = onError;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void deliver(StoreService.Outcome outcome) {
+            if (outcome.error() != null) {
+                onError.accept(outcome.error());
+            } else {
+                onSuccess.accept((T) outcome.value());
+            }
+        }
+    }
+}
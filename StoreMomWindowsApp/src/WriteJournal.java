@@ -0,0 +1,171 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal in a memory-mapped file.
+ * Each record is {@code [int length][long seq][byte type][payload][int crc32]}, where the checksum covers seq, type and
+ * payload; a zero length marks the end. On open the file is scanned and stops at the first torn or corrupt record,
+ * so a crash in the middle of an append loses at most that record. Every append is forced to disk before it returns.
+ * Records are never moved: {@link #removeThrough} only records the last applied seq in the header, and the space is
+ * reused once every entry has been applied, so a crash can never leave a damaged record in front of a live one.
+ */
+public class WriteJournal implements AutoCloseable {
+    private static final int MAGIC = 0x534d4a31; //"SMJ1"
+    private static final int HEADER_SIZE = 32;
+    //header: magic (0), terminalId (4), nextSeq (12), appliedThrough (20)
+    private static final int APPLIED_THROUGH_AT = 20;
+    private static final int RECORD_OVERHEAD = 4 + 8 + 1 + 4;
+
+    public record Entry(long seq, byte type, byte[] payload) {
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long terminalId;
+    private final List<Entry> entries = new ArrayList<>();
+    private long nextSeq;
+    private long appliedThrough;
+    private int end;
+
+    public WriteJournal(Path path, int capacityBytes) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int size = (int) Math.max(capacityBytes, channel.size());
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putInt(0, MAGIC);
+            buffer.putLong(4, new SecureRandom().nextLong() & Long.MAX_VALUE);
+            buffer.putLong(12, 1);
+            buffer.putInt(HEADER_SIZE, 0);
+            buffer.force();
+        }
+        terminalId = buffer.getLong(4);
+        nextSeq = buffer.getLong(12);
+        appliedThrough = buffer.getLong(APPLIED_THROUGH_AT);
+        recover();
+    }
+
+    /** Random id of this journal, so entries from different terminals can be told apart once replayed. */
+    public long terminalId() {
+        return terminalId;
+    }
+
+    /**
+     * Takes {@code count} sequence numbers, the first of which is returned, for writes tried against the database
+     * first: they keep the same numbers if they end up in the journal after all (see {@link #append(long, byte, byte[])}).
+     * The new next number is forced to disk before this returns, so a number is never handed out twice.
+     */
+    public synchronized long reserve(int count) {
+        long first = nextSeq;
+        nextSeq += count;
+        buffer.putLong(12, nextSeq);
+        buffer.force();
+        return first;
+    }
+
+    public synchronized long append(byte type, byte[] payload) throws IOException {
+        return append(reserve(1), type, payload);
+    }
+
+    /** Appends under a number taken with {@link #reserve}; numbers must be appended in increasing order. */
+    public synchronized long append(long seq, byte type, byte[] payload) throws IOException {
+        if (seq >= nextSeq || seq <= appliedThrough || (!entries.isEmpty() && seq <= entries.get(entries.size() - 1).seq())) {
+            throw new IllegalArgumentException("Sequence " + seq + " was not reserved or is out of order");
+        }
+        int length = payload.length;
+        if (end + RECORD_OVERHEAD + length + 4 > buffer.capacity()) {
+            throw new IOException("Write journal is full (" + entries.size() + " entries waiting)");
+        }
+        int at = end;
+        buffer.putLong(at + 4, seq);
+        buffer.put(at + 12, type);
+        buffer.put(at + 13, payload);
+        buffer.putInt(at + 13 + length, checksum(seq, type, payload));
+        buffer.putInt(at + RECORD_OVERHEAD + length, 0);
+        //เขียน length ทีหลังสุด record ที่เขียนไม่จบจะถูกมองว่าเป็นจุดสิ้นสุด
+        buffer.putInt(at, length);
+        buffer.force();
+        end = at + RECORD_OVERHEAD + length;
+        entries.add(new Entry(seq, type, payload));
+        return seq;
+    }
+
+    /** Entries not yet removed with {@link #removeThrough}, oldest first. */
+    public synchronized List<Entry> entries() {
+        return new ArrayList<>(entries);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Drops every entry up to and including {@code seq}. The file keeps their records until no entry is left, then
+     * appends start again from the front.
+     */
+    public synchronized void removeThrough(long seq) {
+        entries.removeIf(entry -> entry.seq() <= seq);
+        appliedThrough = Math.max(appliedThrough, Math.min(seq, nextSeq - 1));
+        buffer.putLong(APPLIED_THROUGH_AT, appliedThrough);
+        buffer.force();
+        //ทุก record ถูกส่งแล้ว เขียนทับได้ ถ้า crash ก่อนบรรทัดนี้ record เก่าจะถูกข้ามตอนเปิดเพราะ seq <= appliedThrough
+        if (entries.isEmpty()) {
+            buffer.putInt(HEADER_SIZE, 0);
+            buffer.force();
+            end = HEADER_SIZE;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void recover() {
+        int at = HEADER_SIZE;
+        while (at + RECORD_OVERHEAD <= buffer.capacity()) {
+            int length = buffer.getInt(at);
+            if (length <= 0 || at + RECORD_OVERHEAD + length > buffer.capacity()) {
+                break;
+            }
+            long seq = buffer.getLong(at + 4);
+            byte type = buffer.get(at + 12);
+            byte[] payload = new byte[length];
+            buffer.get(at + 13, payload);
+            if (buffer.getInt(at + 13 + length) != checksum(seq, type, payload)) {
+                break;
+            }
+            if (seq > appliedThrough) {
+                entries.add(new Entry(seq, type, payload));
+            }
+            nextSeq = Math.max(nextSeq, seq + 1);
+            at += RECORD_OVERHEAD + length;
+        }
+        end = entries.isEmpty() ? HEADER_SIZE : at;
+        if (end + 4 <= buffer.capacity()) {
+            buffer.putInt(end, 0);
+        }
+    }
+
+    private static int checksum(long seq, byte type, byte[] payload) {
+        CRC32 crc = new CRC32();
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (seq >>> shift));
+        }
+        crc.update(type);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
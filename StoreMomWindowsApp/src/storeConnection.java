@@ -1,24 +1,59 @@
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
-public class storeConnection {
-    public static Connection connect(){
-        String URL = "jdbc:mysql://localhost:3306/storemom";
-        String username = "root";
-        String password = "";
-        Connection connection = null;
-
-        try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            connection = DriverManager.getConnection(URL, username, password);
-
-        } catch (ClassNotFoundException | SQLException ex) {
-            Logger.getLogger(storeConnection.class.getName()).log(Level.SEVERE, null, ex);
-        }
-
-        return connection;
-    }
-}
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class storeConnection {
+    private static final String URL = System.getProperty("storemom.db.url",
+            "jdbc:mysql://localhost:3306/storemom?useServerPrepStmts=true&rewriteBatchedStatements=true");
+    private static final String username = System.getProperty("storemom.db.user", "root");
+    private static final String password = System.getProperty("storemom.db.password", "");
+
+    private static volatile ConnectionPool pool;
+
+    //ยืม connection จาก pool ต้อง close() ทุกครั้งเพื่อคืน connection
+    //ถ้าอยู่ใน UnitOfWork จะได้ connection ของ transaction นั้นแทน
+    public static Connection connect() throws SQLException {
+        Connection joined = UnitOfWork.joinedConnection();
+        return joined != null ? joined : pool().borrow();
+    }
+
+    /** True if the URL asks for server-side cursors, so a positive fetch size is honoured. */
+    public static boolean cursorFetch() {
+        return URL.contains("useCursorFetch=true");
+    }
+
+    /** True if a streaming read must use Connector/J's row-by-row mode, fetch size {@code Integer.MIN_VALUE}. */
+    public static boolean rowStreaming() {
+        return URL.startsWith("jdbc:mysql:") && !cursorFetch();
+    }
+
+    public static ConnectionPool pool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (storeConnection.class) {
+                current = pool;
+                if (current == null) {
+                    try {
+                        Class.forName("com.mysql.cj.jdbc.Driver");
+                    } catch (ClassNotFoundException ex) {
+                        Logger.getLogger(storeConnection.class.getName()).log(Level.SEVERE, null, ex);
+                    }
+                    current = new ConnectionPool(URL, username, password,
+                            Integer.getInteger("storemom.pool.maxSize", 4),
+                            Integer.getInteger("storemom.pool.minIdle", 1),
+                            Long.getLong("storemom.pool.borrowTimeoutMs", 5_000L),
+                            Long.getLong("storemom.pool.idleTimeoutMs", 300_000L),
+                            Long.getLong("storemom.pool.validationIntervalMs", 500L),
+                            Long.getLong("storemom.pool.leakThresholdMs", 30_000L),
+                            Integer.getInteger("storemom.pool.statementCacheSize", 64));
+                    ConnectionPool created = current;
+                    DbMetrics.get().watch(created);
+                    Runtime.getRuntime().addShutdownHook(new Thread(created::close, "storemom-pool-shutdown"));
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+}
@@ -101,11 +101,25 @@ PREPARE stmt FROM @sql;
 EXECUTE stmt;
 DEALLOCATE PREPARE stmt;
 
+-- Index for the desktop app's incremental product sync (WHERE updated_at >= ?)
+SET @index_exists = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS 
+  WHERE TABLE_SCHEMA = 'storemom' AND TABLE_NAME = 'product' AND INDEX_NAME = 'idx_product_updated_at');
+SET @sql = IF(@index_exists = 0, 
+  'CREATE INDEX idx_product_updated_at ON product(updated_at)', 
+  'SELECT "Index idx_product_updated_at already exists" AS message');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
 -- Update product name column to allow longer names
 ALTER TABLE product 
   MODIFY COLUMN productName VARCHAR(100) NOT NULL;
 
 -- Update orders table - change totalAmount and profit to DECIMAL
+-- profit was free text: anything that is not a plain number is cleared and recomputed from the lines below
+UPDATE orders SET profit = NULL
+  WHERE profit IS NOT NULL AND TRIM(profit) NOT REGEXP '^-?[0-9]+(\\.[0-9]+)?$';
+
 ALTER TABLE orders 
   MODIFY COLUMN totalAmount DECIMAL(10,2) DEFAULT 0,
   MODIFY COLUMN profit DECIMAL(10,2) DEFAULT 0;
@@ -171,6 +185,56 @@ PREPARE stmt FROM @sql;
 EXECUTE stmt;
 DEALLOCATE PREPARE stmt;
 
+-- Safely add the amounts the desktop app stores with each line: cost per unit at the time of sale,
+-- line total (quantityOrdered * priceEach) and line profit (lineTotal - quantityOrdered * unitCost)
+SET @column_exists = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS 
+  WHERE TABLE_SCHEMA = 'storemom' AND TABLE_NAME = 'orderdetail' AND COLUMN_NAME = 'unitCost');
+SET @sql = IF(@column_exists = 0, 
+  'ALTER TABLE orderdetail ADD COLUMN unitCost DECIMAL(10,2) NULL AFTER priceEach', 
+  'SELECT "Column unitCost already exists" AS message');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @column_exists = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS 
+  WHERE TABLE_SCHEMA = 'storemom' AND TABLE_NAME = 'orderdetail' AND COLUMN_NAME = 'lineTotal');
+SET @sql = IF(@column_exists = 0, 
+  'ALTER TABLE orderdetail ADD COLUMN lineTotal DECIMAL(10,2) NULL AFTER unitCost', 
+  'SELECT "Column lineTotal already exists" AS message');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @column_exists = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS 
+  WHERE TABLE_SCHEMA = 'storemom' AND TABLE_NAME = 'orderdetail' AND COLUMN_NAME = 'lineProfit');
+SET @sql = IF(@column_exists = 0, 
+  'ALTER TABLE orderdetail ADD COLUMN lineProfit DECIMAL(10,2) NULL AFTER lineTotal', 
+  'SELECT "Column lineProfit already exists" AS message');
+PREPARE stmt FROM @sql;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Backfill line amounts of existing orders (unit cost taken from the current product price = cost)
+UPDATE orderdetail od JOIN product p ON p.productId = od.productId
+  SET od.unitCost = p.price
+  WHERE od.unitCost IS NULL;
+
+UPDATE orderdetail
+  SET lineTotal = coalesce(quantityOrdered, 0) * priceEach
+  WHERE lineTotal IS NULL;
+
+UPDATE orderdetail
+  SET lineProfit = lineTotal - coalesce(quantityOrdered, 0) * unitCost
+  WHERE lineProfit IS NULL AND unitCost IS NOT NULL;
+
+-- Orders whose total or profit is missing (or was not a number) get the sums of their lines
+UPDATE orders o JOIN (
+    SELECT orderId, sum(lineTotal) total, sum(lineProfit) profit FROM orderdetail GROUP BY orderId
+  ) od ON od.orderId = o.orderId
+  SET o.totalAmount = coalesce(o.totalAmount, od.total),
+      o.profit = coalesce(o.profit, od.profit)
+  WHERE o.totalAmount IS NULL OR o.profit IS NULL;
+
 -- Add indexes on orderdetail
 SET @index_exists = (SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS 
   WHERE TABLE_SCHEMA = 'storemom' AND TABLE_NAME = 'orderdetail' AND INDEX_NAME = 'idx_order');
@@ -190,10 +254,187 @@ PREPARE stmt FROM @sql;
 EXECUTE stmt;
 DEALLOCATE PREPARE stmt;
 
+-- Offline journal entries already replayed by each desktop terminal
+CREATE TABLE IF NOT EXISTS journal_applied (
+  terminal_id BIGINT NOT NULL,
+  seq BIGINT NOT NULL,
+  status VARCHAR(10) NOT NULL,
+  applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (terminal_id, seq)
+);
+
+-- Monthly sales rollups, kept up to date by the triggers below (rebuild with: SalesSummary backfill)
+CREATE TABLE IF NOT EXISTS sales_monthly (
+  sales_month DATE NOT NULL,
+  product_id INT NOT NULL,
+  customer_id INT NOT NULL,
+  revenue DECIMAL(14,2) NOT NULL DEFAULT 0,
+  quantity BIGINT NOT NULL DEFAULT 0,
+  profit DECIMAL(14,2) NOT NULL DEFAULT 0,
+  order_count INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (sales_month, product_id, customer_id)
+);
+
+CREATE TABLE IF NOT EXISTS sales_monthly_total (
+  sales_month DATE NOT NULL,
+  revenue DECIMAL(14,2) NOT NULL DEFAULT 0,
+  quantity BIGINT NOT NULL DEFAULT 0,
+  profit DECIMAL(14,2) NOT NULL DEFAULT 0,
+  order_count INT NOT NULL DEFAULT 0,
+  PRIMARY KEY (sales_month)
+);
+
+-- Per-product low-stock alert levels (NULL = the desktop app's default level)
+CREATE TABLE IF NOT EXISTS stock_threshold (
+  productId INT NOT NULL,
+  threshold INT NULL,
+  updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  PRIMARY KEY (productId),
+  INDEX idx_stock_threshold_updated_at (updated_at)
+);
+
 -- Set default value for orderDate if NULL
 UPDATE orders SET orderDate = NOW() WHERE orderDate IS NULL;
 
 -- Set default value for quantityInStock if NULL
 UPDATE product SET quantityInStock = 0 WHERE quantityInStock IS NULL;
 
+-- Keep the rollups in step with every write to orders and orderdetail, whichever app (or CSV import) makes it.
+-- Each trigger updates the month row of sales_monthly_total before any sales_monthly row, so concurrent writes to
+-- the same month wait on that one row instead of deadlocking on the product rows.
+DROP TRIGGER IF EXISTS orderdetail_fill_amounts;
+DROP TRIGGER IF EXISTS orderdetail_rollup_insert;
+DROP TRIGGER IF EXISTS orderdetail_rollup_update;
+DROP TRIGGER IF EXISTS orderdetail_rollup_delete;
+DROP TRIGGER IF EXISTS orders_rollup_insert;
+DROP TRIGGER IF EXISTS orders_rollup_update;
+DROP TRIGGER IF EXISTS orders_rollup_delete;
+DROP PROCEDURE IF EXISTS rollup_line;
+DROP PROCEDURE IF EXISTS rollup_order_lines;
+
+DELIMITER //
+
+-- Adds one line (negative amounts take it away) to the rollups of the order it belongs to
+CREATE PROCEDURE rollup_line(IN p_order_id INT, IN p_product_id INT, IN p_revenue DECIMAL(14,2),
+                             IN p_quantity BIGINT, IN p_profit DECIMAL(14,2), IN p_orders INT)
+BEGIN
+  DECLARE v_month DATE;
+  DECLARE v_customer INT;
+  SELECT DATE_FORMAT(orderDate, '%Y-%m-01'), customer_id INTO v_month, v_customer
+    FROM orders WHERE orderId = p_order_id;
+  IF v_month IS NOT NULL THEN
+    INSERT INTO sales_monthly_total (sales_month, quantity) VALUES (v_month, p_quantity)
+      ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity);
+    INSERT INTO sales_monthly (sales_month, product_id, customer_id, revenue, quantity, profit, order_count)
+      VALUES (v_month, p_product_id, v_customer, p_revenue, p_quantity, p_profit, p_orders)
+      ON DUPLICATE KEY UPDATE revenue = revenue + VALUES(revenue), quantity = quantity + VALUES(quantity),
+        profit = profit + VALUES(profit), order_count = order_count + VALUES(order_count);
+  END IF;
+END//
+
+-- Adds (p_sign = 1) or takes away (p_sign = -1) all lines of an order under the given month and customer
+CREATE PROCEDURE rollup_order_lines(IN p_order_id INT, IN p_month DATE, IN p_customer INT, IN p_sign INT)
+BEGIN
+  IF p_month IS NOT NULL THEN
+    INSERT INTO sales_monthly_total (sales_month, quantity)
+      SELECT p_month, p_sign * coalesce(sum(quantityOrdered), 0) FROM orderdetail WHERE orderId = p_order_id
+      ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity);
+    INSERT INTO sales_monthly (sales_month, product_id, customer_id, revenue, quantity, profit, order_count)
+      SELECT p_month, productId, p_customer, p_sign * sum(coalesce(lineTotal, 0)),
+        p_sign * sum(coalesce(quantityOrdered, 0)), p_sign * sum(coalesce(lineProfit, 0)), p_sign
+      FROM orderdetail WHERE orderId = p_order_id GROUP BY productId
+      ON DUPLICATE KEY UPDATE revenue = revenue + VALUES(revenue), quantity = quantity + VALUES(quantity),
+        profit = profit + VALUES(profit), order_count = order_count + VALUES(order_count);
+  END IF;
+END//
+
+-- Lines written without amounts (the web app) get them from the current product price, as the desktop app stores them
+CREATE TRIGGER orderdetail_fill_amounts BEFORE INSERT ON orderdetail FOR EACH ROW
+BEGIN
+  IF NEW.unitCost IS NULL THEN
+    SET NEW.unitCost = (SELECT price FROM product WHERE productId = NEW.productId);
+  END IF;
+  IF NEW.lineTotal IS NULL THEN
+    SET NEW.lineTotal = coalesce(NEW.quantityOrdered, 0) * coalesce(NEW.priceEach, 0);
+  END IF;
+  IF NEW.lineProfit IS NULL AND NEW.unitCost IS NOT NULL THEN
+    SET NEW.lineProfit = NEW.lineTotal - coalesce(NEW.quantityOrdered, 0) * NEW.unitCost;
+  END IF;
+END//
+
+-- order_count counts an order once per product, however many lines of that product it has
+CREATE TRIGGER orderdetail_rollup_insert AFTER INSERT ON orderdetail FOR EACH ROW
+BEGIN
+  CALL rollup_line(NEW.orderId, NEW.productId, coalesce(NEW.lineTotal, 0), coalesce(NEW.quantityOrdered, 0),
+    coalesce(NEW.lineProfit, 0),
+    IF(EXISTS (SELECT 1 FROM orderdetail WHERE orderId = NEW.orderId AND productId = NEW.productId
+                 AND orderDetailId <> NEW.orderDetailId), 0, 1));
+END//
+
+CREATE TRIGGER orderdetail_rollup_update AFTER UPDATE ON orderdetail FOR EACH ROW
+BEGIN
+  IF NOT (OLD.orderId <=> NEW.orderId AND OLD.productId <=> NEW.productId AND OLD.lineTotal <=> NEW.lineTotal
+          AND OLD.quantityOrdered <=> NEW.quantityOrdered AND OLD.lineProfit <=> NEW.lineProfit) THEN
+    CALL rollup_line(OLD.orderId, OLD.productId, -coalesce(OLD.lineTotal, 0), -coalesce(OLD.quantityOrdered, 0),
+      -coalesce(OLD.lineProfit, 0),
+      IF(EXISTS (SELECT 1 FROM orderdetail WHERE orderId = OLD.orderId AND productId = OLD.productId), 0, -1));
+    CALL rollup_line(NEW.orderId, NEW.productId, coalesce(NEW.lineTotal, 0), coalesce(NEW.quantityOrdered, 0),
+      coalesce(NEW.lineProfit, 0),
+      IF(EXISTS (SELECT 1 FROM orderdetail WHERE orderId = NEW.orderId AND productId = NEW.productId
+                   AND orderDetailId <> NEW.orderDetailId), 0, 1));
+  END IF;
+END//
+
+CREATE TRIGGER orderdetail_rollup_delete AFTER DELETE ON orderdetail FOR EACH ROW
+BEGIN
+  CALL rollup_line(OLD.orderId, OLD.productId, -coalesce(OLD.lineTotal, 0), -coalesce(OLD.quantityOrdered, 0),
+    -coalesce(OLD.lineProfit, 0),
+    IF(EXISTS (SELECT 1 FROM orderdetail WHERE orderId = OLD.orderId AND productId = OLD.productId), 0, -1));
+END//
+
+CREATE TRIGGER orders_rollup_insert AFTER INSERT ON orders FOR EACH ROW
+BEGIN
+  IF NEW.orderDate IS NOT NULL THEN
+    INSERT INTO sales_monthly_total (sales_month, revenue, profit, order_count)
+      VALUES (DATE_FORMAT(NEW.orderDate, '%Y-%m-01'), coalesce(NEW.totalAmount, 0), coalesce(NEW.profit, 0), 1)
+      ON DUPLICATE KEY UPDATE revenue = revenue + VALUES(revenue), profit = profit + VALUES(profit),
+        order_count = order_count + 1;
+  END IF;
+END//
+
+-- Status and note changes leave the rollups alone; a new total, month or customer moves the order
+CREATE TRIGGER orders_rollup_update AFTER UPDATE ON orders FOR EACH ROW
+BEGIN
+  DECLARE v_old_month DATE DEFAULT DATE_FORMAT(OLD.orderDate, '%Y-%m-01');
+  DECLARE v_new_month DATE DEFAULT DATE_FORMAT(NEW.orderDate, '%Y-%m-01');
+  IF NOT (v_old_month <=> v_new_month AND OLD.totalAmount <=> NEW.totalAmount AND OLD.profit <=> NEW.profit) THEN
+    IF v_old_month IS NOT NULL THEN
+      UPDATE sales_monthly_total SET revenue = revenue - coalesce(OLD.totalAmount, 0),
+        profit = profit - coalesce(OLD.profit, 0), order_count = order_count - 1
+        WHERE sales_month = v_old_month;
+    END IF;
+    IF v_new_month IS NOT NULL THEN
+      INSERT INTO sales_monthly_total (sales_month, revenue, profit, order_count)
+        VALUES (v_new_month, coalesce(NEW.totalAmount, 0), coalesce(NEW.profit, 0), 1)
+        ON DUPLICATE KEY UPDATE revenue = revenue + VALUES(revenue), profit = profit + VALUES(profit),
+          order_count = order_count + 1;
+    END IF;
+  END IF;
+  IF NOT (v_old_month <=> v_new_month AND OLD.customer_id <=> NEW.customer_id) THEN
+    CALL rollup_order_lines(NEW.orderId, v_old_month, OLD.customer_id, -1);
+    CALL rollup_order_lines(NEW.orderId, v_new_month, NEW.customer_id, 1);
+  END IF;
+END//
+
+CREATE TRIGGER orders_rollup_delete AFTER DELETE ON orders FOR EACH ROW
+BEGIN
+  IF OLD.orderDate IS NOT NULL THEN
+    UPDATE sales_monthly_total SET revenue = revenue - coalesce(OLD.totalAmount, 0),
+      profit = profit - coalesce(OLD.profit, 0), order_count = order_count - 1
+      WHERE sales_month = DATE_FORMAT(OLD.orderDate, '%Y-%m-01');
+  END IF;
+END//
+
+DELIMITER ;
+
 SELECT 'Migration completed successfully!' as status;